@@ -0,0 +1,157 @@
+package com.kubling.samples.operaton.bytearray;
+
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.ProcessEngineException;
+import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.operaton.bpm.engine.impl.persistence.entity.PropertyEntity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Content-addressed file store of byte array payloads, one file per SHA-256 digest under
+ * {@code <directory>/<first two hex digits>/<digest>}.
+ * <p>
+ * Rows only keep a reference to their payload, so every engine node has to read the same files: the directory must
+ * be storage shared by all nodes, like an NFS or cluster file system mount. {@link #verifyShared} checks this at
+ * startup against the store id kept in ACT_GE_PROPERTY, a node with a directory of its own fails to start.
+ * <p>
+ * Files are written once, through a temporary file that is moved into place, so concurrent writers of the same
+ * payload and readers never see a partial file. Files are read by memory-mapping them. They are never deleted here:
+ * the same payload may be referenced by several rows, and rows of rolled back transactions leave files behind.
+ */
+@Slf4j
+public class ByteArrayFileStore {
+
+    public static final String STORE_PROPERTY = "kubling.bytearray.store";
+
+    private static final String STORE_ID_FILE = ".kubling-store-id";
+
+    private final Path directory;
+
+    public ByteArrayFileStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new ProcessEngineException("Could not create byte array store directory " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fails unless the directory holds the store that the first node registered in ACT_GE_PROPERTY. The first node
+     * registers the id of its directory, creating one if needed.
+     */
+    public void verifyShared(ProcessEngineConfigurationImpl configuration) {
+        String localId = storeId();
+        String registeredId;
+        try {
+            registeredId = configuration.getCommandExecutorTxRequiresNew().execute(commandContext -> {
+                PropertyEntity property = commandContext.getPropertyManager().findPropertyById(STORE_PROPERTY);
+                if (property == null) {
+                    commandContext.getPropertyManager().insert(new PropertyEntity(STORE_PROPERTY, localId));
+                    return localId;
+                }
+                return property.getValue();
+            });
+        } catch (RuntimeException e) {
+            // another node registered its store at the same time
+            registeredId = configuration.getCommandExecutorTxRequiresNew().execute(commandContext -> {
+                PropertyEntity property = commandContext.getPropertyManager().findPropertyById(STORE_PROPERTY);
+                if (property == null) {
+                    throw e;
+                }
+                return property.getValue();
+            });
+        }
+        if (!registeredId.equals(localId)) {
+            throw new ProcessEngineException("Byte array store directory " + directory + " holds store " + localId
+                    + " but the engine nodes share store " + registeredId
+                    + ", the directory must be storage shared by all nodes");
+        }
+        log.info("Byte array store {} verified in {}", localId, directory);
+    }
+
+    public static String digest(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stores the payload under its digest unless a file with that digest exists already.
+     */
+    public void write(String digest, byte[] bytes) {
+        Path file = pathOf(digest);
+        if (Files.exists(file)) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), digest, ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new ProcessEngineException("Could not write byte array " + digest + " to " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    public byte[] read(String digest, long length) {
+        Path file = pathOf(digest);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != length) {
+                throw new ProcessEngineException("Byte array " + digest + " in " + directory + " has " + channel.size()
+                        + " bytes instead of " + length);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            byte[] bytes = new byte[(int) length];
+            mapped.get(bytes);
+            return bytes;
+        } catch (IOException e) {
+            throw new ProcessEngineException("Could not read byte array " + digest + " from " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    private String storeId() {
+        Path file = directory.resolve(STORE_ID_FILE);
+        try {
+            try {
+                Files.writeString(file, UUID.randomUUID().toString(), StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE);
+            } catch (FileAlreadyExistsException e) {
+                // created before, or by another node sharing the directory
+            }
+            return Files.readString(file).trim();
+        } catch (IOException e) {
+            throw new ProcessEngineException("Could not read byte array store id from " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    Path pathOf(String digest) {
+        return directory.resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+}
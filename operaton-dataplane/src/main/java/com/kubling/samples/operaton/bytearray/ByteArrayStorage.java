@@ -0,0 +1,150 @@
+package com.kubling.samples.operaton.bytearray;
+
+import org.operaton.bpm.engine.ProcessEngineException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes the BYTES_ column of ACT_GE_BYTEARRAY (deployment resources, serialized variables, stack traces), see
+ * {@link ByteArrayStorageInterceptor}.
+ * <p>
+ * Payloads from {@code compressionThreshold} bytes on are deflated when that makes them smaller, payloads from
+ * {@code offloadThreshold} bytes on are written to the {@link ByteArrayFileStore} and the row keeps a reference of
+ * their digest and length only. Encoded payloads start with a marker; smaller payloads are stored as they are, or
+ * behind the marker when they happen to start with it. Rows written before encoding was enabled are read unchanged;
+ * rows written with it stay readable only while it is enabled.
+ */
+public class ByteArrayStorage {
+
+    private static final byte[] MARKER = {0, 'K', 'B'};
+    private static final byte STORED = 'S';
+    private static final byte DEFLATED = 'D';
+    private static final byte OFFLOADED = 'F';
+
+    private final int compressionThreshold;
+    private final int offloadThreshold;
+    private final ByteArrayFileStore fileStore;
+
+    private final AtomicLong compressed = new AtomicLong();
+    private final AtomicLong offloaded = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    /**
+     * @param fileStore {@code null} to keep all payloads in the table
+     */
+    public ByteArrayStorage(int compressionThreshold, int offloadThreshold, ByteArrayFileStore fileStore) {
+        this.compressionThreshold = compressionThreshold;
+        this.offloadThreshold = offloadThreshold;
+        this.fileStore = fileStore;
+    }
+
+    public byte[] encode(byte[] bytes) {
+        if (fileStore != null && bytes.length >= offloadThreshold) {
+            String digest = ByteArrayFileStore.digest(bytes);
+            fileStore.write(digest, bytes);
+            byte[] reference = ByteBuffer.allocate(Long.BYTES).putLong(bytes.length).array();
+            byte[] encoded = withMarker(OFFLOADED, concat(reference, digest.getBytes(StandardCharsets.US_ASCII)));
+            offloaded.incrementAndGet();
+            bytesSaved.addAndGet(bytes.length - encoded.length);
+            return encoded;
+        }
+        if (bytes.length >= compressionThreshold) {
+            byte[] deflated = withMarker(DEFLATED, deflate(bytes));
+            if (deflated.length < bytes.length) {
+                compressed.incrementAndGet();
+                bytesSaved.addAndGet(bytes.length - deflated.length);
+                return deflated;
+            }
+        }
+        return hasMarker(bytes) ? withMarker(STORED, bytes) : bytes;
+    }
+
+    public byte[] decode(byte[] bytes) {
+        if (!hasMarker(bytes)) {
+            return bytes;
+        }
+        byte[] payload = Arrays.copyOfRange(bytes, MARKER.length + 1, bytes.length);
+        return switch (bytes[MARKER.length]) {
+            case STORED -> payload;
+            case DEFLATED -> inflate(payload);
+            case OFFLOADED -> {
+                if (fileStore == null) {
+                    throw new ProcessEngineException("Byte array refers to the byte array store, which is not configured");
+                }
+                ByteBuffer reference = ByteBuffer.wrap(payload);
+                long length = reference.getLong();
+                yield fileStore.read(new String(payload, Long.BYTES, payload.length - Long.BYTES, StandardCharsets.US_ASCII),
+                        length);
+            }
+            default -> bytes;
+        };
+    }
+
+    /**
+     * @return {@code null} when all payloads are kept in the table
+     */
+    public ByteArrayFileStore getFileStore() {
+        return fileStore;
+    }
+
+    public long getCompressed() {
+        return compressed.get();
+    }
+
+    public long getOffloaded() {
+        return offloaded.get();
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    private static boolean hasMarker(byte[] bytes) {
+        return bytes.length > MARKER.length && Arrays.equals(bytes, 0, MARKER.length, MARKER, 0, MARKER.length);
+    }
+
+    private static byte[] withMarker(byte kind, byte[] payload) {
+        byte[] encoded = new byte[MARKER.length + 1 + payload.length];
+        System.arraycopy(MARKER, 0, encoded, 0, MARKER.length);
+        encoded[MARKER.length] = kind;
+        System.arraycopy(payload, 0, encoded, MARKER.length + 1, payload.length);
+        return encoded;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] bytes = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (DeflaterOutputStream stream = new DeflaterOutputStream(out, deflater)) {
+            stream.write(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] bytes) {
+        try (InflaterInputStream stream = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new ProcessEngineException("Could not inflate byte array: " + e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.kubling.samples.operaton.bytearray;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.operaton.bpm.engine.impl.persistence.entity.ByteArrayEntity;
+import org.operaton.bpm.engine.impl.persistence.entity.ResourceEntity;
+
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * MyBatis plugin that applies the {@link ByteArrayStorage} to the BYTES_ column of ACT_GE_BYTEARRAY.
+ * <p>
+ * Byte array and resource entities are inserted and updated with their encoded payload, which is swapped in for the
+ * duration of the statement only, so the entity the engine keeps still holds the plain payload. Entities read are
+ * decoded as they come out of the result set, before the local session cache and the deployment caches see them.
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class}),
+        @Signature(type = ResultSetHandler.class, method = "handleResultSets",
+                args = {Statement.class})
+})
+public class ByteArrayStorageInterceptor implements Interceptor {
+
+    private final ByteArrayStorage storage;
+
+    public ByteArrayStorageInterceptor(ByteArrayStorage storage) {
+        this.storage = storage;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (invocation.getTarget() instanceof ResultSetHandler) {
+            List<?> results = (List<?>) invocation.proceed();
+            for (Object result : results) {
+                if (result instanceof ByteArrayEntity byteArray && byteArray.getBytes() != null) {
+                    byteArray.setBytes(storage.decode(byteArray.getBytes()));
+                } else if (result instanceof ResourceEntity resource && resource.getBytes() != null) {
+                    resource.setBytes(storage.decode(resource.getBytes()));
+                }
+            }
+            return results;
+        }
+
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        Object parameter = invocation.getArgs()[1];
+        SqlCommandType type = statement.getSqlCommandType();
+        if (type != SqlCommandType.INSERT && type != SqlCommandType.UPDATE) {
+            return invocation.proceed();
+        }
+        if (parameter instanceof ByteArrayEntity byteArray && byteArray.getBytes() != null) {
+            byte[] bytes = byteArray.getBytes();
+            byteArray.setBytes(storage.encode(bytes));
+            try {
+                // parameters are bound before update returns, also when batching
+                return invocation.proceed();
+            } finally {
+                byteArray.setBytes(bytes);
+            }
+        }
+        if (parameter instanceof ResourceEntity resource && resource.getBytes() != null) {
+            byte[] bytes = resource.getBytes();
+            resource.setBytes(storage.encode(bytes));
+            try {
+                return invocation.proceed();
+            } finally {
+                resource.setBytes(bytes);
+            }
+        }
+        return invocation.proceed();
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.kubling.samples.operaton.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drops the Kubling result cache through its invalidation endpoint.
+ * <p>
+ * Registered with the {@link DeploymentCacheSynchronizer} as commit listener, so it runs once after every
+ * transaction that deployed or deleted a deployment, or updated a process definition, on this node. Repository
+ * reads cached on the data plane through the {@link RepositoryCacheHint} are therefore never served after the
+ * deployment or the definition's suspension state or historyTimeToLive changed, other than for the duration of
+ * the call. The call is sent asynchronously and does not hold up the committing thread.
+ * Failures are logged, the entries then expire with their TTL.
+ */
+@Slf4j
+public class DataPlaneCacheInvalidator implements Runnable {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(2);
+
+    private final URI endpoint;
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(TIMEOUT)
+            .build();
+
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public DataPlaneCacheInvalidator(URI endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public void run() {
+        invalidate();
+    }
+
+    /**
+     * Sends the invalidation call, the returned future completes once it has been counted.
+     */
+    public CompletableFuture<Void> invalidate() {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    if (failure != null) {
+                        log.warn("Unable to invalidate data plane cache at {}: {}", endpoint, failure.getMessage());
+                        failures.incrementAndGet();
+                    } else if (response.statusCode() / 100 == 2) {
+                        invalidations.incrementAndGet();
+                        log.debug("Data plane cache invalidated");
+                    } else {
+                        log.warn("Data plane cache invalidation returned HTTP {}", response.statusCode());
+                        failures.incrementAndGet();
+                    }
+                    return null;
+                });
+    }
+
+    public URI getEndpoint() {
+        return endpoint;
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.kubling.samples.operaton.cache;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.List;
+
+/**
+ * MyBatis plugin that serves the deployment entity statements of the Kubling mappings from the
+ * {@link DeploymentEntityCache} and reports every write of one of those entities to the
+ * {@link DeploymentCacheSynchronizer}. Without a cache, only writes are tracked.
+ * <p>
+ * While the current transaction has written deployment entities, reads bypass the cache, so that uncommitted
+ * rows are never cached.
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class})
+})
+public class DeploymentCacheInterceptor implements Interceptor {
+
+    private final DeploymentEntityCache cache;
+    private final DeploymentCacheSynchronizer synchronizer;
+
+    public DeploymentCacheInterceptor(DeploymentEntityCache cache, DeploymentCacheSynchronizer synchronizer) {
+        this.cache = cache;
+        this.synchronizer = synchronizer;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement statement = (MappedStatement) args[0];
+
+        if ("update".equals(invocation.getMethod().getName())) {
+            Object result = invocation.proceed();
+            if (DeploymentEntityCache.isCachedNamespace(namespace(statement))) {
+                synchronizer.entitiesWritten();
+            }
+            return result;
+        }
+
+        if (cache == null
+                || !DeploymentEntityCache.isCachedStatement(statement.getId())
+                || args[3] != null
+                || synchronizer.isWritingTransaction()) {
+            return invocation.proceed();
+        }
+
+        Executor executor = (Executor) invocation.getTarget();
+        CacheKey key = executor.createCacheKey(statement, args[1], (RowBounds) args[2], statement.getBoundSql(args[1]));
+        List<?> cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = cache.generation();
+        List<?> result = (List<?>) invocation.proceed();
+        cache.put(key, statement.getId(), result, generation);
+        return result;
+    }
+
+    private static String namespace(MappedStatement statement) {
+        String id = statement.getId();
+        int separator = id.lastIndexOf('.');
+        return separator < 0 ? "" : id.substring(0, separator);
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.kubling.samples.operaton.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.OptimisticLockingException;
+import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.operaton.bpm.engine.impl.cfg.TransactionState;
+import org.operaton.bpm.engine.impl.context.Context;
+import org.operaton.bpm.engine.impl.interceptor.CommandContext;
+import org.operaton.bpm.engine.impl.persistence.entity.PropertyEntity;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the deployment caches of all engine nodes consistent, such as the {@link DeploymentEntityCache}.
+ * <p>
+ * A node that commits a write to a deployment entity increments the {@value #VERSION_PROPERTY} property in
+ * ACT_GE_PROPERTY in a separate transaction. Every node polls that property and drops its caches when the value
+ * changes, so other nodes serve stale entries for at most one poll interval. Caches register themselves with
+ * {@link #addInvalidationListener(Runnable)}. Caches shared by all nodes, like the result cache of the data plane,
+ * register with {@link #addCommitListener(Runnable)} and are only told by the node that wrote.
+ */
+@Slf4j
+public class DeploymentCacheSynchronizer implements AutoCloseable {
+
+    public static final String VERSION_PROPERTY = "kubling.deployment.version";
+
+    private static final int MAX_BUMP_ATTEMPTS = 3;
+
+    private final ProcessEngineConfigurationImpl configuration;
+    private final long pollIntervalMillis;
+    private final List<Runnable> invalidationListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> commitListeners = new CopyOnWriteArrayList<>();
+
+    private final ThreadLocal<Boolean> writingTransaction = new ThreadLocal<>();
+    private final AtomicLong remoteInvalidations = new AtomicLong();
+
+    private volatile String knownVersion;
+    private ScheduledExecutorService poller;
+
+    public DeploymentCacheSynchronizer(ProcessEngineConfigurationImpl configuration,
+                                       long pollIntervalMillis) {
+        this.configuration = configuration;
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        knownVersion = readVersion();
+        poller = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("kubling-deployment-cache-poller").daemon(true).factory());
+        poller.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Deployment cache synchronizer started: version={}, pollInterval={}ms", knownVersion, pollIntervalMillis);
+    }
+
+    public void addInvalidationListener(Runnable listener) {
+        invalidationListeners.add(listener);
+    }
+
+    /**
+     * Called once after each transaction that wrote deployment entities on this node has committed.
+     */
+    public void addCommitListener(Runnable listener) {
+        commitListeners.add(listener);
+    }
+
+    boolean isWritingTransaction() {
+        return Boolean.TRUE.equals(writingTransaction.get());
+    }
+
+    /**
+     * Called for every write to a cached entity type, while the engine flushes.
+     */
+    void entitiesWritten() {
+        invalidateAll();
+
+        CommandContext commandContext = Context.getCommandContext();
+        if (commandContext == null || isWritingTransaction()) {
+            return;
+        }
+        writingTransaction.set(true);
+        commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, committed -> {
+            writingTransaction.remove();
+            invalidateAll();
+            commitListeners.forEach(Runnable::run);
+            bumpVersion();
+        });
+        commandContext.getTransactionContext().addTransactionListener(TransactionState.ROLLED_BACK, rolledBack -> {
+            writingTransaction.remove();
+            invalidateAll();
+        });
+    }
+
+    public long getRemoteInvalidations() {
+        return remoteInvalidations.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    private void invalidateAll() {
+        invalidationListeners.forEach(Runnable::run);
+    }
+
+    private void poll() {
+        try {
+            String version = readVersion();
+            if (!Objects.equals(version, knownVersion)) {
+                log.debug("Deployment version changed from {} to {}, invalidating deployment caches", knownVersion, version);
+                knownVersion = version;
+                invalidateAll();
+                remoteInvalidations.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to poll deployment version: {}", e.getMessage());
+        }
+    }
+
+    private String readVersion() {
+        return configuration.getCommandExecutorTxRequiresNew().execute(commandContext -> {
+            PropertyEntity property = commandContext.getPropertyManager().findPropertyById(VERSION_PROPERTY);
+            return property == null ? null : property.getValue();
+        });
+    }
+
+    private void bumpVersion() {
+        for (int attempt = 1; attempt <= MAX_BUMP_ATTEMPTS; attempt++) {
+            try {
+                knownVersion = configuration.getCommandExecutorTxRequiresNew().execute(commandContext -> {
+                    PropertyEntity property = commandContext.getPropertyManager().findPropertyById(VERSION_PROPERTY);
+                    if (property == null) {
+                        property = new PropertyEntity(VERSION_PROPERTY, "1");
+                        commandContext.getPropertyManager().insert(property);
+                    } else {
+                        property.setValue(String.valueOf(Long.parseLong(property.getValue()) + 1));
+                    }
+                    return property.getValue();
+                });
+                return;
+            } catch (OptimisticLockingException e) {
+                log.debug("Concurrent deployment version update, retrying ({})", attempt);
+            } catch (RuntimeException e) {
+                // e.g. two nodes inserting the initial property at the same time
+                log.debug("Unable to update deployment version ({}): {}", attempt, e.getMessage());
+            }
+        }
+        log.warn("Unable to update {}, other nodes pick up the change with the next version update", VERSION_PROPERTY);
+    }
+
+}
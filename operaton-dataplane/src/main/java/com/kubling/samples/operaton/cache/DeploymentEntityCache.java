@@ -0,0 +1,236 @@
+package com.kubling.samples.operaton.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cache.CacheKey;
+import org.operaton.bpm.engine.impl.persistence.entity.DeploymentEntity;
+import org.operaton.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.operaton.bpm.engine.impl.persistence.entity.ResourceEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded, size-aware cache for query results over deployment entities (process definitions, deployments and
+ * deployment resources). Process definitions are not immutable, their suspension state and historyTimeToLive are
+ * updated in place, so the cache is dropped on every write of one of these entities.
+ * <p>
+ * Results are kept in serialized form: the serialized length is what is charged against {@code maxBytes}, and
+ * every hit hands out a fresh copy, so the engine can attach and modify the returned entities just like rows
+ * read from the database. Resource payloads can optionally be kept off-heap. Least recently used entries are
+ * evicted first.
+ */
+@Slf4j
+public class DeploymentEntityCache {
+
+    static final Map<String, Set<String>> CACHED_STATEMENTS = Map.of(
+            ProcessDefinitionEntity.class.getName(), Set.of(
+                    "selectProcessDefinition",
+                    "selectProcessDefinitionByDeploymentId",
+                    "selectProcessDefinitionByKeyVersionAndTenantId",
+                    "selectProcessDefinitionByDeploymentAndKey",
+                    "selectPreviousProcessDefinitionId"),
+            DeploymentEntity.class.getName(), Set.of(
+                    "selectDeployment",
+                    "selectDeploymentsByIds"),
+            ResourceEntity.class.getName(), Set.of(
+                    "selectResourceByDeploymentIdAndResourceName",
+                    "selectResourceByDeploymentIdAndResourceNames",
+                    "selectResourceByDeploymentIdAndResourceId",
+                    "selectResourceByDeploymentIdAndResourceIds",
+                    "selectResourcesByDeploymentId",
+                    "selectResourceById"));
+
+    private static final Set<String> CACHED_STATEMENT_IDS = CACHED_STATEMENTS.entrySet().stream()
+            .flatMap(entry -> entry.getValue().stream().map(id -> entry.getKey() + "." + id))
+            .collect(Collectors.toUnmodifiableSet());
+
+    private static final String RESOURCE_NAMESPACE = ResourceEntity.class.getName();
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final boolean offHeapPayloads;
+
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long sizeBytes;
+    private long offHeapBytes;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public DeploymentEntityCache(long maxBytes, boolean offHeapPayloads) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxBytes / 4;
+        this.offHeapPayloads = offHeapPayloads;
+    }
+
+    public static boolean isCachedStatement(String statementId) {
+        return CACHED_STATEMENT_IDS.contains(statementId);
+    }
+
+    public static boolean isCachedNamespace(String namespace) {
+        return CACHED_STATEMENTS.containsKey(namespace);
+    }
+
+    /**
+     * Returns a copy of the cached result, or {@code null} on a miss.
+     */
+    public List<?> get(CacheKey key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.read();
+    }
+
+    /**
+     * Caches a query result, unless the cache was invalidated since {@code expectedGeneration} was read, which
+     * means the result may already be outdated.
+     */
+    public void put(CacheKey key, String statementId, List<?> result, long expectedGeneration) {
+        byte[] serialized = serialize(result);
+        if (serialized == null || serialized.length > maxEntryBytes) {
+            return;
+        }
+        Entry entry = offHeapPayloads && statementId.startsWith(RESOURCE_NAMESPACE)
+                ? Entry.offHeap(serialized)
+                : Entry.onHeap(serialized);
+
+        synchronized (this) {
+            if (generation.get() != expectedGeneration) {
+                return;
+            }
+            remove(entries.put(key, entry));
+            add(entry);
+            evict();
+        }
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        if (!entries.isEmpty()) {
+            invalidations.incrementAndGet();
+        }
+        entries.clear();
+        sizeBytes = 0;
+        offHeapBytes = 0;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public synchronized int getEntries() {
+        return entries.size();
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized long getOffHeapBytes() {
+        return offHeapBytes;
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (sizeBytes > maxBytes && eldest.hasNext()) {
+            remove(eldest.next());
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void add(Entry entry) {
+        sizeBytes += entry.size();
+        if (entry.offHeap() != null) {
+            offHeapBytes += entry.size();
+        }
+    }
+
+    private void remove(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        sizeBytes -= entry.size();
+        if (entry.offHeap() != null) {
+            offHeapBytes -= entry.size();
+        }
+    }
+
+    private static byte[] serialize(List<?> result) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(result instanceof Serializable ? result : new ArrayList<>(result));
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            log.debug("Result is not cacheable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private record Entry(byte[] heap, ByteBuffer offHeap, int size) {
+
+        static Entry onHeap(byte[] serialized) {
+            return new Entry(serialized, null, serialized.length);
+        }
+
+        static Entry offHeap(byte[] serialized) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(serialized.length);
+            buffer.put(serialized).flip();
+            return new Entry(null, buffer, serialized.length);
+        }
+
+        List<?> read() {
+            byte[] serialized = heap;
+            if (serialized == null) {
+                serialized = new byte[size];
+                offHeap.duplicate().get(serialized);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+                return (List<?>) in.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new IllegalStateException("Corrupt deployment cache entry", e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.kubling.samples.operaton.cache;
+
+import org.operaton.bpm.engine.impl.cfg.TransactionState;
+import org.operaton.bpm.engine.impl.context.Context;
+import org.operaton.bpm.engine.impl.interceptor.CommandContext;
+import org.operaton.bpm.engine.impl.persistence.deploy.cache.CacheFactory;
+import org.operaton.bpm.engine.impl.persistence.deploy.cache.DeploymentCache;
+import org.operaton.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deployment cache that resolves the latest version of a process definition key from memory.
+ * <p>
+ * The engine looks up the latest definition with a query on every {@code startProcessInstanceByKey}. Here the
+ * key is mapped to the id of its latest deployed definition, and the definition itself comes from the regular
+ * process definition cache. A committed deployment of a newer version moves the mapping forward; deleting
+ * definitions or an invalidation from the {@link DeploymentCacheSynchronizer} clears it. Definitions of a key
+ * that is deployed for tenants are always resolved by the engine.
+ * <p>
+ * Suspension state is taken from the cached definition, so a definition suspended on another node is seen
+ * here after at most one poll interval.
+ */
+public class LatestDefinitionDeploymentCache extends DeploymentCache {
+
+    private final Map<String, Latest> latestByKey = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public LatestDefinitionDeploymentCache(CacheFactory factory, int cacheCapacity) {
+        super(factory, cacheCapacity);
+    }
+
+    @Override
+    public ProcessDefinitionEntity findDeployedLatestProcessDefinitionByKey(String processDefinitionKey) {
+        Latest latest = latestByKey.get(processDefinitionKey);
+        if (latest != null) {
+            ProcessDefinitionEntity definition = getProcessDefinitionCache().get(latest.id());
+            if (definition != null) {
+                hits.incrementAndGet();
+                return definition;
+            }
+        }
+
+        misses.incrementAndGet();
+        long expectedGeneration = generation.get();
+        ProcessDefinitionEntity definition = super.findDeployedLatestProcessDefinitionByKey(processDefinitionKey);
+        if (definition != null && definition.getTenantId() == null) {
+            remember(definition, expectedGeneration);
+        }
+        return definition;
+    }
+
+    @Override
+    public void addProcessDefinition(ProcessDefinitionEntity processDefinition) {
+        super.addProcessDefinition(processDefinition);
+
+        // also called when an older version is loaded into the cache, so only ever move a known mapping forward
+        CommandContext commandContext = Context.getCommandContext();
+        if (commandContext == null) {
+            return;
+        }
+        commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, committed -> {
+            Latest added = new Latest(processDefinition.getId(), processDefinition.getVersion());
+            if (processDefinition.getTenantId() == null) {
+                latestByKey.computeIfPresent(processDefinition.getKey(),
+                        (key, current) -> added.version() > current.version() ? added : current);
+            } else {
+                latestByKey.remove(processDefinition.getKey());
+            }
+        });
+    }
+
+    @Override
+    public void removeProcessDefinition(String processDefinitionId) {
+        super.removeProcessDefinition(processDefinitionId);
+        invalidateLatestDefinitions();
+    }
+
+    @Override
+    public void removeDeployment(String deploymentId) {
+        super.removeDeployment(deploymentId);
+        invalidateLatestDefinitions();
+    }
+
+    @Override
+    public void discardProcessDefinitionCache() {
+        super.discardProcessDefinitionCache();
+        invalidateLatestDefinitions();
+    }
+
+    public void invalidateLatestDefinitions() {
+        synchronized (latestByKey) {
+            generation.incrementAndGet();
+            latestByKey.clear();
+        }
+    }
+
+    public long getLatestDefinitionHits() {
+        return hits.get();
+    }
+
+    public long getLatestDefinitionMisses() {
+        return misses.get();
+    }
+
+    private void remember(ProcessDefinitionEntity definition, long expectedGeneration) {
+        Latest candidate = new Latest(definition.getId(), definition.getVersion());
+        synchronized (latestByKey) {
+            if (generation.get() == expectedGeneration) {
+                latestByKey.merge(definition.getKey(), candidate,
+                        (current, added) -> added.version() >= current.version() ? added : current);
+            }
+        }
+    }
+
+    private record Latest(String id, int version) {
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.kubling.samples.operaton.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Teiid cache hint that asks Kubling to cache the results of repository reads.
+ * <p>
+ * The statements of {@link DeploymentEntityCache#isCachedStatement(String)} read deployments, process
+ * definitions and deployment resources and start with the {@code ${repositoryCacheHint}} fragment, which the
+ * MyBatis configuration defines as empty. With the repository cache enabled, the property is set to the hint, so
+ * the data plane serves these reads from its result cache instead of the backend. All other statements, including
+ * reads of act_ge_ and act_id_ rows, stay uncached, as the data source keeps {@code NO_CACHE} as default strategy.
+ * <p>
+ * Deployments and resources never change once written, but process definitions do: their suspension state and
+ * historyTimeToLive are updated in place. Cached results therefore rely on the invalidation path: every write of
+ * one of these entities is reported to the {@link DeploymentCacheSynchronizer}, whose commit listener
+ * {@link DataPlaneCacheInvalidator} drops the data plane cache. Without invalidation endpoint, entries are only
+ * refreshed once their TTL expired.
+ */
+public final class RepositoryCacheHint {
+
+    public static final String PROPERTY = "repositoryCacheHint";
+
+    private RepositoryCacheHint() {
+    }
+
+    public static String hint(long ttlMillis) {
+        return "/*+ cache(ttl:" + ttlMillis + ") */ ";
+    }
+
+    /**
+     * Returns the MyBatis configuration with the {@value #PROPERTY} property set to the hint.
+     */
+    public static InputStream apply(InputStream mappings, long ttlMillis) {
+        try (mappings) {
+            String xml = new String(mappings.readAllBytes(), StandardCharsets.UTF_8);
+            String property = "<property name=\"" + PROPERTY + "\" value=\"\"/>";
+            if (!xml.contains(property)) {
+                throw new IllegalStateException("MyBatis configuration does not define the " + PROPERTY + " property");
+            }
+            xml = xml.replace(property, "<property name=\"" + PROPERTY + "\" value=\"" + hint(ttlMillis) + "\"/>");
+            return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read MyBatis configuration", e);
+        }
+    }
+
+}
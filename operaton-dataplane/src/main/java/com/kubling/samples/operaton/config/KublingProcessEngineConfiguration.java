@@ -1,19 +1,220 @@
 package com.kubling.samples.operaton.config;
 
+import com.kubling.samples.operaton.bytearray.ByteArrayFileStore;
+import com.kubling.samples.operaton.bytearray.ByteArrayStorage;
+import com.kubling.samples.operaton.bytearray.ByteArrayStorageInterceptor;
+import com.kubling.samples.operaton.cache.DataPlaneCacheInvalidator;
+import com.kubling.samples.operaton.cache.DeploymentCacheInterceptor;
+import com.kubling.samples.operaton.cache.DeploymentCacheSynchronizer;
+import com.kubling.samples.operaton.cache.DeploymentEntityCache;
+import com.kubling.samples.operaton.cache.LatestDefinitionDeploymentCache;
+import com.kubling.samples.operaton.cache.RepositoryCacheHint;
+import com.kubling.samples.operaton.db.ApproximateTableDataManagerFactory;
+import com.kubling.samples.operaton.db.KublingDbSqlSessionFactory;
+import com.kubling.samples.operaton.db.KublingDialect;
+import com.kubling.samples.operaton.db.StatementCacheMetrics;
+import com.kubling.samples.operaton.db.StatementCachingDataSource;
+import com.kubling.samples.operaton.deletion.BulkDeletion;
+import com.kubling.samples.operaton.history.AsyncHistoryEventHandler;
+import com.kubling.samples.operaton.history.DurationRollupHistoryEventHandler;
+import com.kubling.samples.operaton.history.HistoricQueryStreams;
+import com.kubling.samples.operaton.history.HistoryPartitionManager;
+import com.kubling.samples.operaton.history.HistoryProfile;
+import com.kubling.samples.operaton.history.HistoryReadRouter;
+import com.kubling.samples.operaton.history.HistoryReadRoutingInterceptor;
+import com.kubling.samples.operaton.history.HistoryReadSessionFactory;
+import com.kubling.samples.operaton.history.PartitionedHistoryCleanupJobHandler;
+import com.kubling.samples.operaton.history.ProfiledHistoryLevel;
+import com.kubling.samples.operaton.jobexecutor.VirtualThreadJobExecutor;
+import com.kubling.samples.operaton.startup.DeploymentResourceSnapshot;
+import com.kubling.samples.operaton.startup.MapperGroup;
+import com.kubling.samples.operaton.startup.SnapshotResourceManagerFactory;
+import com.kubling.samples.operaton.startup.StartupTimings;
+import com.kubling.samples.operaton.statistics.RuntimeStatisticsDeployer;
+import com.kubling.samples.operaton.statistics.RuntimeStatisticsParseListener;
+import com.kubling.samples.operaton.statistics.RuntimeStatisticsSessionFactory;
+import com.kubling.samples.operaton.stp.StraightThroughHistoryEventHandler;
+import com.kubling.samples.operaton.stp.StraightThroughParseListener;
+import com.kubling.samples.operaton.stp.StraightThroughRegistry;
+import com.kubling.samples.operaton.variable.CompactValueSerializer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.operaton.bpm.engine.ProcessEngine;
+import org.operaton.bpm.engine.ProcessEngineException;
+import org.operaton.bpm.engine.impl.history.HistoryLevel;
+import org.operaton.bpm.engine.impl.interceptor.CommandContextInterceptor;
+import org.operaton.bpm.engine.impl.interceptor.CommandInvoker;
+import org.operaton.bpm.engine.impl.interceptor.LogInterceptor;
+import org.operaton.bpm.engine.impl.util.ClockUtil;
+import org.operaton.bpm.engine.impl.util.ParseUtil;
 import org.operaton.bpm.engine.impl.util.ReflectUtil;
 import org.operaton.bpm.engine.spring.SpringProcessEngineConfiguration;
 
+import javax.sql.DataSource;
 import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
+@Getter
+@Setter
 public class KublingProcessEngineConfiguration extends SpringProcessEngineConfiguration {
 
+    // Asynchronous history pipeline
+    private boolean asyncHistoryEnabled = false;
+    private Path asyncHistorySpoolPath = Path.of(System.getProperty("java.io.tmpdir"), "kubling-operaton", "history.spool");
+    private int asyncHistorySpoolSizeBytes = 64 * 1024 * 1024;
+    // forces every append to disk, so that events also survive a crash of the host and not only of the engine
+    private boolean asyncHistorySpoolForce = false;
+    private int asyncHistoryQueueCapacity = 10_000;
+    private int asyncHistoryBatchSize = 200;
+    private long asyncHistoryOfferTimeoutMillis = 50;
+
+    @Setter(AccessLevel.NONE)
+    private AsyncHistoryEventHandler asyncHistoryEventHandler;
+
+    // Virtual thread job executor
+    private boolean virtualThreadJobExecutorEnabled = false;
+    private int jobExecutorMaxConcurrentJobs = 32;
+    private int jobAcquisitionBatchSize = 10;
+    private int jobAcquisitionBackoffMillis = 50;
+    private int jobAcquisitionMaxBackoffMillis = 2000;
+
+    // Fast startup
+    private Set<MapperGroup> excludedMapperGroups = EnumSet.noneOf(MapperGroup.class);
+    private Path resourceSnapshotDirectory;
+
+    @Setter(AccessLevel.NONE)
+    private final StartupTimings startupTimings = new StartupTimings();
+
+    // Straight-through processing
+    private boolean straightThroughDetectionEnabled = false;
+    private boolean straightThroughHistorySuppressed = false;
+    // History of straight-through instances limited to the variables of their history profile
+    private boolean straightThroughTransientVariables = false;
+
+    @Setter(AccessLevel.NONE)
+    private final StraightThroughRegistry straightThroughRegistry = new StraightThroughRegistry();
+
+    // Deployment entity cache
+    private boolean deploymentEntityCacheEnabled = false;
+    private long deploymentEntityCacheMaxBytes = 32L * 1024 * 1024;
+    private boolean deploymentEntityCacheOffHeap = false;
+    private long deploymentCachePollIntervalMillis = 5000;
+    private boolean latestDefinitionResolverEnabled = false;
+
+    // Kubling result cache for repository reads, invalidated on every deployment or process definition change
+    private boolean repositoryCacheEnabled = false;
+    private long repositoryCacheTtlMillis = 12 * 60 * 60 * 1000L;
+    private URI dataPlaneCacheInvalidationUri;
+
+    @Setter(AccessLevel.NONE)
+    private DataPlaneCacheInvalidator dataPlaneCacheInvalidator;
+
+    // Backend-grouped batch flush
+    private boolean batchFlushEnabled = false;
+
+    // Kubling SQL dialect, paging and limited writes in a form the data plane pushes down
+    private boolean kublingDialectEnabled = false;
+
+    // Runtime statistics answered from counters maintained by execution listeners, see RuntimeStatistics.xml
+    private boolean runtimeStatisticsEnabled = false;
+
+    // Duration and task reports answered from hourly rollups of finished instances, see DurationRollup.xml
+    private boolean historyRollupsEnabled = false;
+
+    @Setter(AccessLevel.NONE)
+    private DurationRollupHistoryEventHandler durationRollupHistoryEventHandler;
+
+    // Table counts answered from the row estimates of the sources, see ApproximateTableDataManager
+    private boolean approximateTableCountEnabled = false;
+
+    // Set-based deletion of process instances in chunks, see BulkDeletion
+    private int bulkDeletionChunkSize = 500;
+
+    @Setter(AccessLevel.NONE)
+    private BulkDeletion bulkDeletion;
+
+    // JDBC fetch size of streamed historic queries, see HistoricQueryStreams
+    private int historicQueryFetchSize = 1000;
+
+    @Setter(AccessLevel.NONE)
+    private HistoricQueryStreams historicQueryStreams;
+
+    // Compression and file offload of ACT_GE_BYTEARRAY payloads, must stay enabled once payloads have been encoded
+    // the store directory must be shared by all engine nodes, startup fails on a node with a directory of its own
+    private boolean byteArrayStorageEnabled = false;
+    private int byteArrayCompressionThreshold = 4096;
+    private int byteArrayOffloadThreshold = 1024 * 1024;
+    private String byteArrayStoreDirectory;
+
+    @Setter(AccessLevel.NONE)
+    private ByteArrayStorage byteArrayStorage;
+
+    // MyBatis executor, REUSE keeps prepared statements for the duration of a command. null keeps the engine's choice,
+    // BATCH with JDBC batch processing; anything else requires batch processing to be off
+    private ExecutorType statementExecutorType;
+
+    @Setter(AccessLevel.NONE)
+    private StatementCacheMetrics statementCacheMetrics;
+
+    // Engine meters kept in memory only and exported through Micrometer
+    private boolean inMemoryMetricsEnabled = false;
+
+    // Inline serialization of small immutable object values
+    private boolean compactValueSerializationEnabled = false;
+
+    // History profiles per process definition key
+    private Map<String, HistoryProfile> historyProfiles = new LinkedHashMap<>();
+
+    @Setter(AccessLevel.NONE)
+    private HistoryLevel configuredHistoryLevel;
+
+    // Partitioned history cleanup, DDL runs on a direct connection to the history backend
+    private boolean historyPartitioningEnabled = false;
+    private DataSource historyMaintenanceDataSource;
+    private String historyPartitionSchema = "public";
+    private int historyPartitionPrecreateMonths = 2;
+
+    @Setter(AccessLevel.NONE)
+    private HistoryPartitionManager historyPartitionManager;
+
+    // Dedicated pool for history and report queries
+    private DataSource historyReadDataSource;
+
+    @Setter(AccessLevel.NONE)
+    private HistoryReadRouter historyReadRouter;
+
+    @Setter(AccessLevel.NONE)
+    private HistoryReadRoutingInterceptor historyReadRoutingInterceptor;
+
+    @Setter(AccessLevel.NONE)
+    private DeploymentEntityCache deploymentEntityCache;
+
+    @Setter(AccessLevel.NONE)
+    private DeploymentCacheSynchronizer deploymentCacheSynchronizer;
+
     @Override
     public void initDatabaseType() {
         databaseType = "h2";
     }
 
+    /**
+     * Engine behaviour keyed by database type, e.g. skipping pessimistic lock statements, stays the one of H2,
+     * also when the statements come from the {@link KublingDialect}.
+     */
     @Override
     public String getDatabaseType() {
         return "h2";
@@ -21,7 +222,355 @@ public class KublingProcessEngineConfiguration extends SpringProcessEngineConfig
 
     @Override
     protected InputStream getMyBatisXmlConfigurationSteam() {
-        return ReflectUtil.getResourceAsStream("com/kubling/operaton/bpm/engine/impl/mapping/mappings.xml");
+        InputStream mappings = ReflectUtil.getResourceAsStream("com/kubling/operaton/bpm/engine/impl/mapping/mappings.xml");
+        if (repositoryCacheEnabled) {
+            mappings = RepositoryCacheHint.apply(mappings, repositoryCacheTtlMillis);
+        }
+        return excludedMapperGroups.isEmpty() ? mappings : MapperGroup.filter(mappings, excludedMapperGroups);
+    }
+
+    @Override
+    protected void init() {
+        if (excludedMapperGroups.contains(MapperGroup.CMMN)) {
+            setCmmnEnabled(false);
+        }
+        if (excludedMapperGroups.contains(MapperGroup.DMN)) {
+            setDmnEnabled(false);
+        }
+        if (resourceSnapshotDirectory != null) {
+            if (customSessionFactories == null) {
+                customSessionFactories = new ArrayList<>();
+            }
+            customSessionFactories.add(new SnapshotResourceManagerFactory(
+                    new DeploymentResourceSnapshot(resourceSnapshotDirectory)));
+        }
+        if (approximateTableCountEnabled) {
+            if (customSessionFactories == null) {
+                customSessionFactories = new ArrayList<>();
+            }
+            customSessionFactories.add(new ApproximateTableDataManagerFactory());
+        }
+        if (straightThroughDetectionEnabled) {
+            if (customPostBPMNParseListeners == null) {
+                customPostBPMNParseListeners = new ArrayList<>();
+            }
+            customPostBPMNParseListeners.add(new StraightThroughParseListener(straightThroughRegistry,
+                    straightThroughTransientVariables, historyProfiles));
+        }
+        if (runtimeStatisticsEnabled) {
+            if (customPostBPMNParseListeners == null) {
+                customPostBPMNParseListeners = new ArrayList<>();
+            }
+            customPostBPMNParseListeners.add(new RuntimeStatisticsParseListener());
+            if (customPostDeployers == null) {
+                customPostDeployers = new ArrayList<>();
+            }
+            customPostDeployers.add(new RuntimeStatisticsDeployer());
+            if (customSessionFactories == null) {
+                customSessionFactories = new ArrayList<>();
+            }
+            customSessionFactories.add(new RuntimeStatisticsSessionFactory());
+        }
+        if (kublingDialectEnabled) {
+            KublingDialect.register();
+            // statement fragments and mappings are resolved by this type while the mappings are parsed
+            databaseType = KublingDialect.DATABASE_TYPE;
+        }
+        if (batchFlushEnabled && dbSqlSessionFactory == null) {
+            setJdbcBatchProcessing(true);
+            dbSqlSessionFactory = new KublingDbSqlSessionFactory();
+        }
+        if (customPreVariableSerializers == null) {
+            customPreVariableSerializers = new ArrayList<>();
+        }
+        // always registered, so that values written while compact serialization was enabled stay readable
+        customPreVariableSerializers.add(new CompactValueSerializer());
+        if (compactValueSerializationEnabled) {
+            // object values without an explicit format match the Java serializer too, the default format decides
+            setDefaultSerializationFormat(CompactValueSerializer.FORMAT);
+        }
+        if (historyPartitioningEnabled) {
+            initHistoryPartitioning();
+        }
+        if (inMemoryMetricsEnabled) {
+            // meters are read through Micrometer, ACT_RU_METER_LOG and ACT_RU_TASK_METER_LOG are never written
+            setMetricsEnabled(true);
+            setDbMetricsReporterActivate(false);
+            setTaskMetricsEnabled(false);
+        }
+        if (historyReadDataSource != null && historyReadRouter == null) {
+            historyReadRouter = new HistoryReadRouter(historyReadDataSource);
+            historyReadRoutingInterceptor = new HistoryReadRoutingInterceptor(historyReadRouter);
+            if (customPreCommandInterceptorsTxRequired == null) {
+                customPreCommandInterceptorsTxRequired = new ArrayList<>();
+            }
+            customPreCommandInterceptorsTxRequired.add(historyReadRoutingInterceptor);
+            if (customSessionFactories == null) {
+                customSessionFactories = new ArrayList<>();
+            }
+            customSessionFactories.add(new HistoryReadSessionFactory(this, historyReadRouter));
+        }
+
+        startupTimings.time("init", super::init);
+    }
+
+    private void initHistoryPartitioning() {
+        // partitions are keyed by removal time, so it has to be known when the row is inserted
+        setHistoryRemovalTimeStrategy(HISTORY_REMOVAL_TIME_STRATEGY_START);
+        setHistoryCleanupStrategy(HISTORY_CLEANUP_STRATEGY_REMOVAL_TIME_BASED);
+
+        if (historyMaintenanceDataSource == null) {
+            log.warn("History partitioning enabled without a maintenance data source, partitions are not maintained");
+            return;
+        }
+        if (historyPartitionManager == null) {
+            historyPartitionManager = new HistoryPartitionManager(historyMaintenanceDataSource, historyPartitionSchema,
+                    this::findMaxHistoryTimeToLive, Period.ofMonths(historyPartitionPrecreateMonths));
+            if (customJobHandlers == null) {
+                customJobHandlers = new ArrayList<>();
+            }
+            customJobHandlers.add(new PartitionedHistoryCleanupJobHandler(historyPartitionManager));
+        }
+    }
+
+    private Integer findMaxHistoryTimeToLive() {
+        // the configured default applies to the definitions deployed later on
+        Integer configured = ParseUtil.parseHistoryTimeToLive(getHistoryTimeToLive());
+        Integer deployed = commandExecutorTxRequired.execute(commandContext -> (Integer) commandContext
+                .getDbEntityManager()
+                .selectOne("selectMaxProcessDefinitionHistoryTimeToLive", null));
+        return Math.max(configured == null ? 0 : configured, deployed == null ? 0 : deployed);
+    }
+
+    @Override
+    protected void initCommandExecutors() {
+        super.initCommandExecutors();
+
+        if (historyReadRoutingInterceptor != null) {
+            // same chain as the required one, minus the Spring transaction interceptor
+            historyReadRoutingInterceptor.setReadCommandExecutor(initInterceptorChain(new ArrayList<>(List.of(
+                    new LogInterceptor(),
+                    new CommandContextInterceptor(commandContextFactory, this),
+                    new CommandInvoker()))));
+        }
+    }
+
+    @Override
+    protected void initSqlSessionFactory() {
+        if (statementExecutorType != null && statementExecutorType != ExecutorType.BATCH && isJdbcBatchProcessing()) {
+            // batched flushes read their update counts from the BatchResults only the BATCH executor returns
+            throw new ProcessEngineException("Statement executor " + statementExecutorType
+                    + " cannot be used with JDBC batch processing, disable jdbcBatchProcessing or batch flush");
+        }
+        startupTimings.time("sqlSessionFactory", super::initSqlSessionFactory);
+
+        if (statementExecutorType != null) {
+            sqlSessionFactory.getConfiguration().setDefaultExecutorType(statementExecutorType);
+        }
+        statementCacheMetrics = findStatementCacheMetrics();
+
+        if ((deploymentEntityCacheEnabled || latestDefinitionResolverEnabled || repositoryCacheEnabled)
+                && deploymentCacheSynchronizer == null) {
+            deploymentCacheSynchronizer = new DeploymentCacheSynchronizer(this, deploymentCachePollIntervalMillis);
+            if (deploymentEntityCacheEnabled) {
+                deploymentEntityCache = new DeploymentEntityCache(deploymentEntityCacheMaxBytes, deploymentEntityCacheOffHeap);
+                deploymentCacheSynchronizer.addInvalidationListener(deploymentEntityCache::invalidateAll);
+            }
+            if (deploymentCache instanceof LatestDefinitionDeploymentCache latestDefinitionCache) {
+                deploymentCacheSynchronizer.addInvalidationListener(latestDefinitionCache::invalidateLatestDefinitions);
+            }
+            if (repositoryCacheEnabled) {
+                if (dataPlaneCacheInvalidationUri != null) {
+                    dataPlaneCacheInvalidator = new DataPlaneCacheInvalidator(dataPlaneCacheInvalidationUri);
+                    deploymentCacheSynchronizer.addCommitListener(dataPlaneCacheInvalidator);
+                } else {
+                    log.warn("Repository cache enabled without invalidation endpoint, entries expire with their TTL only");
+                }
+            }
+            sqlSessionFactory.getConfiguration().addInterceptor(
+                    new DeploymentCacheInterceptor(deploymentEntityCache, deploymentCacheSynchronizer));
+        }
+
+        if (byteArrayStorageEnabled && byteArrayStorage == null) {
+            byteArrayStorage = new ByteArrayStorage(byteArrayCompressionThreshold, byteArrayOffloadThreshold,
+                    byteArrayStoreDirectory == null ? null : new ByteArrayFileStore(Path.of(byteArrayStoreDirectory)));
+            sqlSessionFactory.getConfiguration().addInterceptor(new ByteArrayStorageInterceptor(byteArrayStorage));
+        }
+    }
+
+    @Override
+    protected void initSessionFactories() {
+        super.initSessionFactories();
+
+        if (kublingDialectEnabled) {
+            Map<String, String> statementMappings = dbSqlSessionFactory.getStatementMappings();
+            dbSqlSessionFactory.setDatabaseType(getDatabaseType());
+            dbSqlSessionFactory.setStatementMappings(statementMappings);
+        }
+        if (runtimeStatisticsEnabled) {
+            // the mappings of a database type are shared by all engines, extend a copy
+            Map<String, String> statementMappings = dbSqlSessionFactory.getStatementMappings() == null
+                    ? new HashMap<>()
+                    : new HashMap<>(dbSqlSessionFactory.getStatementMappings());
+            statementMappings.put("selectProcessDefinitionStatistics", "selectProcessDefinitionStatisticsFromCounters");
+            statementMappings.put("selectProcessDefinitionStatisticsCount",
+                    "selectProcessDefinitionStatisticsCountFromCounters");
+            statementMappings.put("selectActivityStatistics", "selectActivityStatisticsFromCounters");
+            statementMappings.put("selectActivityStatisticsCount", "selectActivityStatisticsCountFromCounters");
+            dbSqlSessionFactory.setStatementMappings(statementMappings);
+        }
+        if (isHistoryRollupsActive()) {
+            Map<String, String> statementMappings = dbSqlSessionFactory.getStatementMappings() == null
+                    ? new HashMap<>()
+                    : new HashMap<>(dbSqlSessionFactory.getStatementMappings());
+            statementMappings.put("selectHistoricProcessInstanceDurationReport",
+                    "selectHistoricProcessInstanceDurationReportFromRollups");
+            statementMappings.put("selectHistoricTaskInstanceDurationReport",
+                    "selectHistoricTaskInstanceDurationReportFromRollups");
+            statementMappings.put("selectHistoricTaskInstanceCountByTaskNameReport",
+                    "selectHistoricTaskInstanceCountByTaskNameReportFromRollups");
+            statementMappings.put("selectHistoricTaskInstanceCountByProcDefKeyReport",
+                    "selectHistoricTaskInstanceCountByProcDefKeyReportFromRollups");
+            dbSqlSessionFactory.setStatementMappings(statementMappings);
+        }
+    }
+
+    private boolean isHistoryRollupsActive() {
+        // the rollup statements live with the report mappers
+        return historyRollupsEnabled && !excludedMapperGroups.contains(MapperGroup.REPORTS);
+    }
+
+    private StatementCacheMetrics findStatementCacheMetrics() {
+        try {
+            if (dataSource != null && dataSource.isWrapperFor(StatementCachingDataSource.class)) {
+                return dataSource.unwrap(StatementCachingDataSource.class).getMetrics();
+            }
+        } catch (SQLException e) {
+            log.debug("Could not unwrap data source: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    @Override
+    protected void initDeployers() {
+        startupTimings.time("deployers", () -> {
+            super.initDeployers();
+
+            if (latestDefinitionResolverEnabled && !(deploymentCache instanceof LatestDefinitionDeploymentCache)) {
+                LatestDefinitionDeploymentCache latestDefinitionCache =
+                        new LatestDefinitionDeploymentCache(cacheFactory, cacheCapacity);
+                latestDefinitionCache.setDeployers(deployers);
+                deploymentCache = latestDefinitionCache;
+            }
+        });
+    }
+
+    @Override
+    public void initHistoryLevel() {
+        super.initHistoryLevel();
+
+        // the profiled level does not equal the built-in levels, comparisons go through the configured one
+        configuredHistoryLevel = historyLevel instanceof ProfiledHistoryLevel profiled
+                ? profiled.getDelegate()
+                : historyLevel;
+        if (!historyProfiles.isEmpty() && historyLevel != null && !(historyLevel instanceof ProfiledHistoryLevel)) {
+            historyLevel = new ProfiledHistoryLevel(historyLevel, historyProfiles);
+        }
+    }
+
+    @Override
+    protected void initHistoryEventHandler() {
+        super.initHistoryEventHandler();
+
+        if (asyncHistoryEnabled && asyncHistoryEventHandler == null) {
+            asyncHistoryEventHandler = new AsyncHistoryEventHandler(
+                    this,
+                    historyEventHandler,
+                    asyncHistorySpoolPath,
+                    asyncHistorySpoolSizeBytes,
+                    asyncHistorySpoolForce,
+                    asyncHistoryQueueCapacity,
+                    asyncHistoryBatchSize,
+                    asyncHistoryOfferTimeoutMillis);
+            historyEventHandler = asyncHistoryEventHandler;
+        }
+
+        // filter before the async pipeline, so that suppressed events are never queued
+        if (straightThroughDetectionEnabled && (straightThroughHistorySuppressed || straightThroughTransientVariables)
+                && !(historyEventHandler instanceof StraightThroughHistoryEventHandler)) {
+            historyEventHandler = new StraightThroughHistoryEventHandler(historyEventHandler,
+                    straightThroughHistorySuppressed, straightThroughRegistry);
+        }
+
+        // outermost, so that instances whose history is suppressed or queued still count in the reports
+        if (isHistoryRollupsActive() && durationRollupHistoryEventHandler == null) {
+            durationRollupHistoryEventHandler = new DurationRollupHistoryEventHandler(this, historyEventHandler);
+            historyEventHandler = durationRollupHistoryEventHandler;
+        }
+    }
+
+    @Override
+    protected void initJobExecutor() {
+        if (jobExecutor == null && virtualThreadJobExecutorEnabled) {
+            VirtualThreadJobExecutor virtualThreadJobExecutor = new VirtualThreadJobExecutor(jobExecutorMaxConcurrentJobs);
+            virtualThreadJobExecutor.setMaxJobsPerAcquisition(jobAcquisitionBatchSize);
+            virtualThreadJobExecutor.setBackoffTimeInMillis(jobAcquisitionBackoffMillis);
+            virtualThreadJobExecutor.setMaxBackoff(jobAcquisitionMaxBackoffMillis);
+            jobExecutor = virtualThreadJobExecutor;
+        }
+
+        super.initJobExecutor();
+    }
+
+    @Override
+    public ProcessEngine buildProcessEngine() {
+        ProcessEngine processEngine = startupTimings.time("buildProcessEngine", super::buildProcessEngine);
+        startupTimings.report();
+        bulkDeletion = new BulkDeletion(this, bulkDeletionChunkSize);
+        historicQueryStreams = new HistoricQueryStreams(this, historicQueryFetchSize);
+
+        if (asyncHistoryEventHandler != null) {
+            asyncHistoryEventHandler.start();
+        }
+        if (deploymentCacheSynchronizer != null) {
+            deploymentCacheSynchronizer.start();
+        }
+        if (byteArrayStorage != null && byteArrayStorage.getFileStore() != null) {
+            byteArrayStorage.getFileStore().verifyShared(this);
+        }
+        if (historyPartitionManager != null) {
+            try {
+                historyPartitionManager.maintain(ClockUtil.getCurrentTime());
+            } catch (RuntimeException e) {
+                log.error("Could not prepare history partitions: {}", e.getMessage());
+            }
+        }
+
+        return processEngine;
+    }
+
+    @Override
+    public void close() {
+        if (asyncHistoryEventHandler != null) {
+            try {
+                asyncHistoryEventHandler.close();
+            } catch (Exception e) {
+                log.warn("Error stopping async history writer: {}", e.getMessage());
+            }
+        }
+        if (deploymentCacheSynchronizer != null) {
+            deploymentCacheSynchronizer.close();
+        }
+        for (DataSource historyDataSource : new DataSource[]{historyMaintenanceDataSource, historyReadDataSource}) {
+            if (historyDataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Error closing history data source: {}", e.getMessage());
+                }
+            }
+        }
+        super.close();
     }
 
 }
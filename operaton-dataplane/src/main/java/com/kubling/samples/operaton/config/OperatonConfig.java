@@ -1,10 +1,18 @@
 package com.kubling.samples.operaton.config;
 
+import com.kubling.samples.operaton.db.StatementCachingDataSource;
+import com.kubling.samples.operaton.history.HistoryProfile;
+import com.kubling.samples.operaton.id.TimeOrderedIdGenerator;
+import com.kubling.samples.operaton.metrics.EngineMetricsBinder;
+import com.kubling.samples.operaton.startup.MapperGroup;
 import com.kubling.samples.operaton.tx.KublingTransactionManager;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.util.DriverDataSource;
 import com.zaxxer.hikari.util.IsolationLevel;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
 import org.operaton.bpm.engine.ProcessEngineConfiguration;
 import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.operaton.bpm.engine.impl.cfg.SpringBeanFactoryProxyMap;
@@ -15,8 +23,13 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Properties;
+import java.util.stream.Collectors;
 
 @Configuration
 @Slf4j
@@ -26,14 +39,25 @@ public class OperatonConfig {
     @Primary
     public static DataSource createHikariDataSource() {
 
-        HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setJdbcUrl(String.format("jdbc:teiid:%s@mm://%s:%s",
+        String jdbcUrl = String.format("jdbc:teiid:%s@mm://%s:%s",
                 System.getProperties().getOrDefault("KUBLING_VDB_NAME", "OperatonVDB"),
                 System.getProperties().getOrDefault("KUBLING_HOST", "localhost"),
-                System.getProperties().getOrDefault("KUBLING_PORT", "35482")));
-        hikariConfig.setUsername((String) System.getProperties().getOrDefault("KUBLING_USERNAME", "sa"));
-        hikariConfig.setPassword((String) System.getProperties().getOrDefault("KUBLING_PASSWORD", "sa"));
-        hikariConfig.setDriverClassName("com.kubling.teiid.jdbc.TeiidDriver");
+                System.getProperties().getOrDefault("KUBLING_PORT", "35482"));
+        String username = (String) System.getProperties().getOrDefault("KUBLING_USERNAME", "sa");
+        String password = (String) System.getProperties().getOrDefault("KUBLING_PASSWORD", "sa");
+
+        HikariConfig hikariConfig = new HikariConfig();
+        if (Boolean.parseBoolean((String) System.getProperties().getOrDefault("KUBLING_STATEMENT_CACHE", "false"))) {
+            // the cache sits below the pool, so statements survive the return of the connection
+            hikariConfig.setDataSource(new StatementCachingDataSource(
+                    new DriverDataSource(jdbcUrl, "com.kubling.teiid.jdbc.TeiidDriver", new Properties(), username, password),
+                    Integer.parseInt((String) System.getProperties().getOrDefault("KUBLING_STATEMENT_CACHE_SIZE", "256"))));
+        } else {
+            hikariConfig.setJdbcUrl(jdbcUrl);
+            hikariConfig.setUsername(username);
+            hikariConfig.setPassword(password);
+            hikariConfig.setDriverClassName("com.kubling.teiid.jdbc.TeiidDriver");
+        }
 
         // Additional HikariCP settings
         hikariConfig.setMaximumPoolSize(10);
@@ -65,14 +89,161 @@ public class OperatonConfig {
         config.setDatabaseTablePrefix("operaton.");
         config.setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_FALSE);
         config.setHistoryTimeToLive("P365D");
-        config.setIdGenerator(() -> UUID.randomUUID().toString());
+        // nodes sharing a data plane need distinct ids, without one a random id is drawn per start
+        config.setIdGenerator(new TimeOrderedIdGenerator(
+                Long.parseLong((String) System.getProperties().getOrDefault("KUBLING_ENGINE_NODE_ID",
+                        String.valueOf(TimeOrderedIdGenerator.randomNodeId()))),
+                Integer.parseInt((String) System.getProperties().getOrDefault("KUBLING_ID_BLOCK_SIZE",
+                        String.valueOf(TimeOrderedIdGenerator.DEFAULT_BLOCK_SIZE)))));
         config.setMetricsEnabled(false);
-        config.setJobExecutorActivate(false);
+        config.setJobExecutorActivate(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_JOB_EXECUTOR", "false")));
         config.setBeans(new SpringBeanFactoryProxyMap(applicationContext));
 
+        // Kubling data plane settings
+        config.setAsyncHistoryEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_ASYNC_HISTORY", "false")));
+        config.setAsyncHistorySpoolForce(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_ASYNC_HISTORY_SPOOL_FORCE", "false")));
+        config.setVirtualThreadJobExecutorEnabled(config.isJobExecutorActivate());
+        config.setJobExecutorMaxConcurrentJobs(Integer.parseInt(
+                (String) System.getProperties().getOrDefault("KUBLING_JOB_EXECUTOR_MAX_CONCURRENT_JOBS", "32")));
+        if (Boolean.parseBoolean((String) System.getProperties().getOrDefault("KUBLING_FAST_STARTUP", "false"))) {
+            // reports are only left out when asked for, the history rollups need them as well
+            config.setExcludedMapperGroups(Arrays.stream(((String) System.getProperties().getOrDefault(
+                            "KUBLING_FAST_STARTUP_EXCLUDED_MAPPERS", "CMMN,DMN")).split(","))
+                    .map(String::trim)
+                    .filter(group -> !group.isEmpty())
+                    .map(MapperGroup::valueOf)
+                    .collect(Collectors.toCollection(() -> EnumSet.noneOf(MapperGroup.class))));
+            // no default location, resources read from the snapshot are deployed as they are
+            if (System.getProperties().containsKey("KUBLING_RESOURCE_SNAPSHOT_DIR")) {
+                config.setResourceSnapshotDirectory(Path.of(System.getProperty("KUBLING_RESOURCE_SNAPSHOT_DIR")));
+            }
+        }
+        config.setStraightThroughDetectionEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_STRAIGHT_THROUGH", "false")));
+        config.setStraightThroughHistorySuppressed(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_STRAIGHT_THROUGH_SKIP_HISTORY", "false")));
+        config.setStraightThroughTransientVariables(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_STRAIGHT_THROUGH_TRANSIENT_VARIABLES", "false")));
+        config.setDeploymentEntityCacheEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_DEPLOYMENT_CACHE", "false")));
+        config.setDeploymentEntityCacheMaxBytes(Long.parseLong(
+                (String) System.getProperties().getOrDefault("KUBLING_DEPLOYMENT_CACHE_MAX_BYTES", "33554432")));
+        config.setDeploymentEntityCacheOffHeap(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_DEPLOYMENT_CACHE_OFF_HEAP", "false")));
+        config.setLatestDefinitionResolverEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_LATEST_DEFINITION_RESOLVER", "false")));
+        config.setRepositoryCacheEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_REPOSITORY_CACHE", "false")));
+        config.setRepositoryCacheTtlMillis(Long.parseLong(
+                (String) System.getProperties().getOrDefault("KUBLING_REPOSITORY_CACHE_TTL_MILLIS", "43200000")));
+        // without an explicit URL or data plane HTTP port, cached repository reads expire with their TTL only
+        if (System.getProperties().containsKey("KUBLING_CACHE_INVALIDATE_URL")) {
+            config.setDataPlaneCacheInvalidationUri(URI.create(System.getProperty("KUBLING_CACHE_INVALIDATE_URL")));
+        } else if (config.isRepositoryCacheEnabled() && System.getProperties().containsKey("KUBLING_HTTP_PORT")) {
+            config.setDataPlaneCacheInvalidationUri(URI.create(String.format("http://%s:%s/api/v1/cache/invalidate",
+                    System.getProperties().getOrDefault("KUBLING_HOST", "localhost"),
+                    System.getProperty("KUBLING_HTTP_PORT"))));
+        }
+        config.setBatchFlushEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_BATCH_FLUSH", "false")));
+        config.setKublingDialectEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_SQL_DIALECT", "false")));
+        config.setRuntimeStatisticsEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_RUNTIME_STATISTICS", "false")));
+        config.setHistoryRollupsEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_HISTORY_ROLLUPS", "false")));
+        config.setApproximateTableCountEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_APPROXIMATE_TABLE_COUNT", "false")));
+        config.setBulkDeletionChunkSize(Integer.parseInt(
+                (String) System.getProperties().getOrDefault("KUBLING_BULK_DELETE_CHUNK_SIZE", "500")));
+        config.setHistoricQueryFetchSize(Integer.parseInt(
+                (String) System.getProperties().getOrDefault("KUBLING_HISTORY_FETCH_SIZE", "1000")));
+        if (Boolean.parseBoolean((String) System.getProperties().getOrDefault("KUBLING_STATEMENT_CACHE", "false"))) {
+            // statements are reused instead of batched, KUBLING_BATCH_FLUSH turns batching back on and fails fast
+            config.setStatementExecutorType(ExecutorType.REUSE);
+            config.setJdbcBatchProcessing(false);
+        }
+        config.setInMemoryMetricsEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_ENGINE_METRICS", "false")));
+        config.setCompactValueSerializationEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_COMPACT_VALUES", "false")));
+        config.setByteArrayStorageEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_BYTEARRAY_STORAGE", "false")));
+        config.setByteArrayCompressionThreshold(Integer.parseInt(
+                (String) System.getProperties().getOrDefault("KUBLING_BYTEARRAY_COMPRESSION_THRESHOLD", "4096")));
+        config.setByteArrayOffloadThreshold(Integer.parseInt(
+                (String) System.getProperties().getOrDefault("KUBLING_BYTEARRAY_OFFLOAD_THRESHOLD", "1048576")));
+        config.setByteArrayStoreDirectory((String) System.getProperties().get("KUBLING_BYTEARRAY_STORE_DIR"));
+        config.setHistoryProfiles(HistoryProfile.parse(
+                (String) System.getProperties().getOrDefault("KUBLING_HISTORY_PROFILES", "")));
+        config.setHistoryPartitioningEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_HISTORY_PARTITIONING", "false")));
+        if (config.isHistoryPartitioningEnabled() && System.getProperties().containsKey("KUBLING_HISTORY_MAINTENANCE_URL")) {
+            config.setHistoryMaintenanceDataSource(createHistoryMaintenanceDataSource());
+        }
+        if (Boolean.parseBoolean((String) System.getProperties().getOrDefault("KUBLING_HISTORY_READ_POOL", "false"))) {
+            config.setHistoryReadDataSource(createHistoryReadDataSource());
+        }
+
         return config;
     }
 
+    /**
+     * Read-only autocommit pool for history and report queries. It can point to another Kubling endpoint or a
+     * replica VDB, and defaults to the endpoint of the primary pool.
+     */
+    private static DataSource createHistoryReadDataSource() {
+
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(String.format("jdbc:teiid:%s@mm://%s:%s",
+                System.getProperties().getOrDefault("KUBLING_HISTORY_READ_VDB_NAME",
+                        System.getProperties().getOrDefault("KUBLING_VDB_NAME", "OperatonVDB")),
+                System.getProperties().getOrDefault("KUBLING_HISTORY_READ_HOST",
+                        System.getProperties().getOrDefault("KUBLING_HOST", "localhost")),
+                System.getProperties().getOrDefault("KUBLING_HISTORY_READ_PORT",
+                        System.getProperties().getOrDefault("KUBLING_PORT", "35482"))));
+        hikariConfig.setUsername((String) System.getProperties().getOrDefault("KUBLING_USERNAME", "sa"));
+        hikariConfig.setPassword((String) System.getProperties().getOrDefault("KUBLING_PASSWORD", "sa"));
+        hikariConfig.setDriverClassName("com.kubling.teiid.jdbc.TeiidDriver");
+        hikariConfig.setPoolName("kubling-history-read");
+
+        hikariConfig.setMaximumPoolSize(Integer.parseInt(
+                (String) System.getProperties().getOrDefault("KUBLING_HISTORY_READ_POOL_SIZE", "4")));
+        hikariConfig.setMinimumIdle(1);
+        hikariConfig.setIdleTimeout(30000);
+        hikariConfig.setConnectionTimeout(20000);
+        // autocommit, so that reads never open a soft transaction on the data plane
+        hikariConfig.setAutoCommit(true);
+        hikariConfig.setReadOnly(true);
+
+        return new HikariDataSource(hikariConfig);
+    }
+
+    /**
+     * Small autocommit pool straight to the Postgres history backend, used for partition DDL only.
+     */
+    private static DataSource createHistoryMaintenanceDataSource() {
+
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl((String) System.getProperties().get("KUBLING_HISTORY_MAINTENANCE_URL"));
+        hikariConfig.setUsername((String) System.getProperties().getOrDefault("KUBLING_HISTORY_MAINTENANCE_USERNAME", "postgres"));
+        hikariConfig.setPassword((String) System.getProperties().getOrDefault("KUBLING_HISTORY_MAINTENANCE_PASSWORD", ""));
+        hikariConfig.setPoolName("kubling-history-maintenance");
+        hikariConfig.setMaximumPoolSize(2);
+        hikariConfig.setMinimumIdle(0);
+        hikariConfig.setAutoCommit(true);
+
+        return new HikariDataSource(hikariConfig);
+    }
+
+    @Bean
+    public MeterBinder engineMetrics(ProcessEngineConfigurationImpl processEngineConfiguration) {
+        return new EngineMetricsBinder(processEngineConfiguration);
+    }
+
     @Bean
     @Primary
     public PlatformTransactionManager transactionManager(DataSource dataSource) {
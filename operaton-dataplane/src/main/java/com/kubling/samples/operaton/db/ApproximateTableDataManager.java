@@ -0,0 +1,35 @@
+package com.kubling.samples.operaton.db;
+
+import lombok.Setter;
+import org.operaton.bpm.engine.impl.persistence.entity.TableDataManager;
+
+import java.util.Collections;
+
+/**
+ * Answers {@code ManagementService.getTableCount()} from the row estimates Kubling keeps for its source tables
+ * instead of a {@code COUNT(*)} per table.
+ * <p>
+ * The estimates are imported together with the source metadata: InnoDB table statistics for the MySQL runtime
+ * tables, {@code pg_class.reltuples} for the Postgres history tables. They are only as fresh as the last metadata
+ * load of the data plane and the statistics of the backend itself. Tables of the embedded metadata store are
+ * counted exactly, a count there is a size lookup in memory, and so is every table without an estimate.
+ * {@link GetExactTableCountCmd} counts all tables exactly.
+ */
+public class ApproximateTableDataManager extends TableDataManager {
+
+    @Setter
+    private boolean exact;
+
+    @Override
+    protected long getTableCount(String tableName) {
+        if (!exact && KublingBackend.ofSql(tableName) != KublingBackend.META) {
+            Long cardinality = (Long) getDbEntityManager().selectOne("selectTableCardinality",
+                    Collections.singletonMap("tableName", tableName.substring(tableName.lastIndexOf('.') + 1)));
+            if (cardinality != null && cardinality >= 0) {
+                return cardinality;
+            }
+        }
+        return super.getTableCount(tableName);
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.kubling.samples.operaton.db;
+
+import org.operaton.bpm.engine.impl.interceptor.Session;
+import org.operaton.bpm.engine.impl.interceptor.SessionFactory;
+import org.operaton.bpm.engine.impl.persistence.entity.TableDataManager;
+
+public class ApproximateTableDataManagerFactory implements SessionFactory {
+
+    @Override
+    public Class<?> getSessionType() {
+        return TableDataManager.class;
+    }
+
+    @Override
+    public Session openSession() {
+        return new ApproximateTableDataManager();
+    }
+
+}
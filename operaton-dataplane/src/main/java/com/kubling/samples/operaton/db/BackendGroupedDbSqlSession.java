@@ -0,0 +1,147 @@
+package com.kubling.samples.operaton.db;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.operaton.bpm.engine.impl.db.DbEntity;
+import org.operaton.bpm.engine.impl.db.FlushResult;
+import org.operaton.bpm.engine.impl.db.HasDbRevision;
+import org.operaton.bpm.engine.impl.db.entitymanager.operation.DbBulkOperation;
+import org.operaton.bpm.engine.impl.db.entitymanager.operation.DbEntityOperation;
+import org.operaton.bpm.engine.impl.db.entitymanager.operation.DbOperation;
+import org.operaton.bpm.engine.impl.db.entitymanager.operation.DbOperationType;
+import org.operaton.bpm.engine.impl.db.sql.BatchDbSqlSession;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Batch session that sends the flush backend by backend.
+ * <p>
+ * The engine orders a flush so that foreign keys are satisfied, which interleaves ACT_RU_*, ACT_HI_* and
+ * ACT_RE_*/ACT_GE_* statements. Those tables live in different databases behind Kubling, so no constraint
+ * spans them: the flush is partitioned by {@link KublingBackend}, keeping the engine order within each backend,
+ * which makes statements for the same table group adjacent and lets MyBatis send each run as one JDBC batch.
+ * <p>
+ * After the batch, every revision-checked UPDATE and DELETE must report exactly one affected row. An operation
+ * the driver reported as {@link Statement#SUCCESS_NO_INFO} cannot be verified and is failed as a concurrent
+ * modification rather than assumed to be applied.
+ */
+@Slf4j
+public class BackendGroupedDbSqlSession extends BatchDbSqlSession {
+
+    private static final Map<String, KublingBackend> BACKEND_BY_STATEMENT = new ConcurrentHashMap<>();
+
+    private final KublingDbSqlSessionFactory factory;
+
+    public BackendGroupedDbSqlSession(KublingDbSqlSessionFactory factory) {
+        super(factory);
+        this.factory = factory;
+    }
+
+    @Override
+    public FlushResult executeDbOperations(List<DbOperation> operations) {
+        List<DbOperation> grouped = groupByBackend(operations);
+        FlushResult result = super.executeDbOperations(grouped);
+        factory.flushed(grouped.size(), countBatches(grouped));
+
+        if (result.hasFailures()) {
+            return result;
+        }
+        List<DbOperation> unverified = unverifiedOperations(grouped);
+        if (unverified.isEmpty()) {
+            return result;
+        }
+        factory.unverified(unverified.size());
+        log.warn("Driver did not report update counts for {} revision-checked operations, failing them", unverified.size());
+        unverified.forEach(operation -> operation.setState(DbOperation.State.FAILED_CONCURRENT_MODIFICATION));
+        return FlushResult.withFailures(unverified);
+    }
+
+    private List<DbOperation> groupByBackend(List<DbOperation> operations) {
+        Map<KublingBackend, List<DbOperation>> byBackend = new EnumMap<>(KublingBackend.class);
+        List<DbOperation> unknown = new ArrayList<>();
+        for (DbOperation operation : operations) {
+            KublingBackend backend = backendOf(operation);
+            if (backend == null) {
+                unknown.add(operation);
+            } else {
+                byBackend.computeIfAbsent(backend, key -> new ArrayList<>()).add(operation);
+            }
+        }
+        if (!unknown.isEmpty() || byBackend.size() <= 1) {
+            // nothing to gain, or no safe way to tell where an operation goes
+            return operations;
+        }
+
+        List<DbOperation> grouped = new ArrayList<>(operations.size());
+        byBackend.values().forEach(grouped::addAll);
+        return grouped;
+    }
+
+    private KublingBackend backendOf(DbOperation operation) {
+        String statementId = statementOf(operation);
+        if (statementId == null) {
+            return null;
+        }
+        KublingBackend backend = BACKEND_BY_STATEMENT.get(statementId);
+        if (backend == null) {
+            Object parameter = operation instanceof DbBulkOperation bulk ? bulk.getParameter()
+                    : ((DbEntityOperation) operation).getEntity();
+            MappedStatement mappedStatement = getSqlSession().getConfiguration().getMappedStatement(statementId);
+            backend = KublingBackend.ofSql(mappedStatement.getBoundSql(parameter).getSql());
+            if (backend != null) {
+                BACKEND_BY_STATEMENT.put(statementId, backend);
+            }
+        }
+        return backend;
+    }
+
+    private String statementOf(DbOperation operation) {
+        if (operation instanceof DbBulkOperation bulk) {
+            return dbSqlSessionFactory.mapStatement(bulk.getStatement());
+        }
+        if (!(operation instanceof DbEntityOperation entityOperation)) {
+            return null;
+        }
+        DbEntity entity = entityOperation.getEntity();
+        String statement = switch (operation.getOperationType()) {
+            case INSERT -> dbSqlSessionFactory.getInsertStatement(entity);
+            case UPDATE -> dbSqlSessionFactory.getUpdateStatement(entity);
+            case DELETE -> dbSqlSessionFactory.getDeleteStatement(entity.getClass());
+            default -> null;
+        };
+        return statement == null ? null : dbSqlSessionFactory.mapStatement(statement);
+    }
+
+    private int countBatches(List<DbOperation> operations) {
+        int batches = 0;
+        String previous = null;
+        for (DbOperation operation : operations) {
+            String statement = statementOf(operation);
+            if (statement == null || !Objects.equals(statement, previous)) {
+                batches++;
+            }
+            previous = statement;
+        }
+        return batches;
+    }
+
+    private static List<DbOperation> unverifiedOperations(List<DbOperation> operations) {
+        List<DbOperation> unverified = new ArrayList<>();
+        for (DbOperation operation : operations) {
+            if (operation instanceof DbEntityOperation entityOperation
+                    && entityOperation.getEntity() instanceof HasDbRevision
+                    && operation.getOperationType() != DbOperationType.INSERT
+                    && operation.getRowsAffected() == Statement.SUCCESS_NO_INFO) {
+                unverified.add(operation);
+            }
+        }
+        return unverified;
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.kubling.samples.operaton.db;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.ChooseSqlNode;
+import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
+import org.apache.ibatis.scripting.xmltags.IfSqlNode;
+import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.session.Configuration;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Static audit of the MyBatis mappings for statements that reference tables of more than one
+ * {@link KublingBackend}.
+ * <p>
+ * Kubling cannot push such a statement down to a single source: it fetches the rows of every backend and joins
+ * them in the data plane, which is the most expensive plan a query of the engine can get. The audit walks the
+ * parsed SQL of every mapped statement, including all dynamic branches, and reports for each offending statement
+ * the backends it may touch and the ones it always touches, whatever the parameters. Statements in the second
+ * group are the ones to rewrite, either on the denormalized {@code PROC_DEF_KEY_} and {@code TENANT_ID_} columns
+ * or as a keyed {@code IN (select ID_ ...)} lookup that Kubling runs as a separate query.
+ */
+public final class CrossBackendJoinAudit {
+
+    // table names only, the ACT_ID_ and ACT_INST_ID_ columns must not count as identity tables
+    private static final Pattern TABLE = Pattern.compile("\\bACT_(RU|HI|RE|GE|ID)_[A-Z]", Pattern.CASE_INSENSITIVE);
+
+    private CrossBackendJoinAudit() {
+    }
+
+    /**
+     * A statement referencing more than one backend.
+     *
+     * @param statementId id of the mapped statement
+     * @param backends    backends referenced by any branch of the statement
+     * @param always      backends referenced regardless of the parameters
+     */
+    public record Finding(String statementId, Set<KublingBackend> backends, Set<KublingBackend> always) {
+
+        /**
+         * Returns {@code true} if every execution of the statement joins across backends.
+         */
+        public boolean isUnconditional() {
+            return always.size() > 1;
+        }
+
+        @Override
+        public String toString() {
+            return statementId + " " + backends + (isUnconditional() ? " always " + always : "");
+        }
+    }
+
+    /**
+     * Audits all statements of the given configuration, unconditional findings first.
+     */
+    public static List<Finding> audit(Configuration configuration) {
+        Map<String, Finding> findings = new TreeMap<>();
+        for (Object statement : configuration.getMappedStatements()) {
+            // the statement map also holds the short ids as ambiguity markers
+            if (statement instanceof MappedStatement mappedStatement) {
+                Finding finding = audit(mappedStatement);
+                if (finding != null) {
+                    findings.putIfAbsent(mappedStatement.getId(), finding);
+                }
+            }
+        }
+        List<Finding> result = new ArrayList<>(findings.values());
+        result.sort(Comparator.comparing((Finding finding) -> !finding.isUnconditional()));
+        return result;
+    }
+
+    /**
+     * Audits a single statement, returning {@code null} if it stays within one backend.
+     */
+    public static Finding audit(MappedStatement statement) {
+        Set<KublingBackend> backends = EnumSet.noneOf(KublingBackend.class);
+        Set<KublingBackend> always = EnumSet.noneOf(KublingBackend.class);
+        collect(statement.getSqlSource(), backends, always, true, new HashSet<>());
+        return backends.size() > 1 ? new Finding(statement.getId(), backends, always) : null;
+    }
+
+    /**
+     * Returns the backends referenced by the given SQL text.
+     */
+    public static Set<KublingBackend> backendsOf(String sql) {
+        Set<KublingBackend> backends = EnumSet.noneOf(KublingBackend.class);
+        Matcher matcher = TABLE.matcher(sql);
+        while (matcher.find()) {
+            backends.add(switch (matcher.group(1).toUpperCase(Locale.ROOT)) {
+                case "RU" -> KublingBackend.RUNTIME;
+                case "HI" -> KublingBackend.HISTORY;
+                default -> KublingBackend.META;
+            });
+        }
+        return backends;
+    }
+
+    /**
+     * Walks the SQL sources and nodes of MyBatis by reflection, as they do not expose their content. Includes are
+     * already resolved at this point, so the tree holds the complete text of the statement.
+     */
+    private static void collect(Object node, Set<KublingBackend> backends, Set<KublingBackend> always,
+                                boolean unconditional, Set<Object> visited) {
+        if (node == null || !visited.add(node)) {
+            return;
+        }
+        if (node instanceof Collection<?> nodes) {
+            for (Object child : nodes) {
+                if (child instanceof SqlNode) {
+                    collect(child, backends, always, unconditional, visited);
+                }
+            }
+            return;
+        }
+        boolean conditional = node instanceof IfSqlNode || node instanceof ChooseSqlNode
+                || node instanceof ForEachSqlNode;
+        for (Class<?> type = node.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                Object value = read(field, node);
+                if (value instanceof String text && isSqlText(node, field)) {
+                    Set<KublingBackend> found = backendsOf(text);
+                    backends.addAll(found);
+                    if (unconditional) {
+                        always.addAll(found);
+                    }
+                } else if (value instanceof SqlNode || value instanceof SqlSource || value instanceof Collection<?>) {
+                    collect(value, backends, always, unconditional && !conditional, visited);
+                }
+            }
+        }
+    }
+
+    private static boolean isSqlText(Object node, Field field) {
+        return (node instanceof SqlNode && field.getName().equals("text"))
+                || (node instanceof StaticSqlSource && field.getName().equals("sql"));
+    }
+
+    private static Object read(Field field, Object target) {
+        try {
+            field.setAccessible(true);
+            return field.get(target);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalStateException("Cannot read " + field.getName() + " of " + target.getClass(), e);
+        }
+    }
+
+}
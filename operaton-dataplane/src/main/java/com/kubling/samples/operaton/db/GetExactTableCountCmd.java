@@ -0,0 +1,31 @@
+package com.kubling.samples.operaton.db;
+
+import org.operaton.bpm.engine.impl.cmd.GetTableCountCmd;
+import org.operaton.bpm.engine.impl.interceptor.Command;
+import org.operaton.bpm.engine.impl.interceptor.CommandContext;
+import org.operaton.bpm.engine.impl.persistence.entity.TableDataManager;
+
+import java.util.Map;
+
+/**
+ * {@code ManagementService.getTableCount()} with a {@code COUNT(*)} per table, also when the engine answers it from
+ * estimates (see {@link ApproximateTableDataManager}). Runs the engine command, so that the same permissions apply.
+ */
+public class GetExactTableCountCmd implements Command<Map<String, Long>> {
+
+    @Override
+    public Map<String, Long> execute(CommandContext commandContext) {
+        TableDataManager tableDataManager = commandContext.getTableDataManager();
+        if (tableDataManager instanceof ApproximateTableDataManager approximate) {
+            approximate.setExact(true);
+        }
+        try {
+            return new GetTableCountCmd().execute(commandContext);
+        } finally {
+            if (tableDataManager instanceof ApproximateTableDataManager approximate) {
+                approximate.setExact(false);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.kubling.samples.operaton.db;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Data sources of the composite Operaton VDB, identified by the table prefix of the engine schema.
+ */
+public enum KublingBackend {
+
+    /** ACT_RE_*, ACT_GE_* and ACT_ID_* in the embedded {@code operaton_meta} source. */
+    META,
+    /** ACT_RU_* in MySQL. */
+    RUNTIME,
+    /** ACT_HI_* in Postgres. */
+    HISTORY;
+
+    private static final Pattern TABLE = Pattern.compile("ACT_(RU|HI|RE|GE|ID)_", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Returns the backend of the first engine table referenced by the given SQL, or {@code null} if it does not
+     * reference any.
+     */
+    public static KublingBackend ofSql(String sql) {
+        Matcher matcher = TABLE.matcher(sql);
+        if (!matcher.find()) {
+            return null;
+        }
+        return switch (matcher.group(1).toUpperCase(Locale.ROOT)) {
+            case "RU" -> RUNTIME;
+            case "HI" -> HISTORY;
+            default -> META;
+        };
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.kubling.samples.operaton.db;
+
+import org.operaton.bpm.engine.impl.db.sql.DbSqlSessionFactory;
+import org.operaton.bpm.engine.impl.interceptor.Session;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opens {@link BackendGroupedDbSqlSession}s and keeps their flush statistics.
+ */
+public class KublingDbSqlSessionFactory extends DbSqlSessionFactory {
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong operations = new AtomicLong();
+    private final AtomicLong statementBatches = new AtomicLong();
+    private final AtomicLong unverifiedOperations = new AtomicLong();
+
+    public KublingDbSqlSessionFactory() {
+        super(true);
+    }
+
+    @Override
+    public Session openSession() {
+        return new BackendGroupedDbSqlSession(this);
+    }
+
+    void flushed(int operationCount, int batchCount) {
+        flushes.incrementAndGet();
+        operations.addAndGet(operationCount);
+        statementBatches.addAndGet(batchCount);
+    }
+
+    void unverified(int operationCount) {
+        unverifiedOperations.addAndGet(operationCount);
+    }
+
+    public long getFlushes() {
+        return flushes.get();
+    }
+
+    public long getOperations() {
+        return operations.get();
+    }
+
+    /**
+     * Number of JDBC batches sent, i.e. round trips to Kubling for writes.
+     */
+    public long getStatementBatches() {
+        return statementBatches.get();
+    }
+
+    public long getUnverifiedOperations() {
+        return unverifiedOperations.get();
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.kubling.samples.operaton.db;
+
+import org.operaton.bpm.engine.impl.db.sql.DbSqlSessionFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SQL dialect of the Kubling data plane, registered with the engine as database type {@value #DATABASE_TYPE}.
+ * <p>
+ * Kubling parses Teiid SQL and pushes limits, offsets and subqueries down to the MySQL and Postgres translators,
+ * as long as it can plan them. The dialect starts from the H2 fragments the engine used so far and replaces the
+ * ones Kubling cannot push down:
+ * <ul>
+ *     <li>paging is written as {@code LIMIT offset, count}, the native Teiid form;</li>
+ *     <li>limited deletes and removal time updates select the affected ids in a limited subquery
+ *     ({@code ID_ IN (SELECT ID_ ... LIMIT n)}), instead of {@code DELETE ... LIMIT n}, which only MySQL and H2
+ *     understand and which Kubling would otherwise execute by materializing the rows.</li>
+ * </ul>
+ * The engine keeps its settings in static maps of {@link DbSqlSessionFactory} keyed by database type, so
+ * registration copies every H2 entry and then overrides the entries above.
+ */
+public final class KublingDialect {
+
+    public static final String DATABASE_TYPE = "kubling";
+
+    private static final String BASE_DATABASE_TYPE = DbSqlSessionFactory.H2;
+
+    private static final String LIMIT_AFTER = "LIMIT #{firstResult}, #{maxResults}";
+    private static final String LIMIT_BEFORE_IN_UPDATE = "WHERE ID_ IN (SELECT ID_ FROM";
+    private static final String LIMIT_AFTER_IN_UPDATE = "LIMIT #{maxResults})";
+
+    private KublingDialect() {
+    }
+
+    public static synchronized void register() {
+        if (DbSqlSessionFactory.databaseSpecificLimitAfterStatements.containsKey(DATABASE_TYPE)) {
+            return;
+        }
+
+        Map<String, Map<String, Object>> databaseSpecificMaps = databaseSpecificMaps();
+        databaseSpecificMaps.values().forEach(KublingDialect::copyBaseEntry);
+
+        DbSqlSessionFactory.databaseSpecificLimitAfterStatements.put(DATABASE_TYPE, LIMIT_AFTER);
+        DbSqlSessionFactory.databaseSpecificInnerLimitAfterStatements.put(DATABASE_TYPE, LIMIT_AFTER);
+        DbSqlSessionFactory.databaseSpecificLimitBeforeInUpdate.put(DATABASE_TYPE, LIMIT_BEFORE_IN_UPDATE);
+        DbSqlSessionFactory.databaseSpecificLimitAfterInUpdate.put(DATABASE_TYPE, LIMIT_AFTER_IN_UPDATE);
+
+        registerLimitedWrites(databaseSpecificMaps.get("databaseSpecificStatements"));
+    }
+
+    /**
+     * Limited deletes and updates take the Postgres statements, which put the limit into a subquery on the ids.
+     */
+    @SuppressWarnings("unchecked")
+    private static void registerLimitedWrites(Map<String, Object> databaseSpecificStatements) {
+        if (databaseSpecificStatements == null) {
+            throw new IllegalStateException("Statement mappings of the engine not found");
+        }
+        Map<String, String> postgresStatements =
+                (Map<String, String>) databaseSpecificStatements.get(DbSqlSessionFactory.POSTGRES);
+        Map<String, String> kublingStatements = (Map<String, String>) databaseSpecificStatements
+                .computeIfAbsent(DATABASE_TYPE, type -> new HashMap<String, String>());
+        postgresStatements.forEach((statement, postgresStatement) -> {
+            if (isLimitedWrite(statement, postgresStatement)) {
+                kublingStatements.put(statement, postgresStatement);
+            }
+        });
+    }
+
+    static boolean isLimitedWrite(String statement, String postgresStatement) {
+        return postgresStatement.endsWith("_postgres_or_db2")
+                || (postgresStatement.endsWith("_postgres")
+                && statement.startsWith("update")
+                && statement.endsWith("ProcessInstanceId"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void copyBaseEntry(Map<String, Object> databaseSpecificMap) {
+        Object base = databaseSpecificMap.get(BASE_DATABASE_TYPE);
+        if (base != null && !databaseSpecificMap.containsKey(DATABASE_TYPE)) {
+            databaseSpecificMap.put(DATABASE_TYPE,
+                    base instanceof Map<?, ?> map ? new HashMap<>((Map<String, String>) map) : base);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> databaseSpecificMaps() {
+        Map<String, Map<String, Object>> maps = new HashMap<>();
+        for (Field field : DbSqlSessionFactory.class.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && Map.class.isAssignableFrom(field.getType())) {
+                try {
+                    field.setAccessible(true);
+                    maps.put(field.getName(), (Map<String, Object>) field.get(null));
+                } catch (IllegalAccessException | RuntimeException e) {
+                    throw new IllegalStateException("Cannot read " + field.getName() + " of the engine", e);
+                }
+            }
+        }
+        return maps;
+    }
+
+}
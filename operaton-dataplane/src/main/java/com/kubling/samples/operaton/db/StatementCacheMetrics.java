@@ -0,0 +1,130 @@
+package com.kubling.samples.operaton.db;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit and miss counters of the per-connection statement caches, overall and per SQL text.
+ * <p>
+ * A miss is a {@code prepareStatement} that reached the Kubling driver, and with it a parse and plan on the data
+ * plane; a hit reused a statement prepared earlier on the same physical connection.
+ * <p>
+ * Per SQL text, at most {@value #MAX_TRACKED_STATEMENTS} statements are tracked, the first ones seen. SQL with
+ * inlined values would otherwise grow the map without bound; statements beyond the limit only count overall.
+ */
+public class StatementCacheMetrics {
+
+    static final int MAX_TRACKED_STATEMENTS = 1000;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder untracked = new LongAdder();
+    private final AtomicLong cachedStatements = new AtomicLong();
+    private final Map<String, StatementCounter> statements = new ConcurrentHashMap<>();
+
+    void hit(String sql) {
+        hits.increment();
+        StatementCounter counter = counter(sql);
+        if (counter != null) {
+            counter.hits.increment();
+        }
+    }
+
+    void miss(String sql) {
+        misses.increment();
+        StatementCounter counter = counter(sql);
+        if (counter != null) {
+            counter.misses.increment();
+        }
+    }
+
+    private StatementCounter counter(String sql) {
+        StatementCounter counter = statements.get(sql);
+        if (counter == null && statements.size() < MAX_TRACKED_STATEMENTS) {
+            counter = statements.computeIfAbsent(sql, StatementCounter::new);
+        }
+        if (counter == null) {
+            untracked.increment();
+        }
+        return counter;
+    }
+
+    void evicted() {
+        evictions.increment();
+    }
+
+    void cached(int delta) {
+        cachedStatements.addAndGet(delta);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Prepares of SQL texts beyond the tracked ones, not part of {@link #topStatements(int)}.
+     */
+    public long getUntrackedPrepares() {
+        return untracked.sum();
+    }
+
+    /**
+     * Statements currently held open across all connections.
+     */
+    public long getCachedStatements() {
+        return cachedStatements.get();
+    }
+
+    public double getHitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * The {@code limit} most prepared statements, with their own hit rate.
+     */
+    public List<StatementStats> topStatements(int limit) {
+        return statements.values().stream()
+                .map(counter -> new StatementStats(counter.sql, counter.hits.sum(), counter.misses.sum()))
+                .sorted(Comparator.comparingLong(StatementStats::executions).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public record StatementStats(String sql, long hits, long misses) {
+
+        public long executions() {
+            return hits + misses;
+        }
+
+        public double hitRate() {
+            return executions() == 0 ? 0 : (double) hits / executions();
+        }
+    }
+
+    private static final class StatementCounter {
+
+        private final String sql;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        private StatementCounter(String sql) {
+            this.sql = sql;
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.kubling.samples.operaton.db;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps prepared statements open per physical connection and hands them out again for the same SQL.
+ * <p>
+ * Sits between the connection pool and the Kubling driver. The pool closes the statements of a connection when it
+ * is returned, which puts them back into that connection's cache instead of closing them on the data plane, so
+ * the next command preparing the same mapped statement skips the parse and plan. Each connection keeps at most
+ * {@code cacheSize} idle statements, the least recently used one is closed first. The open result set of a
+ * statement is closed before the statement goes back into the cache.
+ */
+@Slf4j
+public class StatementCachingDataSource extends DelegatingDataSource {
+
+    private final int cacheSize;
+    private final StatementCacheMetrics metrics = new StatementCacheMetrics();
+
+    public StatementCachingDataSource(DataSource targetDataSource, int cacheSize) {
+        super(targetDataSource);
+        this.cacheSize = cacheSize;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    public StatementCacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, new CachingConnection(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record Key(String sql, int resultSetType, int resultSetConcurrency) {
+    }
+
+    private final class CachingConnection implements InvocationHandler {
+
+        private final Connection connection;
+        private final LinkedHashMap<Key, PreparedStatement> idle = new LinkedHashMap<>(16, 0.75f, true);
+
+        private CachingConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("prepareStatement")) {
+                // variants with generated keys or holdability are not cached
+                if (args.length == 1) {
+                    return borrow(new Key((String) args[0], ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY));
+                }
+                if (args.length == 3 && method.getParameterTypes()[1] == int.class) {
+                    return borrow(new Key((String) args[0], (Integer) args[1], (Integer) args[2]));
+                }
+            } else if (method.getName().equals("close")) {
+                closeIdle();
+            }
+            return StatementCachingDataSource.invoke(connection, method, args);
+        }
+
+        private PreparedStatement borrow(Key key) throws SQLException {
+            PreparedStatement statement;
+            synchronized (this) {
+                statement = idle.remove(key);
+            }
+            if (statement != null) {
+                metrics.cached(-1);
+                metrics.hit(key.sql());
+            } else {
+                statement = connection.prepareStatement(key.sql(), key.resultSetType(), key.resultSetConcurrency());
+                metrics.miss(key.sql());
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new CachedStatement(key, statement));
+        }
+
+        private void release(Key key, PreparedStatement statement) throws SQLException {
+            try {
+                // a result set left open, e.g. by a select that was not read to the end, would hold its cursor
+                // on the data plane for as long as the statement stays cached
+                ResultSet resultSet = statement.getResultSet();
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException e) {
+                statement.close();
+                return;
+            }
+
+            PreparedStatement evicted = null;
+            synchronized (this) {
+                if (connection.isClosed() || idle.containsKey(key)) {
+                    evicted = statement;
+                } else {
+                    idle.put(key, statement);
+                    metrics.cached(1);
+                    if (idle.size() > cacheSize) {
+                        Iterator<Map.Entry<Key, PreparedStatement>> eldest = idle.entrySet().iterator();
+                        evicted = eldest.next().getValue();
+                        eldest.remove();
+                        metrics.cached(-1);
+                        metrics.evicted();
+                    }
+                }
+            }
+            if (evicted != null) {
+                evicted.close();
+            }
+        }
+
+        private void closeIdle() {
+            synchronized (this) {
+                for (PreparedStatement statement : idle.values()) {
+                    try {
+                        statement.close();
+                    } catch (SQLException e) {
+                        log.debug("Error closing cached statement: {}", e.getMessage());
+                    }
+                }
+                metrics.cached(-idle.size());
+                idle.clear();
+            }
+        }
+
+        private final class CachedStatement implements InvocationHandler {
+
+            private final Key key;
+            private final PreparedStatement statement;
+            private boolean closed;
+
+            private CachedStatement(Key key, PreparedStatement statement) {
+                this.key = key;
+                this.statement = statement;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getDeclaringClass() == Object.class) {
+                    return StatementCachingDataSource.invoke(statement, method, args);
+                }
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!closed) {
+                            closed = true;
+                            release(key, statement);
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        return closed || statement.isClosed();
+                    }
+                    default -> {
+                        if (closed) {
+                            throw new SQLException("Statement is closed");
+                        }
+                        return StatementCachingDataSource.invoke(statement, method, args);
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.kubling.samples.operaton.deletion;
+
+import com.kubling.samples.operaton.statistics.RuntimeStatisticsSession;
+import org.apache.ibatis.session.SqlSession;
+import org.operaton.bpm.engine.impl.interceptor.Command;
+import org.operaton.bpm.engine.impl.interceptor.CommandContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deletes one chunk of process instances with one set-based statement per table, see {@link BulkDeletion}.
+ * <p>
+ * Runtime deletion removes the whole hierarchy of each given root process instance from ACT_RU_*, the byte arrays
+ * its variables, jobs and external tasks refer to, and its history. History deletion only removes the history of
+ * root process instances that have ended. Returns the number of root process instances deleted.
+ */
+public class BulkDeleteProcessInstancesCmd implements Command<Integer> {
+
+    /** Runtime tables keyed by {@code PROC_INST_ID_}, in deletion order. */
+    private static final List<String> RUNTIME_TABLES = List.of(
+            "ACT_RU_VARIABLE", "ACT_RU_TASK", "ACT_RU_EVENT_SUBSCR", "ACT_RU_INCIDENT", "ACT_RU_EXT_TASK");
+
+    /** Runtime tables keyed by {@code ROOT_PROC_INST_ID_}, executions last. */
+    private static final List<String> RUNTIME_ROOT_TABLES = List.of("ACT_RU_JOB", "ACT_RU_EXECUTION");
+
+    /** History tables keyed by {@code ROOT_PROC_INST_ID_}, together with the history byte arrays. */
+    private static final List<String> HISTORY_ROOT_TABLES = List.of(
+            "ACT_HI_ACTINST", "ACT_HI_TASKINST", "ACT_HI_VARINST", "ACT_HI_DETAIL", "ACT_HI_IDENTITYLINK",
+            "ACT_HI_COMMENT", "ACT_HI_ATTACHMENT", "ACT_HI_OP_LOG", "ACT_HI_INCIDENT", "ACT_HI_JOB_LOG",
+            "ACT_HI_EXT_TASK_LOG", "ACT_HI_DECINST", "ACT_HI_DEC_IN", "ACT_HI_DEC_OUT", "ACT_GE_BYTEARRAY",
+            "ACT_HI_PROCINST");
+
+    private final List<String> rootProcessInstanceIds;
+    private final boolean historyOnly;
+
+    public BulkDeleteProcessInstancesCmd(List<String> rootProcessInstanceIds, boolean historyOnly) {
+        this.rootProcessInstanceIds = rootProcessInstanceIds;
+        this.historyOnly = historyOnly;
+    }
+
+    @Override
+    public Integer execute(CommandContext commandContext) {
+        SqlSession sqlSession = commandContext.getDbSqlSession().getSqlSession();
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("rootProcessInstanceIds", rootProcessInstanceIds);
+
+        if (historyOnly) {
+            List<String> finished = sqlSession.selectList("selectBulkDeletionHistoricProcessInstanceIds", parameter);
+            deleteHistory(sqlSession, finished);
+            sqlSession.flushStatements();
+            return finished.size();
+        }
+
+        List<String> processInstanceIds = sqlSession.selectList("selectBulkDeletionProcessInstanceIds", parameter);
+        if (processInstanceIds.isEmpty()) {
+            return 0;
+        }
+        List<String> roots = new ArrayList<>(rootProcessInstanceIds);
+        roots.retainAll(processInstanceIds);
+        parameter.put("rootProcessInstanceIds", roots);
+        parameter.put("processInstanceIds", processInstanceIds);
+
+        if (commandContext.getProcessEngineConfiguration().getSessionFactories()
+                .containsKey(RuntimeStatisticsSession.class)) {
+            // no listener runs for these instances, take them out of the counters directly
+            List<Map<String, Object>> counted = sqlSession.selectList("selectRuntimeStatisticsOfProcessInstances",
+                    parameter);
+            RuntimeStatisticsSession statistics = commandContext.getSession(RuntimeStatisticsSession.class);
+            for (Map<String, Object> row : counted) {
+                statistics.add((String) row.get("PROC_DEF_ID_"), (String) row.get("ACT_ID_"),
+                        -((Number) row.get("INSTANCES_")).longValue());
+            }
+        }
+
+        List<String> byteArrayIds = sqlSession.selectList("selectBulkDeletionByteArrayIds", parameter);
+
+        // both refer to tasks of the instances
+        sqlSession.delete("deleteBulkRuntimeIdentityLinks", parameter);
+        sqlSession.delete("deleteBulkRuntimeAuthorizations", parameter);
+        for (String tableName : RUNTIME_TABLES) {
+            deleteByColumn(sqlSession, tableName, "PROC_INST_ID_", processInstanceIds);
+        }
+        for (String tableName : RUNTIME_ROOT_TABLES) {
+            deleteByColumn(sqlSession, tableName, "ROOT_PROC_INST_ID_", roots);
+        }
+        deleteByColumn(sqlSession, "ACT_GE_BYTEARRAY", "ID_", byteArrayIds);
+        deleteHistory(sqlSession, roots);
+
+        // with JDBC batching the deletes of the chunk go out as one batch per table
+        sqlSession.flushStatements();
+        return roots.size();
+    }
+
+    private static void deleteHistory(SqlSession sqlSession, List<String> roots) {
+        for (String tableName : HISTORY_ROOT_TABLES) {
+            deleteByColumn(sqlSession, tableName, "ROOT_PROC_INST_ID_", roots);
+        }
+    }
+
+    private static void deleteByColumn(SqlSession sqlSession, String tableName, String columnName, List<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("tableName", tableName);
+        parameter.put("columnName", columnName);
+        parameter.put("ids", ids);
+        sqlSession.delete("deleteBulkByColumn", parameter);
+    }
+
+}
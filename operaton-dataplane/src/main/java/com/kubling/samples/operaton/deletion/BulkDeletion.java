@@ -0,0 +1,67 @@
+package com.kubling.samples.operaton.deletion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Deletes process instances in chunks, each with one {@code DELETE ... WHERE ... IN (...)} per ACT_RU_* and ACT_HI_*
+ * table, instead of entity by entity as {@code RuntimeService.deleteProcessInstances} and
+ * {@code HistoryService.deleteHistoricProcessInstances} do.
+ * <p>
+ * Nothing of the engine runs for the deleted instances: no execution or task listeners, no history events, no
+ * authorization checks. Runtime deletion therefore purges the history of the instances as well, rather than leaving
+ * it unfinished. Ids other than those of root process instances are skipped, sub process instances go with their
+ * root. Each chunk is deleted in its own transaction, a failing chunk leaves the earlier ones deleted.
+ */
+@Slf4j
+public class BulkDeletion {
+
+    private final ProcessEngineConfigurationImpl configuration;
+    private final int chunkSize;
+
+    public BulkDeletion(ProcessEngineConfigurationImpl configuration, int chunkSize) {
+        this.configuration = configuration;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Deletes running root process instances together with their sub process instances and history.
+     */
+    public BulkDeletionResult deleteProcessInstances(Collection<String> processInstanceIds) {
+        return delete(processInstanceIds, false);
+    }
+
+    /**
+     * Deletes the history of ended root process instances, together with that of their sub process instances.
+     */
+    public BulkDeletionResult deleteHistoricProcessInstances(Collection<String> processInstanceIds) {
+        return delete(processInstanceIds, true);
+    }
+
+    private BulkDeletionResult delete(Collection<String> processInstanceIds, boolean historyOnly) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(processInstanceIds));
+        long start = System.nanoTime();
+        long deleted = 0;
+        int chunks = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<String> chunk = List.copyOf(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+            deleted += configuration.getCommandExecutorTxRequiresNew()
+                    .execute(new BulkDeleteProcessInstancesCmd(chunk, historyOnly));
+            chunks++;
+            log.debug("Bulk deletion chunk {} done, {} of {} instances deleted", chunks, deleted, ids.size());
+        }
+        BulkDeletionResult result = new BulkDeletionResult(ids.size(), deleted, chunks,
+                Duration.ofNanos(System.nanoTime() - start));
+        log.info("Bulk deleted {} of {} {}process instances in {} chunks, {} ms, {} instances/s",
+                result.deleted(), result.requested(), historyOnly ? "historic " : "", result.chunks(),
+                result.duration().toMillis(), String.format("%.1f", result.instancesPerSecond()));
+        return result;
+    }
+
+}
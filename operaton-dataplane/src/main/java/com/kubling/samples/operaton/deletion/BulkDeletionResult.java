@@ -0,0 +1,16 @@
+package com.kubling.samples.operaton.deletion;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one {@link BulkDeletion} call: distinct ids requested, root process instances deleted, chunks and time
+ * taken.
+ */
+public record BulkDeletionResult(long requested, long deleted, int chunks, Duration duration) {
+
+    public double instancesPerSecond() {
+        long nanos = duration.toNanos();
+        return nanos == 0 ? 0 : deleted * 1_000_000_000.0 / nanos;
+    }
+
+}
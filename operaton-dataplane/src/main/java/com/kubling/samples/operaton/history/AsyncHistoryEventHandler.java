@@ -0,0 +1,491 @@
+package com.kubling.samples.operaton.history;
+
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.operaton.bpm.engine.impl.cfg.TransactionContext;
+import org.operaton.bpm.engine.impl.cfg.TransactionState;
+import org.operaton.bpm.engine.impl.context.Context;
+import org.operaton.bpm.engine.impl.history.event.HistoryEvent;
+import org.operaton.bpm.engine.impl.history.handler.HistoryEventHandler;
+import org.operaton.bpm.engine.impl.interceptor.CommandContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves ACT_HI_* writes out of the engine's soft transaction.
+ * <p>
+ * Events are held back until the engine transaction commits, then appended to a {@link HistorySpool}
+ * and queued for a background writer that flushes them to the history backend in batches, each batch in its
+ * own transaction. Events of the same history row never share a command of the writer, as the history handler
+ * would skip the later ones. The window between the engine commit and the spool append is not covered by the spool.
+ * <p>
+ * Backpressure: queue capacity is reserved while the command is still running. When no capacity is available
+ * within {@code offerTimeoutMillis} the event is written synchronously in the current command, unless earlier
+ * events of the same process instance are still pending, so that inserts and updates of the same history rows keep
+ * their order. Events of the current transaction are only queued once it commits, so the event is then queued beyond
+ * capacity right away; events of other transactions are waited for up to ten times the offer timeout before doing
+ * the same.
+ * <p>
+ * The spool is acknowledged up to the lowest position that is not written yet, positions are appended and written
+ * out of order when transactions commit concurrently or events are merged.
+ * <p>
+ * Activity, process and task instances and incidents that are created and updated or ended before their events are
+ * written are stored as one row: the follow-up events are folded into the pending initial event, within the engine
+ * transaction and again within each batch of the writer (see {@link ScopeEventMerger}).
+ */
+@Slf4j
+public class AsyncHistoryEventHandler implements HistoryEventHandler, AutoCloseable {
+
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+    private static final int ORDERED_WAIT_FACTOR = 10;
+
+    private final ProcessEngineConfigurationImpl configuration;
+    private final HistoryEventHandler delegate;
+    private final HistorySpool spool;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+
+    private final BlockingQueue<HistorySpool.SpooledEvent> queue = new LinkedBlockingQueue<>();
+    private final Semaphore capacity;
+    private final Map<String, AtomicLong> pendingByProcessInstance = new ConcurrentHashMap<>();
+    private final Map<TransactionContext, PendingTransaction> pendingTransactions = new ConcurrentHashMap<>();
+    // reservations taken beyond capacity, the next releases pay them back instead of adding capacity
+    private final AtomicLong overdrawn = new AtomicLong();
+
+    // spool end positions appended but not yet written, and written but not yet acknowledged, both guarded by the first
+    private final NavigableSet<Long> unwrittenPositions = new TreeSet<>();
+    private final NavigableSet<Long> writtenPositions = new TreeSet<>();
+
+    private final AtomicLong writtenEvents = new AtomicLong();
+    private final AtomicLong writtenBatches = new AtomicLong();
+    private final AtomicLong synchronousWrites = new AtomicLong();
+    private final AtomicLong spoolBypassedEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong mergedEvents = new AtomicLong();
+    private final AtomicLong overCapacityEvents = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public AsyncHistoryEventHandler(ProcessEngineConfigurationImpl configuration,
+                                    HistoryEventHandler delegate,
+                                    Path spoolPath,
+                                    int spoolSizeBytes,
+                                    boolean spoolForceOnAppend,
+                                    int queueCapacity,
+                                    int batchSize,
+                                    long offerTimeoutMillis) {
+        this.configuration = configuration;
+        this.delegate = delegate;
+        this.spool = new HistorySpool(spoolPath, spoolSizeBytes, spoolForceOnAppend);
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+
+        List<HistorySpool.SpooledEvent> recovered = spool.recover();
+        recovered.forEach(spooledEvent -> unwrittenPositions.add(spooledEvent.spoolPosition()));
+        recovered.forEach(this::enqueue);
+        // may start negative, producers wait until the recovered backlog has been drained
+        this.capacity = new Semaphore(queueCapacity - recovered.size());
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform()
+                .name("kubling-history-writer")
+                .daemon(true)
+                .start(this::drainLoop);
+        log.info("Async history writer started: batchSize={}, backlog={}", batchSize, queue.size());
+    }
+
+    @Override
+    public void handleEvent(HistoryEvent historyEvent) {
+        CommandContext commandContext = Context.getCommandContext();
+        if (commandContext == null || !running) {
+            delegate.handleEvent(historyEvent);
+            return;
+        }
+
+        TransactionContext transactionContext = commandContext.getTransactionContext();
+        PendingTransaction transaction = pendingTransaction(transactionContext);
+        String mergeKey = ScopeEventMerger.key(historyEvent);
+        if (mergeKey != null && ScopeEventMerger.isFollowUp(historyEvent)) {
+            PendingEvent initial = transaction.initialEvents.get(mergeKey);
+            if (initial != null) {
+                initial.event = ScopeEventMerger.merge(initial.event, historyEvent);
+                mergedEvents.incrementAndGet();
+                return;
+            }
+        }
+
+        if (!reserveCapacity(historyEvent, transaction)) {
+            synchronousWrites.incrementAndGet();
+            delegate.handleEvent(historyEvent);
+            return;
+        }
+
+        String processInstanceId = historyEvent.getProcessInstanceId();
+        if (processInstanceId != null) {
+            pendingByProcessInstance.computeIfAbsent(processInstanceId, id -> new AtomicLong()).incrementAndGet();
+            transaction.processInstances.merge(processInstanceId, 1, Integer::sum);
+        }
+
+        // the event may still be replaced by a merged one until the transaction commits
+        PendingEvent pending = new PendingEvent(historyEvent);
+        if (mergeKey != null && ScopeEventMerger.isInitial(historyEvent)) {
+            transaction.initialEvents.put(mergeKey, pending);
+        }
+
+        transactionContext.addTransactionListener(TransactionState.COMMITTED,
+                committed -> enqueue(new HistorySpool.SpooledEvent(pending.event, spoolAppend(pending.event))));
+        transactionContext.addTransactionListener(TransactionState.ROLLED_BACK,
+                rolledBack -> release(pending.event));
+    }
+
+    @Override
+    public void handleEvents(List<HistoryEvent> historyEvents) {
+        historyEvents.forEach(this::handleEvent);
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getSpoolLagBytes() {
+        return spool.getLagBytes();
+    }
+
+    public long getWrittenEvents() {
+        return writtenEvents.get();
+    }
+
+    public long getWrittenBatches() {
+        return writtenBatches.get();
+    }
+
+    public long getSynchronousWrites() {
+        return synchronousWrites.get();
+    }
+
+    /**
+     * Events that found no room in the spool and were only kept in memory until written.
+     */
+    public long getSpoolBypassedEvents() {
+        return spoolBypassedEvents.get();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Follow-up events folded into the initial event of the same history row.
+     */
+    public long getMergedEvents() {
+        return mergedEvents.get();
+    }
+
+    /**
+     * Events queued beyond capacity to keep the order of the events of a process instance.
+     */
+    public long getOverCapacityEvents() {
+        return overCapacityEvents.get();
+    }
+
+    @Override
+    public void close() throws Exception {
+        synchronized (this) {
+            running = false;
+        }
+        if (writer != null) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        // whatever is left stays in the spool and is replayed on the next start
+        spool.close();
+        log.info("Async history writer stopped: written={}, remaining={}", writtenEvents.get(), queue.size());
+    }
+
+    private boolean reserveCapacity(HistoryEvent historyEvent, PendingTransaction transaction) {
+        try {
+            if (capacity.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+            String processInstanceId = historyEvent.getProcessInstanceId();
+            if (processInstanceId == null) {
+                return false;
+            }
+            if (!transaction.processInstances.containsKey(processInstanceId)) {
+                AtomicLong pending = pendingByProcessInstance.get(processInstanceId);
+                if (pending == null || pending.get() == 0) {
+                    return false;
+                }
+                // earlier transactions are queued already, the writer makes room as it writes them
+                if (capacity.tryAcquire(offerTimeoutMillis * ORDERED_WAIT_FACTOR, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            overdrawn.incrementAndGet();
+            overCapacityEvents.incrementAndGet();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private PendingTransaction pendingTransaction(TransactionContext transactionContext) {
+        PendingTransaction transaction = pendingTransactions.get(transactionContext);
+        if (transaction == null) {
+            transaction = new PendingTransaction();
+            pendingTransactions.put(transactionContext, transaction);
+            transactionContext.addTransactionListener(TransactionState.COMMITTED,
+                    committed -> pendingTransactions.remove(transactionContext));
+            transactionContext.addTransactionListener(TransactionState.ROLLED_BACK,
+                    rolledBack -> pendingTransactions.remove(transactionContext));
+        }
+        return transaction;
+    }
+
+    private long spoolAppend(HistoryEvent historyEvent) {
+        // appending and registering the position at once keeps acknowledgements from passing it
+        synchronized (unwrittenPositions) {
+            long position = spool.append(historyEvent);
+            if (position < 0) {
+                spoolBypassedEvents.incrementAndGet();
+                log.warn("History spool is full, event {} is only kept in memory", historyEvent.getId());
+            } else {
+                unwrittenPositions.add(position);
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Marks the positions as written and acknowledges the spool up to the last written position below the lowest
+     * unwritten one.
+     */
+    private void acknowledge(List<Long> positions) {
+        synchronized (unwrittenPositions) {
+            for (long position : positions) {
+                if (unwrittenPositions.remove(position)) {
+                    writtenPositions.add(position);
+                }
+            }
+            NavigableSet<Long> acknowledgeable = unwrittenPositions.isEmpty()
+                    ? writtenPositions
+                    : writtenPositions.headSet(unwrittenPositions.first(), false);
+            if (!acknowledgeable.isEmpty()) {
+                spool.acknowledge(acknowledgeable.last());
+                acknowledgeable.clear();
+            }
+        }
+    }
+
+    private void enqueue(HistorySpool.SpooledEvent spooledEvent) {
+        queue.add(spooledEvent);
+    }
+
+    private void release(HistoryEvent historyEvent) {
+        releaseCapacity();
+        String processInstanceId = historyEvent.getProcessInstanceId();
+        if (processInstanceId != null) {
+            pendingByProcessInstance.computeIfPresent(processInstanceId,
+                    (id, pending) -> pending.decrementAndGet() <= 0 ? null : pending);
+        }
+    }
+
+    private void releaseCapacity() {
+        long owed = overdrawn.get();
+        while (owed > 0) {
+            if (overdrawn.compareAndSet(owed, owed - 1)) {
+                return;
+            }
+            owed = overdrawn.get();
+        }
+        capacity.release();
+    }
+
+    private void drainLoop() {
+        List<HistorySpool.SpooledEvent> batch = new ArrayList<>(batchSize);
+        int failedAttempts = 0;
+        while (running || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    HistorySpool.SpooledEvent first = queue.poll(500, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    mergeScopeEvents(batch);
+                }
+                if (failedAttempts < MAX_BATCH_ATTEMPTS) {
+                    write(batch);
+                } else {
+                    writeOneByOne(batch);
+                }
+                batch.clear();
+                failedAttempts = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                failedAttempts++;
+                log.warn("Failed to write {} history events (attempt {}): {}",
+                        batch.size(), failedAttempts, e.getMessage());
+                if (!backoff()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Folds follow-up events into initial events of the same batch, e.g. of a user task that was created and
+     * completed by two quick commands. Folded events are released right away, the merged event keeps the lower spool
+     * position and the other one counts as written: it cannot be acknowledged before the lower one is.
+     */
+    private void mergeScopeEvents(List<HistorySpool.SpooledEvent> batch) {
+        List<HistorySpool.SpooledEvent> merged = new ArrayList<>(batch.size());
+        Map<String, Integer> initialPositions = new HashMap<>();
+        for (HistorySpool.SpooledEvent spooledEvent : batch) {
+            HistoryEvent event = spooledEvent.event();
+            String key = ScopeEventMerger.key(event);
+            Integer initialPosition = key == null ? null : initialPositions.get(key);
+            if (initialPosition != null && ScopeEventMerger.isFollowUp(event)) {
+                HistorySpool.SpooledEvent initial = merged.get(initialPosition);
+                long lower = lowerPosition(initial.spoolPosition(), spooledEvent.spoolPosition());
+                long higher = lower == initial.spoolPosition() ? spooledEvent.spoolPosition() : initial.spoolPosition();
+                merged.set(initialPosition, new HistorySpool.SpooledEvent(
+                        ScopeEventMerger.merge(initial.event(), event), lower));
+                acknowledge(List.of(higher));
+                release(event);
+                mergedEvents.incrementAndGet();
+                continue;
+            }
+            if (key != null && ScopeEventMerger.isInitial(event)) {
+                initialPositions.put(key, merged.size());
+            }
+            merged.add(spooledEvent);
+        }
+        if (merged.size() < batch.size()) {
+            batch.clear();
+            batch.addAll(merged);
+        }
+    }
+
+    private static long lowerPosition(long first, long second) {
+        // -1 marks events that never made it to the spool
+        if (first < 0 || second < 0) {
+            return Math.max(first, second);
+        }
+        return Math.min(first, second);
+    }
+
+    /**
+     * Last resort after repeated batch failures, e.g. a replayed event whose row already made it to the backend.
+     * Events that still cannot be written are dropped so that they do not block the rest of the queue or the spool.
+     */
+    private void writeOneByOne(List<HistorySpool.SpooledEvent> batch) {
+        for (HistorySpool.SpooledEvent spooledEvent : batch) {
+            try {
+                writeCommand(List.of(spooledEvent));
+            } catch (RuntimeException e) {
+                droppedEvents.incrementAndGet();
+                release(spooledEvent.event());
+                acknowledge(List.of(spooledEvent.spoolPosition()));
+                log.error("Dropping history event {} ({}): {}", spooledEvent.event().getId(),
+                        spooledEvent.event().getEventType(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the batch in as few commands as possible. The history handler skips non-initial events of rows that
+     * are already in the entity cache of the command, so events of the same row go to separate commands. Commands
+     * that succeeded are taken off the batch, a retry starts with the first one that failed.
+     */
+    private void write(List<HistorySpool.SpooledEvent> batch) {
+        while (!batch.isEmpty()) {
+            int commandSize = commandSize(batch);
+            List<HistorySpool.SpooledEvent> command = batch.subList(0, commandSize);
+            writeCommand(command);
+            command.clear();
+        }
+    }
+
+    private static int commandSize(List<HistorySpool.SpooledEvent> batch) {
+        Set<String> rows = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            HistoryEvent event = batch.get(i).event();
+            if (event.getId() != null && !rows.add(event.getClass().getName() + ":" + event.getId())) {
+                return i;
+            }
+        }
+        return batch.size();
+    }
+
+    private void writeCommand(List<HistorySpool.SpooledEvent> events) {
+        List<HistoryEvent> historyEvents = events.stream().map(HistorySpool.SpooledEvent::event).toList();
+
+        configuration.getCommandExecutorTxRequiresNew().execute(commandContext -> {
+            delegate.handleEvents(historyEvents);
+            return null;
+        });
+
+        List<Long> positions = new ArrayList<>(events.size());
+        for (HistorySpool.SpooledEvent spooledEvent : events) {
+            positions.add(spooledEvent.spoolPosition());
+            release(spooledEvent.event());
+        }
+        acknowledge(positions);
+
+        writtenEvents.addAndGet(events.size());
+        writtenBatches.incrementAndGet();
+        log.debug("Wrote {} history events, queue depth {}, spool lag {} bytes",
+                events.size(), queue.size(), spool.getLagBytes());
+    }
+
+    private boolean backoff() {
+        try {
+            Thread.sleep(1000);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static final class PendingTransaction {
+
+        private final Map<String, PendingEvent> initialEvents = new HashMap<>();
+        private final Map<String, Integer> processInstances = new HashMap<>();
+    }
+
+    private static final class PendingEvent {
+
+        private HistoryEvent event;
+
+        private PendingEvent(HistoryEvent event) {
+            this.event = event;
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.kubling.samples.operaton.history;
+
+import lombok.Getter;
+import org.operaton.bpm.engine.impl.history.event.HistoricProcessInstanceEventEntity;
+import org.operaton.bpm.engine.impl.history.event.HistoricTaskInstanceEventEntity;
+import org.operaton.bpm.engine.impl.history.event.HistoryEvent;
+import org.operaton.bpm.engine.impl.history.event.HistoryEventTypes;
+
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * One row of ACT_HI_DURATION_ROLLUP: count, sum, minimum, maximum and a log-scale histogram of the durations of the
+ * process or task instances that fall into one hour, see DurationRollup.xml.
+ * <p>
+ * Instances accumulate into a rollup first, the {@link DurationRollupHistoryEventHandler} writes the sum of a
+ * transaction as one increment per row.
+ */
+@Getter
+public class DurationRollup {
+
+    public static final String KIND_PROCESS = "process";
+    public static final String KIND_TASK = "task";
+
+    /** Upper bounds of the histogram buckets H0_ to H5_, H6_ takes everything from one day on. */
+    private static final long[] HISTOGRAM_BOUNDS = {
+            1_000L, 10_000L, 60_000L, 600_000L, 3_600_000L, 86_400_000L
+    };
+
+    private final String kind;
+    private final String processDefinitionId;
+    private final String taskName;
+    private final Date bucket;
+    private final String processDefinitionKey;
+    private final String tenantId;
+
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private final long[] histogram = new long[HISTOGRAM_BOUNDS.length + 1];
+
+    private DurationRollup(String kind, String processDefinitionId, String taskName, Date bucket,
+                           String processDefinitionKey, String tenantId) {
+        this.kind = kind;
+        this.processDefinitionId = processDefinitionId;
+        this.taskName = taskName;
+        this.bucket = bucket;
+        this.processDefinitionKey = processDefinitionKey;
+        this.tenantId = tenantId;
+    }
+
+    /**
+     * Returns a rollup holding the duration of a finished process or task instance, or {@code null} for all other
+     * events. Tasks outside of process instances are left out, the task reports only count tasks of a definition.
+     */
+    public static DurationRollup of(HistoryEvent historyEvent) {
+        if (historyEvent instanceof HistoricProcessInstanceEventEntity processInstance
+                && historyEvent.isEventOfType(HistoryEventTypes.PROCESS_INSTANCE_END)) {
+            Long duration = processInstance.getDurationInMillis();
+            if (duration == null || processInstance.getStartTime() == null
+                    || processInstance.getProcessDefinitionId() == null) {
+                return null;
+            }
+            DurationRollup rollup = new DurationRollup(KIND_PROCESS, processInstance.getProcessDefinitionId(), "",
+                    bucketOf(processInstance.getStartTime()), processInstance.getProcessDefinitionKey(),
+                    processInstance.getTenantId());
+            rollup.add(duration);
+            return rollup;
+        }
+        if (historyEvent instanceof HistoricTaskInstanceEventEntity taskInstance
+                && (historyEvent.isEventOfType(HistoryEventTypes.TASK_INSTANCE_COMPLETE)
+                || historyEvent.isEventOfType(HistoryEventTypes.TASK_INSTANCE_DELETE))) {
+            Long duration = taskInstance.getDurationInMillis();
+            if (duration == null || taskInstance.getEndTime() == null
+                    || taskInstance.getProcessDefinitionId() == null) {
+                return null;
+            }
+            DurationRollup rollup = new DurationRollup(KIND_TASK, taskInstance.getProcessDefinitionId(),
+                    taskInstance.getName() == null ? "" : taskInstance.getName(),
+                    bucketOf(taskInstance.getEndTime()), taskInstance.getProcessDefinitionKey(),
+                    taskInstance.getTenantId());
+            rollup.add(duration);
+            return rollup;
+        }
+        return null;
+    }
+
+    public Key getKey() {
+        return new Key(kind, processDefinitionId, taskName, bucket);
+    }
+
+    public void merge(DurationRollup other) {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] += other.histogram[i];
+        }
+    }
+
+    private void add(long duration) {
+        count++;
+        sum += duration;
+        min = Math.min(min, duration);
+        max = Math.max(max, duration);
+        histogram[histogramIndex(duration)]++;
+    }
+
+    static int histogramIndex(long duration) {
+        for (int i = 0; i < HISTOGRAM_BOUNDS.length; i++) {
+            if (duration < HISTOGRAM_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return HISTOGRAM_BOUNDS.length;
+    }
+
+    /** Start of the hour of {@code time} in the zone of the engine, which also writes the timestamps of history. */
+    public static Date bucketOf(Date time) {
+        return Date.from(time.toInstant().atZone(ZoneId.systemDefault()).truncatedTo(ChronoUnit.HOURS).toInstant());
+    }
+
+    /**
+     * Whether a report bound falls on a bucket boundary, so that the rollups cover exactly the instances the bound
+     * selects. Called by DurationRollup.xml, {@code null} means no bound.
+     */
+    public static boolean isAligned(Date time) {
+        return time == null || bucketOf(time).equals(time);
+    }
+
+    public record Key(String kind, String processDefinitionId, String taskName, Date bucket) {
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.kubling.samples.operaton.history;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.SqlSession;
+import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.operaton.bpm.engine.impl.cfg.TransactionContext;
+import org.operaton.bpm.engine.impl.cfg.TransactionState;
+import org.operaton.bpm.engine.impl.context.Context;
+import org.operaton.bpm.engine.impl.history.event.HistoryEvent;
+import org.operaton.bpm.engine.impl.history.handler.HistoryEventHandler;
+import org.operaton.bpm.engine.impl.interceptor.CommandContext;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintains ACT_HI_DURATION_ROLLUP from the end events of process and task instances, so that the duration and
+ * task reports read one row per definition and hour instead of scanning ACT_HI_PROCINST and ACT_HI_TASKINST.
+ * <p>
+ * Durations are summed per rollup row while the engine transaction runs and written once it has committed, in a
+ * transaction of their own: a rolled back command leaves the rollups untouched, and a hot row never holds locks
+ * of the business transaction. Each row is incremented in place and only inserted when the update finds none, a
+ * concurrent insert of the same row makes the next attempt update it instead. Rollups that still cannot be written
+ * are logged and lost, the reports then undercount until the hour has passed.
+ */
+@Slf4j
+public class DurationRollupHistoryEventHandler implements HistoryEventHandler {
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final ProcessEngineConfigurationImpl configuration;
+    private final HistoryEventHandler delegate;
+
+    private final Map<TransactionContext, Map<DurationRollup.Key, DurationRollup>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong lostRollups = new AtomicLong();
+
+    public DurationRollupHistoryEventHandler(ProcessEngineConfigurationImpl configuration,
+                                             HistoryEventHandler delegate) {
+        this.configuration = configuration;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void handleEvent(HistoryEvent historyEvent) {
+        delegate.handleEvent(historyEvent);
+        collect(historyEvent);
+    }
+
+    @Override
+    public void handleEvents(List<HistoryEvent> historyEvents) {
+        delegate.handleEvents(historyEvents);
+        historyEvents.forEach(this::collect);
+    }
+
+    public long getLostRollups() {
+        return lostRollups.get();
+    }
+
+    private void collect(HistoryEvent historyEvent) {
+        DurationRollup rollup = DurationRollup.of(historyEvent);
+        CommandContext commandContext = Context.getCommandContext();
+        if (rollup == null || commandContext == null) {
+            return;
+        }
+        TransactionContext transactionContext = commandContext.getTransactionContext();
+        pending.computeIfAbsent(transactionContext, context -> {
+            context.addTransactionListener(TransactionState.COMMITTED,
+                    committed -> write(pending.remove(context)));
+            context.addTransactionListener(TransactionState.ROLLED_BACK,
+                    rolledBack -> pending.remove(context));
+            return new LinkedHashMap<>();
+        }).merge(rollup.getKey(), rollup, (existing, added) -> {
+            existing.merge(added);
+            return existing;
+        });
+    }
+
+    private void write(Map<DurationRollup.Key, DurationRollup> rollups) {
+        if (rollups == null || rollups.isEmpty()) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                configuration.getCommandExecutorTxRequiresNew().execute(commandContext -> {
+                    write(commandContext, rollups.values());
+                    return null;
+                });
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_WRITE_ATTEMPTS) {
+                    lostRollups.addAndGet(rollups.size());
+                    log.warn("Could not write {} duration rollups: {}", rollups.size(), e.getMessage());
+                    return;
+                }
+                log.debug("Retrying duration rollups after: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void write(CommandContext commandContext, Collection<DurationRollup> rollups) {
+        SqlSession sqlSession = commandContext.getDbSqlSession().getSqlSession();
+        for (DurationRollup rollup : rollups) {
+            int updated = sqlSession.update("updateDurationRollup", rollup);
+            // with JDBC batching the update count only arrives with the flush
+            List<BatchResult> results = sqlSession.flushStatements();
+            if (!results.isEmpty()) {
+                updated = 0;
+                for (BatchResult result : results) {
+                    for (int count : result.getUpdateCounts()) {
+                        updated += count;
+                    }
+                }
+            }
+            if (updated == 0) {
+                sqlSession.insert("insertDurationRollup", rollup);
+                sqlSession.flushStatements();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.kubling.samples.operaton.history;
+
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.ProcessEngineException;
+import org.operaton.bpm.engine.history.HistoricActivityInstance;
+import org.operaton.bpm.engine.history.HistoricProcessInstance;
+import org.operaton.bpm.engine.history.HistoricTaskInstance;
+import org.operaton.bpm.engine.impl.AbstractQuery;
+import org.operaton.bpm.engine.impl.HistoricActivityInstanceQueryImpl;
+import org.operaton.bpm.engine.impl.HistoricProcessInstanceQueryImpl;
+import org.operaton.bpm.engine.impl.HistoricTaskInstanceQueryImpl;
+import org.operaton.bpm.engine.impl.HistoricVariableInstanceQueryImpl;
+import org.operaton.bpm.engine.impl.db.entitymanager.cache.DbEntityCache;
+import org.operaton.bpm.engine.impl.interceptor.CommandContext;
+import org.operaton.bpm.engine.impl.persistence.entity.AuthorizationManager;
+import org.operaton.bpm.engine.impl.persistence.entity.ByteArrayEntity;
+import org.operaton.bpm.engine.impl.persistence.entity.HistoricVariableInstanceEntity;
+import org.operaton.bpm.engine.impl.variable.serializer.AbstractTypedValueSerializer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * The historic queries {@link HistoricQueryStreams} can stream and page, with their engine statement, keyset
+ * statement (see HistoricQueryKeyset.xml) and the per-query preparation the engine does in its managers.
+ */
+@Slf4j
+enum HistoricQueryKind {
+
+    PROCESS_INSTANCES("selectHistoricProcessInstancesByQueryCriteria", "selectHistoricProcessInstancesByKeyset"),
+    ACTIVITY_INSTANCES("selectHistoricActivityInstancesByQueryCriteria", "selectHistoricActivityInstancesByKeyset"),
+    TASK_INSTANCES("selectHistoricTaskInstancesByQueryCriteria", "selectHistoricTaskInstancesByKeyset"),
+    VARIABLE_INSTANCES("selectHistoricVariableInstanceByQueryCriteria", "selectHistoricVariableInstancesByKeyset");
+
+    private final String statement;
+    private final String keysetStatement;
+
+    HistoricQueryKind(String statement, String keysetStatement) {
+        this.statement = statement;
+        this.keysetStatement = keysetStatement;
+    }
+
+    String getStatement() {
+        return statement;
+    }
+
+    String getKeysetStatement() {
+        return keysetStatement;
+    }
+
+    /**
+     * Checks the query and initializes the values of its variable conditions, as the engine query does before it
+     * selects. Returns {@code false} when the query has conditions that exclude every row. The engine keeps these
+     * steps protected, they are called reflectively so that overrides of the query classes apply.
+     */
+    boolean initialize(AbstractQuery<?, ?> query) {
+        invoke(query, "checkQueryOk");
+        invoke(query, "ensureVariablesInitialized");
+        return !Boolean.TRUE.equals(invoke(query, "hasExcludingConditions"));
+    }
+
+    /**
+     * Adds the authorization and tenant checks of the current authentication, as the engine managers do before
+     * running a query.
+     */
+    void configure(CommandContext commandContext, AbstractQuery<?, ?> query) {
+        AuthorizationManager authorizationManager = commandContext.getAuthorizationManager();
+        switch (this) {
+            case PROCESS_INSTANCES ->
+                    authorizationManager.configureHistoricProcessInstanceQuery((HistoricProcessInstanceQueryImpl) query);
+            case ACTIVITY_INSTANCES ->
+                    authorizationManager.configureHistoricActivityInstanceQuery((HistoricActivityInstanceQueryImpl) query);
+            case TASK_INSTANCES ->
+                    authorizationManager.configureHistoricTaskInstanceQuery((HistoricTaskInstanceQueryImpl) query);
+            case VARIABLE_INSTANCES ->
+                    authorizationManager.configureHistoricVariableInstanceQuery((HistoricVariableInstanceQueryImpl) query);
+        }
+        commandContext.getTenantManager().configureQuery(query);
+    }
+
+    /**
+     * Loads what the engine query loads after selecting the rows, the values of variables.
+     */
+    void prepare(AbstractQuery<?, ?> query, Object row) {
+        if (this == VARIABLE_INSTANCES && row instanceof HistoricVariableInstanceEntity variable) {
+            HistoricVariableInstanceQueryImpl variableQuery = (HistoricVariableInstanceQueryImpl) query;
+            if (variableQuery.isByteArrayFetchingEnabled() || !AbstractTypedValueSerializer.BINARY_VALUE_TYPES
+                    .contains(variable.getSerializer().getType().getName())) {
+                try {
+                    variable.getTypedValue(variableQuery.isCustomObjectDeserializationEnabled());
+                } catch (Exception e) {
+                    log.warn("Could not get the value of historic variable {}: {}", variable.getId(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops what {@link #prepare} put into the entity cache of the command, so that a stream does not accumulate it.
+     */
+    void release(CommandContext commandContext, Object row) {
+        if (row instanceof HistoricVariableInstanceEntity variable && variable.getByteArrayId() != null) {
+            DbEntityCache cache = commandContext.getDbEntityManager().getDbEntityCache();
+            ByteArrayEntity byteArray = cache.get(ByteArrayEntity.class, variable.getByteArrayId());
+            if (byteArray != null) {
+                cache.remove(byteArray);
+            }
+        }
+    }
+
+    HistoricQueryStreams.Keyset keysetOf(Object row) {
+        return switch (this) {
+            case PROCESS_INSTANCES -> {
+                HistoricProcessInstance instance = (HistoricProcessInstance) row;
+                yield new HistoricQueryStreams.Keyset(instance.getStartTime(), instance.getId());
+            }
+            case ACTIVITY_INSTANCES -> {
+                HistoricActivityInstance instance = (HistoricActivityInstance) row;
+                yield new HistoricQueryStreams.Keyset(instance.getStartTime(), instance.getId());
+            }
+            case TASK_INSTANCES -> {
+                HistoricTaskInstance instance = (HistoricTaskInstance) row;
+                yield new HistoricQueryStreams.Keyset(instance.getStartTime(), instance.getId());
+            }
+            case VARIABLE_INSTANCES -> new HistoricQueryStreams.Keyset(null, ((HistoricVariableInstanceEntity) row).getId());
+        };
+    }
+
+    /**
+     * Calls the no-argument method of the query, nothing when neither the query class nor its parents declare it.
+     */
+    private static Object invoke(AbstractQuery<?, ?> query, String name) {
+        for (Class<?> type = query.getClass(); type != null; type = type.getSuperclass()) {
+            Method method;
+            try {
+                method = type.getDeclaredMethod(name);
+            } catch (NoSuchMethodException e) {
+                continue;
+            }
+            try {
+                method.setAccessible(true);
+                return method.invoke(query);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof ProcessEngineException cause) {
+                    throw cause;
+                }
+                throw new ProcessEngineException("Could not " + name + " of " + query.getClass().getSimpleName(),
+                        e.getCause());
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new IllegalStateException("Cannot call " + name + " of " + query.getClass(), e);
+            }
+        }
+        return null;
+    }
+
+}
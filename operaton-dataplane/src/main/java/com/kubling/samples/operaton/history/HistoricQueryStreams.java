@@ -0,0 +1,137 @@
+package com.kubling.samples.operaton.history;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.Configuration;
+import org.operaton.bpm.engine.history.HistoricActivityInstance;
+import org.operaton.bpm.engine.history.HistoricActivityInstanceQuery;
+import org.operaton.bpm.engine.history.HistoricProcessInstance;
+import org.operaton.bpm.engine.history.HistoricProcessInstanceQuery;
+import org.operaton.bpm.engine.history.HistoricTaskInstance;
+import org.operaton.bpm.engine.history.HistoricTaskInstanceQuery;
+import org.operaton.bpm.engine.history.HistoricVariableInstance;
+import org.operaton.bpm.engine.history.HistoricVariableInstanceQuery;
+import org.operaton.bpm.engine.impl.AbstractQuery;
+import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.operaton.bpm.engine.impl.util.EnsureUtil;
+
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Streaming and keyset pagination of historic queries, for exports and history UIs that would otherwise
+ * {@code list()} whole result sets or page through growing offsets.
+ * <p>
+ * A stream runs the engine statement of the query with a JDBC fetch size and a forward-only cursor, and hands each
+ * row to the consumer without keeping it; the command, and with it the connection, stays open until the last row
+ * has been consumed. A page seeks after the last row of the previous page (see HistoricQueryKeyset.xml), ordered by
+ * {@code START_TIME_, ID_}, or by {@code ID_} alone for variables. Orderings set on the query apply to streams only.
+ */
+@Slf4j
+public class HistoricQueryStreams {
+
+    static final String STREAMING_SUFFIX = "-streaming";
+
+    /**
+     * Position after which a page continues, the start time and id of the last row of the previous page.
+     */
+    public record Keyset(Date startTime, String id) {
+    }
+
+    /**
+     * One page and the keyset of the next one, {@code null} after the last page.
+     */
+    public record KeysetPage<T>(List<T> items, Keyset next) {
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+    }
+
+    private final ProcessEngineConfigurationImpl configuration;
+    private final Map<HistoricQueryKind, String> streamingStatements = new EnumMap<>(HistoricQueryKind.class);
+
+    public HistoricQueryStreams(ProcessEngineConfigurationImpl configuration, int fetchSize) {
+        this.configuration = configuration;
+        Configuration mybatis = configuration.getSqlSessionFactory().getConfiguration();
+        for (HistoricQueryKind kind : HistoricQueryKind.values()) {
+            String statement = configuration.getDbSqlSessionFactory().mapStatement(kind.getStatement());
+            streamingStatements.put(kind, registerStreamingStatement(mybatis, statement, fetchSize));
+        }
+    }
+
+    public long streamProcessInstances(HistoricProcessInstanceQuery query, Consumer<? super HistoricProcessInstance> consumer) {
+        return stream(HistoricQueryKind.PROCESS_INSTANCES, query, consumer);
+    }
+
+    public long streamActivityInstances(HistoricActivityInstanceQuery query, Consumer<? super HistoricActivityInstance> consumer) {
+        return stream(HistoricQueryKind.ACTIVITY_INSTANCES, query, consumer);
+    }
+
+    public long streamTaskInstances(HistoricTaskInstanceQuery query, Consumer<? super HistoricTaskInstance> consumer) {
+        return stream(HistoricQueryKind.TASK_INSTANCES, query, consumer);
+    }
+
+    public long streamVariableInstances(HistoricVariableInstanceQuery query, Consumer<? super HistoricVariableInstance> consumer) {
+        return stream(HistoricQueryKind.VARIABLE_INSTANCES, query, consumer);
+    }
+
+    public KeysetPage<HistoricProcessInstance> pageProcessInstances(HistoricProcessInstanceQuery query, Keyset after, int size) {
+        return page(HistoricQueryKind.PROCESS_INSTANCES, query, after, size);
+    }
+
+    public KeysetPage<HistoricActivityInstance> pageActivityInstances(HistoricActivityInstanceQuery query, Keyset after, int size) {
+        return page(HistoricQueryKind.ACTIVITY_INSTANCES, query, after, size);
+    }
+
+    public KeysetPage<HistoricTaskInstance> pageTaskInstances(HistoricTaskInstanceQuery query, Keyset after, int size) {
+        return page(HistoricQueryKind.TASK_INSTANCES, query, after, size);
+    }
+
+    public KeysetPage<HistoricVariableInstance> pageVariableInstances(HistoricVariableInstanceQuery query, Keyset after, int size) {
+        return page(HistoricQueryKind.VARIABLE_INSTANCES, query, after, size);
+    }
+
+    private <T> long stream(HistoricQueryKind kind, Object query, Consumer<? super T> consumer) {
+        EnsureUtil.ensureNotNull("consumer", consumer);
+        return configuration.getCommandExecutorTxRequired().execute(
+                new StreamHistoricQueryCmd<>(kind, (AbstractQuery<?, ?>) query, streamingStatements.get(kind), consumer));
+    }
+
+    private <T> KeysetPage<T> page(HistoricQueryKind kind, Object query, Keyset after, int size) {
+        EnsureUtil.ensurePositive("size", (long) size);
+        return configuration.getCommandExecutorTxRequired().execute(
+                new KeysetHistoricQueryCmd<>(kind, (AbstractQuery<?, ?>) query, after, size));
+    }
+
+    private static String registerStreamingStatement(Configuration mybatis, String statement, int fetchSize) {
+        MappedStatement source = mybatis.getMappedStatement(statement);
+        String id = source.getId() + STREAMING_SUFFIX;
+        if (mybatis.hasStatement(id, false)) {
+            // shared SqlSessionFactory of another engine
+            return id;
+        }
+        mybatis.addMappedStatement(new MappedStatement.Builder(mybatis, id, source.getSqlSource(), source.getSqlCommandType())
+                .resource(source.getResource())
+                .databaseId(source.getDatabaseId())
+                .lang(source.getLang())
+                .statementType(source.getStatementType())
+                .parameterMap(source.getParameterMap())
+                .resultMaps(source.getResultMaps())
+                .resultOrdered(source.isResultOrdered())
+                .timeout(source.getTimeout())
+                .resultSetType(ResultSetType.FORWARD_ONLY)
+                .fetchSize(fetchSize)
+                .flushCacheRequired(false)
+                .useCache(false)
+                .build());
+        log.debug("Registered streaming statement {} with fetch size {}", id, fetchSize);
+        return id;
+    }
+
+}
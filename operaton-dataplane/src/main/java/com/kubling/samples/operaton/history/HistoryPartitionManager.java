@@ -0,0 +1,226 @@
+package com.kubling.samples.operaton.history;
+
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.ProcessEngineException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the time-range partitions of the ACT_HI_* tables on the Postgres history backend.
+ * <p>
+ * Converted tables (see {@code history-postgres-partitioning.sql}) are range partitioned on {@code REMOVAL_TIME_},
+ * one partition per month named {@code <table>_pYYYYMM}, plus a default partition that keeps rows without removal
+ * time. Partitions are created ahead up to {@code now + time to live + precreate}, where the time to live is the
+ * longest one of the deployed definitions, read on every run, and a partition is dropped as a whole once its upper
+ * bound has passed. Tables are detected from the catalog, tables that were not converted are left to the regular
+ * cleanup.
+ * <p>
+ * A month whose partition cannot be created, usually because rows of that range already sit in the default
+ * partition, is skipped and retried on the next run. The later months are still created. Failures are logged as
+ * errors and counted in {@link #getFailedPartitions()}.
+ * <p>
+ * DDL cannot go through the data plane, so statements run on a direct connection to the history database.
+ */
+@Slf4j
+public class HistoryPartitionManager {
+
+    private static final Pattern RANGE_BOUND = Pattern.compile("FROM \\('([^']+)'\\) TO \\('([^']+)'\\)");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'_p'yyyyMM");
+
+    private final DataSource dataSource;
+    private final String schema;
+    private final Supplier<Integer> maxTimeToLiveDays;
+    private final Period precreate;
+
+    private final AtomicLong createdPartitions = new AtomicLong();
+    private final AtomicLong droppedPartitions = new AtomicLong();
+    private final AtomicLong failedPartitions = new AtomicLong();
+
+    public HistoryPartitionManager(DataSource dataSource, String schema, Supplier<Integer> maxTimeToLiveDays,
+                                   Period precreate) {
+        this.dataSource = dataSource;
+        this.schema = schema;
+        this.maxTimeToLiveDays = maxTimeToLiveDays;
+        this.precreate = precreate;
+    }
+
+    /**
+     * Creates the partitions missing up to the horizon and drops the expired ones, for every partitioned table.
+     */
+    public void maintain(Date now) {
+        LocalDateTime localNow = LocalDateTime.ofInstant(now.toInstant(), ZoneId.systemDefault());
+        LocalDateTime until = localNow.plus(horizon());
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(true);
+            for (String table : findPartitionedTables(conn)) {
+                List<Partition> partitions = findPartitions(conn, table);
+                int created = createPartitions(conn, table, partitions, localNow, until);
+                int dropped = dropExpiredPartitions(conn, partitions, localNow);
+                if (created > 0 || dropped > 0) {
+                    log.info("History partitions of {}: created={}, dropped={}", table, created, dropped);
+                }
+            }
+        } catch (SQLException e) {
+            throw new ProcessEngineException("History partition maintenance failed: " + e.getMessage(), e);
+        }
+    }
+
+    public List<String> findPartitionedTables() {
+        try (Connection conn = dataSource.getConnection()) {
+            return findPartitionedTables(conn);
+        } catch (SQLException e) {
+            throw new ProcessEngineException("Could not read partitioned history tables: " + e.getMessage(), e);
+        }
+    }
+
+    public List<Partition> findPartitions(String table) {
+        try (Connection conn = dataSource.getConnection()) {
+            return findPartitions(conn, table);
+        } catch (SQLException e) {
+            throw new ProcessEngineException("Could not read partitions of " + table + ": " + e.getMessage(), e);
+        }
+    }
+
+    public long getCreatedPartitions() {
+        return createdPartitions.get();
+    }
+
+    public long getDroppedPartitions() {
+        return droppedPartitions.get();
+    }
+
+    public long getFailedPartitions() {
+        return failedPartitions.get();
+    }
+
+    private Period horizon() {
+        Integer timeToLive = maxTimeToLiveDays.get();
+        return Period.ofDays(timeToLive == null ? 0 : timeToLive).plus(precreate);
+    }
+
+    private List<String> findPartitionedTables(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("""
+                SELECT c.relname
+                FROM pg_partitioned_table p
+                JOIN pg_class c ON c.oid = p.partrelid
+                JOIN pg_namespace n ON n.oid = c.relnamespace
+                WHERE n.nspname = ? AND c.relname LIKE 'act\\_hi\\_%'
+                ORDER BY c.relname
+                """)) {
+            ps.setString(1, schema);
+            List<String> tables = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+            return tables;
+        }
+    }
+
+    private List<Partition> findPartitions(Connection conn, String table) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("""
+                SELECT c.relname, pg_get_expr(c.relpartbound, c.oid)
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class parent ON parent.oid = i.inhparent
+                JOIN pg_namespace n ON n.oid = parent.relnamespace
+                WHERE n.nspname = ? AND parent.relname = ?
+                ORDER BY c.relname
+                """)) {
+            ps.setString(1, schema);
+            ps.setString(2, table);
+            List<Partition> partitions = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Matcher bound = RANGE_BOUND.matcher(rs.getString(2));
+                    partitions.add(bound.find()
+                            ? new Partition(rs.getString(1),
+                                    LocalDateTime.parse(bound.group(1), BOUND),
+                                    LocalDateTime.parse(bound.group(2), BOUND))
+                            : new Partition(rs.getString(1), null, null));
+                }
+            }
+            return partitions;
+        }
+    }
+
+    private int createPartitions(Connection conn, String table, List<Partition> partitions,
+                                 LocalDateTime now, LocalDateTime until) throws SQLException {
+        int created = 0;
+        try (Statement st = conn.createStatement()) {
+            LocalDateTime from = now.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
+            for (; from.isBefore(until); from = from.plusMonths(1)) {
+                LocalDateTime month = from;
+                if (partitions.stream().anyMatch(partition -> partition.covers(month))) {
+                    continue;
+                }
+                String name = table + SUFFIX.format(from);
+                try {
+                    st.execute("CREATE TABLE IF NOT EXISTS \"%s\".\"%s\" PARTITION OF \"%s\".\"%s\" FOR VALUES FROM ('%s') TO ('%s')"
+                            .formatted(schema, name, schema, table, BOUND.format(from), BOUND.format(from.plusMonths(1))));
+                    created++;
+                } catch (SQLException e) {
+                    // usually rows of that range already sit in the default partition, they stay there
+                    failedPartitions.incrementAndGet();
+                    log.error("Could not create partition {}, its rows stay in the default partition: {}",
+                            name, e.getMessage());
+                }
+            }
+        }
+        createdPartitions.addAndGet(created);
+        return created;
+    }
+
+    private int dropExpiredPartitions(Connection conn, List<Partition> partitions, LocalDateTime now)
+            throws SQLException {
+        int dropped = 0;
+        try (Statement st = conn.createStatement()) {
+            for (Partition partition : partitions) {
+                if (partition.isExpired(now)) {
+                    st.execute("DROP TABLE IF EXISTS \"%s\".\"%s\"".formatted(schema, partition.name()));
+                    dropped++;
+                }
+            }
+        }
+        droppedPartitions.addAndGet(dropped);
+        return dropped;
+    }
+
+    /**
+     * A partition of a history table, {@code from} and {@code to} are {@code null} for the default partition.
+     */
+    public record Partition(String name, LocalDateTime from, LocalDateTime to) {
+
+        public boolean isDefault() {
+            return from == null;
+        }
+
+        public boolean isExpired(LocalDateTime now) {
+            return to != null && !to.isAfter(now);
+        }
+
+        public boolean covers(LocalDateTime time) {
+            return from != null && !from.isAfter(time) && to.isAfter(time);
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.kubling.samples.operaton.history;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * History written for the instances of one process definition key.
+ *
+ * @param level     how much history is written
+ * @param variables for {@link Level#AUDIT_MINIMAL} and for the transient variables of straight-through
+ *                  definitions, the variables whose history is kept
+ */
+public record HistoryProfile(Level level, Set<String> variables) {
+
+    public enum Level {
+        /** Whatever the engine's history level produces. */
+        FULL,
+        /** Only the historic process instance and the selected variables. */
+        AUDIT_MINIMAL,
+        /** Nothing. */
+        NONE
+    }
+
+    public static final HistoryProfile FULL = new HistoryProfile(Level.FULL, Set.of());
+
+    public HistoryProfile {
+        variables = Set.copyOf(variables);
+    }
+
+    /**
+     * Parses profiles in the form {@code key=level[:variable,variable][;key=level...]}, for example
+     * {@code order-kubling=audit-minimal:orderId,totalAmount;Process_1kaebg3=none}.
+     */
+    public static Map<String, HistoryProfile> parse(String profiles) {
+        Map<String, HistoryProfile> parsed = new LinkedHashMap<>();
+        if (profiles == null || profiles.isBlank()) {
+            return parsed;
+        }
+        for (String entry : profiles.split(";")) {
+            String[] keyAndProfile = entry.split("=", 2);
+            if (keyAndProfile.length != 2) {
+                throw new IllegalArgumentException("Invalid history profile '%s'".formatted(entry));
+            }
+            String[] levelAndVariables = keyAndProfile[1].split(":", 2);
+            Level level = Level.valueOf(levelAndVariables[0].trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            Set<String> variables = levelAndVariables.length == 2
+                    ? Arrays.stream(levelAndVariables[1].split(",")).map(String::trim).collect(Collectors.toSet())
+                    : Set.of();
+            parsed.put(keyAndProfile[0].trim(), new HistoryProfile(level, variables));
+        }
+        return parsed;
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.kubling.samples.operaton.history;
+
+import org.operaton.bpm.engine.ProcessEngineException;
+import org.operaton.bpm.engine.impl.interceptor.Command;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Decides which commands read from the dedicated history pool and hands out its connections.
+ * <p>
+ * History and report queries ({@code Historic*}, {@code NativeHistoric*} and {@code CleanableHistoric*} in the
+ * engine's {@code impl} package, including the commands they create internally) are executed on connections of
+ * {@code readDataSource}, so that dashboards cannot take connections away from the transactional pool. So are the
+ * streams and pages of {@link HistoricQueryStreams}.
+ */
+public class HistoryReadRouter {
+
+    private static final String QUERY_PACKAGE = "org.operaton.bpm.engine.impl";
+    private static final List<String> QUERY_PREFIXES = List.of("Historic", "NativeHistoric", "CleanableHistoric");
+
+    private static final ThreadLocal<Boolean> ROUTED = ThreadLocal.withInitial(() -> false);
+
+    private final DataSource readDataSource;
+
+    private final AtomicLong routedCommands = new AtomicLong();
+    private final AtomicLong readConnections = new AtomicLong();
+
+    public HistoryReadRouter(DataSource readDataSource) {
+        this.readDataSource = readDataSource;
+    }
+
+    public static boolean isHistoryRead(Command<?> command) {
+        if (command instanceof StreamHistoricQueryCmd<?> || command instanceof KeysetHistoricQueryCmd<?>) {
+            return true;
+        }
+        Class<?> type = command.getClass();
+        // reports execute inner command classes, e.g. HistoricProcessInstanceReportImpl$ExecuteDurationReportCmd
+        while (type.getEnclosingClass() != null) {
+            type = type.getEnclosingClass();
+        }
+        if (!QUERY_PACKAGE.equals(type.getPackageName())) {
+            return false;
+        }
+        String name = type.getSimpleName();
+        return QUERY_PREFIXES.stream().anyMatch(name::startsWith);
+    }
+
+    public <T> T route(Supplier<T> execution) {
+        routedCommands.incrementAndGet();
+        ROUTED.set(true);
+        try {
+            return execution.get();
+        } finally {
+            ROUTED.remove();
+        }
+    }
+
+    public boolean isRouted() {
+        return ROUTED.get();
+    }
+
+    public Connection getConnection() {
+        try {
+            Connection connection = readDataSource.getConnection();
+            readConnections.incrementAndGet();
+            return connection;
+        } catch (SQLException e) {
+            throw new ProcessEngineException("Could not get a connection from the history read pool: " + e.getMessage(), e);
+        }
+    }
+
+    public long getRoutedCommands() {
+        return routedCommands.get();
+    }
+
+    public long getReadConnections() {
+        return readConnections.get();
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.kubling.samples.operaton.history;
+
+import lombok.Setter;
+import org.operaton.bpm.engine.impl.context.Context;
+import org.operaton.bpm.engine.impl.interceptor.Command;
+import org.operaton.bpm.engine.impl.interceptor.CommandExecutor;
+import org.operaton.bpm.engine.impl.interceptor.CommandInterceptor;
+
+/**
+ * Runs top-level history reads on {@code readCommandExecutor}, a chain without the Spring transaction
+ * interceptor, so neither a primary connection nor a soft transaction is taken for them.
+ * <p>
+ * Commands nested in an existing command context stay on the caller's connection.
+ */
+public class HistoryReadRoutingInterceptor extends CommandInterceptor {
+
+    private final HistoryReadRouter router;
+
+    @Setter
+    private CommandExecutor readCommandExecutor;
+
+    public HistoryReadRoutingInterceptor(HistoryReadRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public <T> T execute(Command<T> command) {
+        if (readCommandExecutor == null || Context.getCommandContext() != null || !HistoryReadRouter.isHistoryRead(command)) {
+            return next.execute(command);
+        }
+        return router.route(() -> readCommandExecutor.execute(command));
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.kubling.samples.operaton.history;
+
+import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.operaton.bpm.engine.impl.db.sql.DbSqlSession;
+import org.operaton.bpm.engine.impl.db.sql.SimpleDbSqlSession;
+import org.operaton.bpm.engine.impl.interceptor.Session;
+import org.operaton.bpm.engine.impl.interceptor.SessionFactory;
+
+/**
+ * Opens the {@link DbSqlSession} of routed history reads on a connection of the read pool, every other command
+ * gets the regular session of the engine's {@code DbSqlSessionFactory}.
+ */
+public class HistoryReadSessionFactory implements SessionFactory {
+
+    private final ProcessEngineConfigurationImpl configuration;
+    private final HistoryReadRouter router;
+
+    public HistoryReadSessionFactory(ProcessEngineConfigurationImpl configuration, HistoryReadRouter router) {
+        this.configuration = configuration;
+        this.router = router;
+    }
+
+    @Override
+    public Class<?> getSessionType() {
+        return DbSqlSession.class;
+    }
+
+    @Override
+    public Session openSession() {
+        if (!router.isRouted()) {
+            return configuration.getDbSqlSessionFactory().openSession();
+        }
+        // the session closes the connection, which returns it to the read pool
+        return new SimpleDbSqlSession(configuration.getDbSqlSessionFactory(), router.getConnection(), null, null);
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.kubling.samples.operaton.history;
+
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.impl.history.event.HistoryEvent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory-mapped ring buffer for history events that were committed by the engine but not yet
+ * written to ACT_HI_*.
+ * <p>
+ * Layout: a fixed header ({@code magic, writePosition, ackPosition}) followed by the ring of length-prefixed
+ * records. Positions are logical and only ever grow, a record lives at the position modulo the ring size; a record
+ * that does not fit before the end of the file starts over at its beginning, behind a wrap marker. Space below the
+ * ack position is reused as soon as it is acknowledged. Records between the ack and write positions are replayed on
+ * startup.
+ * <p>
+ * Records are Java-serialized history events, read back through a filter that only admits history event classes and
+ * their plain value types.
+ */
+@Slf4j
+public class HistorySpool implements AutoCloseable {
+
+    private static final int MAGIC = 0x4B485332; // "KHS2"
+    private static final int WRAP_MARKER = -1;
+    private static final int WRITE_POSITION_OFFSET = Integer.BYTES;
+    private static final int ACK_POSITION_OFFSET = WRITE_POSITION_OFFSET + Long.BYTES;
+    static final int HEADER_SIZE = ACK_POSITION_OFFSET + Long.BYTES;
+
+    private static final ObjectInputFilter EVENT_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=20;"
+                    + "org.operaton.bpm.engine.impl.history.event.*;"
+                    + "org.operaton.bpm.engine.impl.persistence.entity.*;"
+                    + "org.operaton.bpm.engine.impl.batch.history.*;"
+                    + "java.lang.*;java.util.*;java.math.*;[B;[Ljava.lang.Object;;!*");
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long ringSize;
+    private final boolean forceOnAppend;
+
+    private long writePosition;
+    private long ackPosition;
+
+    public HistorySpool(Path path, int sizeBytes, boolean forceOnAppend) {
+        this.forceOnAppend = forceOnAppend;
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, sizeBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open history spool " + path, e);
+        }
+        this.ringSize = sizeBytes - HEADER_SIZE;
+
+        if (buffer.getInt(0) == MAGIC) {
+            writePosition = buffer.getLong(WRITE_POSITION_OFFSET);
+            ackPosition = buffer.getLong(ACK_POSITION_OFFSET);
+        } else {
+            buffer.putInt(0, MAGIC);
+            writePosition = 0;
+            ackPosition = 0;
+            writeHeader();
+        }
+        log.debug("History spool {} opened: write={}, ack={}", path, writePosition, ackPosition);
+    }
+
+    /**
+     * Appends an event and returns the spool position right after it, or {@code -1} when the unacknowledged
+     * records leave no room for it.
+     */
+    public synchronized long append(HistoryEvent event) {
+        byte[] payload = serialize(event);
+        int recordSize = Integer.BYTES + payload.length;
+
+        long untilEnd = ringSize - writePosition % ringSize;
+        long skipped = recordSize > untilEnd ? untilEnd : 0;
+        if (writePosition - ackPosition + skipped + recordSize > ringSize) {
+            return -1;
+        }
+
+        if (skipped > 0) {
+            if (skipped >= Integer.BYTES) {
+                buffer.putInt(offset(writePosition), WRAP_MARKER);
+            }
+            writePosition += skipped;
+        }
+        buffer.putInt(offset(writePosition), payload.length);
+        buffer.put(offset(writePosition) + Integer.BYTES, payload);
+        writePosition += recordSize;
+        writeHeader();
+        if (forceOnAppend) {
+            buffer.force();
+        }
+        return writePosition;
+    }
+
+    /**
+     * Marks every record up to {@code position} as written to the history backend.
+     */
+    public synchronized void acknowledge(long position) {
+        if (position > ackPosition) {
+            ackPosition = position;
+            writeHeader();
+        }
+    }
+
+    /**
+     * Returns the events that were spooled but never acknowledged, paired with their end positions.
+     */
+    public synchronized List<SpooledEvent> recover() {
+        List<SpooledEvent> events = new ArrayList<>();
+        long position = ackPosition;
+        while (position < writePosition) {
+            long untilEnd = ringSize - position % ringSize;
+            int length = untilEnd < Integer.BYTES ? WRAP_MARKER : buffer.getInt(offset(position));
+            if (length == WRAP_MARKER) {
+                position += untilEnd;
+                continue;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset(position) + Integer.BYTES, payload);
+            position += Integer.BYTES + length;
+            events.add(new SpooledEvent(deserialize(payload), position));
+        }
+        if (!events.isEmpty()) {
+            log.info("Recovered {} history events from spool", events.size());
+        }
+        return events;
+    }
+
+    public synchronized long getLagBytes() {
+        return writePosition - ackPosition;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private int offset(long position) {
+        return HEADER_SIZE + (int) (position % ringSize);
+    }
+
+    private void writeHeader() {
+        buffer.putLong(WRITE_POSITION_OFFSET, writePosition);
+        buffer.putLong(ACK_POSITION_OFFSET, ackPosition);
+    }
+
+    private static byte[] serialize(HistoryEvent event) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to spool history event " + event.getId(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static HistoryEvent deserialize(byte[] payload) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            in.setObjectInputFilter(EVENT_FILTER);
+            return (HistoryEvent) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Corrupted history spool record", e);
+        }
+    }
+
+    public record SpooledEvent(HistoryEvent event, long spoolPosition) {
+    }
+
+}
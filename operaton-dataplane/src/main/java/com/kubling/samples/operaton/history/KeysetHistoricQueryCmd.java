@@ -0,0 +1,56 @@
+package com.kubling.samples.operaton.history;
+
+import org.operaton.bpm.engine.impl.AbstractQuery;
+import org.operaton.bpm.engine.impl.interceptor.Command;
+import org.operaton.bpm.engine.impl.interceptor.CommandContext;
+
+import java.util.List;
+
+/**
+ * Selects one page of a historic query after the given keyset, see {@link HistoricQueryStreams}.
+ * <p>
+ * The keyset is passed as the parameter of the query and the paging of the query is replaced by the page size for
+ * the duration of the command, both are restored afterward so the query can be reused for the next page.
+ */
+public class KeysetHistoricQueryCmd<T> implements Command<HistoricQueryStreams.KeysetPage<T>> {
+
+    private final HistoricQueryKind kind;
+    private final AbstractQuery<?, ?> query;
+    private final HistoricQueryStreams.Keyset after;
+    private final int size;
+
+    KeysetHistoricQueryCmd(HistoricQueryKind kind, AbstractQuery<?, ?> query, HistoricQueryStreams.Keyset after, int size) {
+        this.kind = kind;
+        this.query = query;
+        this.after = after;
+        this.size = size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public HistoricQueryStreams.KeysetPage<T> execute(CommandContext commandContext) {
+        if (!kind.initialize(query)) {
+            return new HistoricQueryStreams.KeysetPage<>(List.of(), null);
+        }
+        kind.configure(commandContext, query);
+        Object parameter = query.getParameter();
+        int firstResult = query.getFirstResult();
+        int maxResults = query.getMaxResults();
+        query.setParameter(after);
+        query.setFirstResult(0);
+        query.setMaxResults(size);
+        List<Object> rows;
+        try {
+            rows = commandContext.getDbSqlSession().getSqlSession().selectList(kind.getKeysetStatement(), query);
+        } finally {
+            query.setParameter(parameter);
+            query.setFirstResult(firstResult);
+            query.setMaxResults(maxResults);
+        }
+
+        rows.forEach(row -> kind.prepare(query, row));
+        HistoricQueryStreams.Keyset next = rows.size() < size ? null : kind.keysetOf(rows.get(rows.size() - 1));
+        return new HistoricQueryStreams.KeysetPage<>((List<T>) rows, next);
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.kubling.samples.operaton.history;
+
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.impl.interceptor.CommandContext;
+import org.operaton.bpm.engine.impl.jobexecutor.historycleanup.HistoryCleanupJobHandler;
+import org.operaton.bpm.engine.impl.jobexecutor.historycleanup.HistoryCleanupJobHandlerConfiguration;
+import org.operaton.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.operaton.bpm.engine.impl.util.ClockUtil;
+
+/**
+ * History cleanup that drops expired history partitions before running the regular removal-time based cleanup.
+ * <p>
+ * Once the expired partitions are gone, the {@code DELETE ... WHERE REMOVAL_TIME_ <= ?} statements of the regular
+ * cleanup find nothing left in partitioned tables and only remove rows from tables that were not converted.
+ * Registered with the same type, so it replaces the engine's handler for existing cleanup jobs.
+ */
+@Slf4j
+public class PartitionedHistoryCleanupJobHandler extends HistoryCleanupJobHandler {
+
+    private final HistoryPartitionManager partitionManager;
+
+    public PartitionedHistoryCleanupJobHandler(HistoryPartitionManager partitionManager) {
+        this.partitionManager = partitionManager;
+    }
+
+    @Override
+    public void execute(HistoryCleanupJobHandlerConfiguration configuration,
+                        ExecutionEntity execution,
+                        CommandContext commandContext,
+                        String tenantId) {
+        // with a cleanup degree of parallelism > 1 only the job owning minute 0 maintains the partitions
+        if (configuration.getMinuteFrom() == 0) {
+            try {
+                partitionManager.maintain(ClockUtil.getCurrentTime());
+            } catch (RuntimeException e) {
+                log.warn("History partition maintenance failed, falling back to row cleanup: {}", e.getMessage());
+            }
+        }
+
+        super.execute(configuration, execution, commandContext, tenantId);
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.kubling.samples.operaton.history;
+
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.ProcessEngineException;
+import org.operaton.bpm.engine.impl.context.Context;
+import org.operaton.bpm.engine.impl.history.HistoryLevel;
+import org.operaton.bpm.engine.impl.history.event.HistoryEvent;
+import org.operaton.bpm.engine.impl.history.event.HistoryEventType;
+import org.operaton.bpm.engine.impl.history.event.HistoryEventTypes;
+import org.operaton.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.operaton.bpm.engine.impl.persistence.entity.ExternalTaskEntity;
+import org.operaton.bpm.engine.impl.persistence.entity.IdentityLinkEntity;
+import org.operaton.bpm.engine.impl.persistence.entity.IncidentEntity;
+import org.operaton.bpm.engine.impl.persistence.entity.JobEntity;
+import org.operaton.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.operaton.bpm.engine.impl.persistence.entity.TaskEntity;
+import org.operaton.bpm.engine.impl.persistence.entity.VariableInstanceEntity;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * History level that applies a {@link HistoryProfile} per process definition key on top of the engine's
+ * configured level.
+ * <p>
+ * It reports the id and name of the configured level, so the level stored in ACT_GE_PROPERTY keeps matching, and
+ * asks the configured level first for every event. It does not equal the built-in levels: to the engine's
+ * equality checks it is a custom history level, which is why the configuration keeps the configured level
+ * available through {@link #getDelegate()}. Checks without an entity (made while parsing, to decide which history
+ * listeners to attach) are answered by the configured level, the profile is applied once an instance actually
+ * produces an event. Entities that do not belong to a known process definition are not filtered either.
+ * <p>
+ * For the {@link #report()}, every event is classified by the ACT_HI_* row it inserts, if any, and the rows
+ * written and suppressed are counted per process instance.
+ */
+@Slf4j
+public class ProfiledHistoryLevel implements HistoryLevel {
+
+    // event types that insert a row, all other events update or delete the row of an earlier one
+    private static final Set<HistoryEventType> ROW_INSERTING_EVENTS = Set.of(
+            HistoryEventTypes.PROCESS_INSTANCE_START,
+            HistoryEventTypes.ACTIVITY_INSTANCE_START,
+            HistoryEventTypes.TASK_INSTANCE_CREATE,
+            HistoryEventTypes.VARIABLE_INSTANCE_CREATE,
+            HistoryEventTypes.VARIABLE_INSTANCE_UPDATE_DETAIL,
+            HistoryEventTypes.FORM_PROPERTY_UPDATE,
+            HistoryEventTypes.INCIDENT_CREATE,
+            HistoryEventTypes.IDENTITY_LINK_ADD,
+            HistoryEventTypes.IDENTITY_LINK_DELETE,
+            HistoryEventTypes.JOB_CREATE,
+            HistoryEventTypes.JOB_FAIL,
+            HistoryEventTypes.JOB_SUCCESS,
+            HistoryEventTypes.JOB_DELETE,
+            HistoryEventTypes.EXTERNAL_TASK_CREATE,
+            HistoryEventTypes.EXTERNAL_TASK_FAIL,
+            HistoryEventTypes.EXTERNAL_TASK_SUCCESS,
+            HistoryEventTypes.EXTERNAL_TASK_DELETE);
+
+    private final HistoryLevel delegate;
+    private final Map<String, HistoryProfile> profiles;
+
+    private final Map<String, String> keyByDefinitionId = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> instances = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> writtenRows = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> suppressedRows = new ConcurrentHashMap<>();
+
+    public ProfiledHistoryLevel(HistoryLevel delegate, Map<String, HistoryProfile> profiles) {
+        this.delegate = delegate;
+        this.profiles = Map.copyOf(profiles);
+    }
+
+    public HistoryLevel getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public int getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public boolean isHistoryEventProduced(HistoryEventType eventType, Object entity) {
+        if (!delegate.isHistoryEventProduced(eventType, entity)) {
+            return false;
+        }
+        if (entity == null) {
+            return true;
+        }
+
+        String key = processDefinitionKey(entity);
+        HistoryProfile profile = key == null ? null : profiles.get(key);
+        if (profile == null) {
+            return true;
+        }
+
+        boolean produced = switch (profile.level()) {
+            case FULL -> true;
+            case NONE -> false;
+            case AUDIT_MINIMAL -> isAuditMinimal(eventType, entity, profile);
+        };
+        if (eventType == HistoryEventTypes.PROCESS_INSTANCE_START) {
+            increment(instances, key);
+        }
+        if (ROW_INSERTING_EVENTS.contains(eventType)) {
+            increment(produced ? writtenRows : suppressedRows, key);
+        }
+        return produced;
+    }
+
+    /**
+     * History rows written per process instance so far, and the rows the configured level alone would have
+     * written, per profiled process definition key.
+     */
+    public Map<String, String> report() {
+        Map<String, String> report = new TreeMap<>();
+        for (String key : profiles.keySet()) {
+            long started = count(instances, key);
+            long written = count(writtenRows, key);
+            long total = written + count(suppressedRows, key);
+            report.put(key, "%s: %.1f of %.1f history rows per instance written (%d%% less)".formatted(
+                    profiles.get(key).level(),
+                    started == 0 ? 0.0 : (double) written / started,
+                    started == 0 ? 0.0 : (double) total / started,
+                    total == 0 ? 0 : (total - written) * 100 / total));
+        }
+        return report;
+    }
+
+    public long getInstances(String processDefinitionKey) {
+        return count(instances, processDefinitionKey);
+    }
+
+    public long getWrittenRows(String processDefinitionKey) {
+        return count(writtenRows, processDefinitionKey);
+    }
+
+    public long getSuppressedRows(String processDefinitionKey) {
+        return count(suppressedRows, processDefinitionKey);
+    }
+
+    private static boolean isAuditMinimal(HistoryEventType eventType, Object entity, HistoryProfile profile) {
+        if (HistoryEventTypes.PROCESS_INSTANCE_START.getEntityType().equals(eventType.getEntityType())) {
+            return true;
+        }
+        return HistoryEventTypes.VARIABLE_INSTANCE_CREATE.getEntityType().equals(eventType.getEntityType())
+                && eventType != HistoryEventTypes.VARIABLE_INSTANCE_UPDATE_DETAIL
+                && entity instanceof VariableInstanceEntity variable
+                && profile.variables().contains(variable.getName());
+    }
+
+    private String processDefinitionKey(Object entity) {
+        String definitionId = switch (entity) {
+            case ExecutionEntity execution -> execution.getProcessDefinitionId();
+            case VariableInstanceEntity variable -> variable.getProcessDefinitionId();
+            case TaskEntity task -> task.getProcessDefinitionId();
+            case JobEntity job -> job.getProcessDefinitionId();
+            case IncidentEntity incident -> incident.getProcessDefinitionId();
+            case ExternalTaskEntity externalTask -> externalTask.getProcessDefinitionId();
+            case IdentityLinkEntity identityLink -> identityLink.getProcessDefId();
+            // e.g. the variable detail check of the history event handler
+            case HistoryEvent event -> event.getProcessDefinitionId();
+            default -> null;
+        };
+        if (definitionId == null) {
+            return null;
+        }
+        String key = keyByDefinitionId.get(definitionId);
+        if (key == null) {
+            try {
+                ProcessDefinitionEntity definition = Context.getProcessEngineConfiguration()
+                        .getDeploymentCache()
+                        .findDeployedProcessDefinitionById(definitionId);
+                key = definition.getKey();
+            } catch (ProcessEngineException e) {
+                // e.g. a definition deleted in the meantime, the configured level decides
+                log.debug("Process definition {} not found, history profiles are not applied: {}",
+                        definitionId, e.getMessage());
+                return null;
+            }
+            keyByDefinitionId.put(definitionId, key);
+        }
+        return key;
+    }
+
+    private static void increment(Map<String, LongAdder> counters, String key) {
+        counters.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    private static long count(Map<String, LongAdder> counters, String key) {
+        LongAdder counter = counters.get(key);
+        return counter == null ? 0 : counter.sum();
+    }
+
+}
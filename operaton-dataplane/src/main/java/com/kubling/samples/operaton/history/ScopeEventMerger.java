@@ -0,0 +1,104 @@
+package com.kubling.samples.operaton.history;
+
+import org.operaton.bpm.engine.impl.history.event.HistoricActivityInstanceEventEntity;
+import org.operaton.bpm.engine.impl.history.event.HistoricIncidentEventEntity;
+import org.operaton.bpm.engine.impl.history.event.HistoricProcessInstanceEventEntity;
+import org.operaton.bpm.engine.impl.history.event.HistoricScopeInstanceEvent;
+import org.operaton.bpm.engine.impl.history.event.HistoryEvent;
+import org.operaton.bpm.engine.impl.history.event.HistoryEventType;
+import org.operaton.bpm.engine.impl.history.event.HistoryEventTypes;
+
+/**
+ * Folds the follow-up events of a history row into the initial event of that row, so that an activity, process or
+ * task instance, or an incident, that is created and updated or ended before its history is written becomes a single
+ * INSERT instead of an INSERT and one or more UPDATEs. The history handler would skip such updates anyway when they
+ * are written in the same command as the insert.
+ * <p>
+ * Follow-up events carry the current state of the row; the merged event takes it, keeps start time, sequence
+ * counter and start-only attributes of the initial event, and keeps the initial event type, so the history handler
+ * treats it as an initial event. Merged events can take further follow-up events.
+ */
+final class ScopeEventMerger {
+
+    private static final HistoryEventType[] INITIAL_TYPES = {
+            HistoryEventTypes.ACTIVITY_INSTANCE_START,
+            HistoryEventTypes.PROCESS_INSTANCE_START,
+            HistoryEventTypes.TASK_INSTANCE_CREATE,
+            HistoryEventTypes.INCIDENT_CREATE
+    };
+
+    private static final HistoryEventType[] FOLLOW_UP_TYPES = {
+            HistoryEventTypes.ACTIVITY_INSTANCE_UPDATE,
+            HistoryEventTypes.ACTIVITY_INSTANCE_MIGRATE,
+            HistoryEventTypes.ACTIVITY_INSTANCE_END,
+            HistoryEventTypes.PROCESS_INSTANCE_UPDATE,
+            HistoryEventTypes.PROCESS_INSTANCE_MIGRATE,
+            HistoryEventTypes.PROCESS_INSTANCE_END,
+            HistoryEventTypes.TASK_INSTANCE_UPDATE,
+            HistoryEventTypes.TASK_INSTANCE_MIGRATE,
+            HistoryEventTypes.TASK_INSTANCE_COMPLETE,
+            HistoryEventTypes.TASK_INSTANCE_DELETE,
+            HistoryEventTypes.INCIDENT_UPDATE,
+            HistoryEventTypes.INCIDENT_MIGRATE,
+            HistoryEventTypes.INCIDENT_RESOLVE,
+            HistoryEventTypes.INCIDENT_DELETE
+    };
+
+    private ScopeEventMerger() {
+    }
+
+    /**
+     * Key of events that can be merged, {@code null} for every other event.
+     */
+    static String key(HistoryEvent historyEvent) {
+        if (historyEvent instanceof HistoricScopeInstanceEvent
+                || historyEvent instanceof HistoricIncidentEventEntity) {
+            return historyEvent.getClass().getSimpleName() + ":" + historyEvent.getId();
+        }
+        return null;
+    }
+
+    static boolean isInitial(HistoryEvent historyEvent) {
+        return isOfType(historyEvent, INITIAL_TYPES);
+    }
+
+    static boolean isFollowUp(HistoryEvent historyEvent) {
+        return isOfType(historyEvent, FOLLOW_UP_TYPES);
+    }
+
+    static HistoryEvent merge(HistoryEvent initial, HistoryEvent followUp) {
+        if (initial instanceof HistoricScopeInstanceEvent initialScope
+                && followUp instanceof HistoricScopeInstanceEvent followUpScope) {
+            followUpScope.setStartTime(initialScope.getStartTime());
+            if (initialScope.getStartTime() != null && followUpScope.getEndTime() != null) {
+                followUpScope.setDurationInMillis(
+                        followUpScope.getEndTime().getTime() - initialScope.getStartTime().getTime());
+            }
+        }
+        if (initial instanceof HistoricActivityInstanceEventEntity initialActivity
+                && followUp instanceof HistoricActivityInstanceEventEntity followUpActivity) {
+            followUpActivity.setSequenceCounter(initialActivity.getSequenceCounter());
+        }
+        if (initial instanceof HistoricProcessInstanceEventEntity initialInstance
+                && followUp instanceof HistoricProcessInstanceEventEntity followUpInstance) {
+            followUpInstance.setStartUserId(initialInstance.getStartUserId());
+            followUpInstance.setStartActivityId(initialInstance.getStartActivityId());
+        }
+        if (initial instanceof HistoricIncidentEventEntity initialIncident
+                && followUp instanceof HistoricIncidentEventEntity followUpIncident) {
+            followUpIncident.setCreateTime(initialIncident.getCreateTime());
+        }
+        followUp.setEventType(initial.getEventType());
+        return followUp;
+    }
+
+    private static boolean isOfType(HistoryEvent historyEvent, HistoryEventType[] types) {
+        for (HistoryEventType type : types) {
+            if (historyEvent.isEventOfType(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.kubling.samples.operaton.history;
+
+import org.operaton.bpm.engine.impl.AbstractQuery;
+import org.operaton.bpm.engine.impl.interceptor.Command;
+import org.operaton.bpm.engine.impl.interceptor.CommandContext;
+
+import java.util.function.Consumer;
+
+/**
+ * Runs the streaming variant of a historic query and hands each row to the consumer, see {@link HistoricQueryStreams}.
+ * Rows bypass the entity cache of the command. Returns the number of rows consumed.
+ */
+public class StreamHistoricQueryCmd<T> implements Command<Long> {
+
+    private final HistoricQueryKind kind;
+    private final AbstractQuery<?, ?> query;
+    private final String statement;
+    private final Consumer<? super T> consumer;
+
+    StreamHistoricQueryCmd(HistoricQueryKind kind, AbstractQuery<?, ?> query, String statement, Consumer<? super T> consumer) {
+        this.kind = kind;
+        this.query = query;
+        this.statement = statement;
+        this.consumer = consumer;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Long execute(CommandContext commandContext) {
+        if (!kind.initialize(query)) {
+            return 0L;
+        }
+        kind.configure(commandContext, query);
+        long[] count = {0};
+        commandContext.getDbSqlSession().getSqlSession().select(statement, query, context -> {
+            Object row = context.getResultObject();
+            kind.prepare(query, row);
+            consumer.accept((T) row);
+            kind.release(commandContext, row);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+}
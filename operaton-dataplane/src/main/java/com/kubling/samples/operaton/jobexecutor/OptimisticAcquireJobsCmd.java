@@ -0,0 +1,154 @@
+package com.kubling.samples.operaton.jobexecutor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.SqlSession;
+import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.operaton.bpm.engine.impl.context.Context;
+import org.operaton.bpm.engine.impl.db.ListQueryParameterObject;
+import org.operaton.bpm.engine.impl.interceptor.Command;
+import org.operaton.bpm.engine.impl.interceptor.CommandContext;
+import org.operaton.bpm.engine.impl.jobexecutor.AcquiredJobs;
+import org.operaton.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.operaton.bpm.engine.impl.persistence.entity.AcquirableJobEntity;
+import org.operaton.bpm.engine.impl.util.ClockUtil;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Job acquisition that behaves well through the composite VDB.
+ * <p>
+ * Instead of {@code selectNextJobsToExecute}, whose correlated exclusive-job subquery has to be evaluated by
+ * the federation layer, the process instances currently holding an exclusive lock are read first and their exclusive
+ * jobs are excluded from the candidate query by id, so they never take up the candidate limit. Locks are then taken with one batched
+ * {@code UPDATE ... WHERE ID_ = ? AND REV_ = ?} per acquisition; a job whose update count is 0 was acquired by
+ * another node in the meantime and is skipped.
+ */
+@Slf4j
+public class OptimisticAcquireJobsCmd implements Command<AcquiredJobs> {
+
+    private final JobExecutor jobExecutor;
+    private final int numJobsToAcquire;
+
+    public OptimisticAcquireJobsCmd(JobExecutor jobExecutor, int numJobsToAcquire) {
+        this.jobExecutor = jobExecutor;
+        this.numJobsToAcquire = numJobsToAcquire;
+    }
+
+    @Override
+    public AcquiredJobs execute(CommandContext commandContext) {
+        AcquiredJobs acquiredJobs = new AcquiredJobs(numJobsToAcquire);
+        Date now = ClockUtil.getCurrentTime();
+
+        List<String> lockedProcessInstances = commandContext.getDbEntityManager()
+                .selectList("selectExclusiveLockedProcessInstances", parameters(Map.of("now", now), 0, Integer.MAX_VALUE));
+
+        List<AcquirableJobEntity> candidates = selectCandidates(commandContext, now, lockedProcessInstances);
+        if (candidates.isEmpty()) {
+            return acquiredJobs;
+        }
+
+        List<AcquirableJobEntity> locked = lock(commandContext, candidates, now);
+
+        // exclusive jobs of the same process instance are executed sequentially in one batch
+        Map<String, List<String>> exclusiveBatches = new LinkedHashMap<>();
+        for (AcquirableJobEntity job : locked) {
+            if (job.isExclusive() && job.getProcessInstanceId() != null) {
+                exclusiveBatches.computeIfAbsent(job.getProcessInstanceId(), id -> new ArrayList<>()).add(job.getId());
+            } else {
+                acquiredJobs.addJobIdBatch(job.getId());
+            }
+        }
+        exclusiveBatches.values().forEach(acquiredJobs::addJobIdBatch);
+
+        log.debug("Acquired {} of {} candidate jobs", locked.size(), candidates.size());
+        return acquiredJobs;
+    }
+
+    private List<AcquirableJobEntity> selectCandidates(CommandContext commandContext, Date now,
+                                                       List<String> lockedProcessInstances) {
+        ProcessEngineConfigurationImpl configuration = Context.getProcessEngineConfiguration();
+
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("now", now);
+        parameter.put("deploymentAware", configuration.isJobExecutorDeploymentAware());
+        parameter.put("deploymentIds", configuration.isJobExecutorDeploymentAware()
+                ? new ArrayList<>(configuration.getRegisteredDeployments())
+                : null);
+        parameter.put("historyCleanupEnabled", configuration.isHistoryCleanupEnabled());
+        parameter.put("lockedProcessInstanceIds", lockedProcessInstances);
+
+        return commandContext.getDbEntityManager()
+                .selectList("selectAcquirableJobCandidates", parameters(parameter, 0, numJobsToAcquire));
+    }
+
+    private List<AcquirableJobEntity> lock(CommandContext commandContext, List<AcquirableJobEntity> jobs, Date now) {
+        if (jobs.isEmpty()) {
+            return jobs;
+        }
+
+        String lockOwner = jobExecutor.getLockOwner();
+        Date lockExpirationTime = new Date(now.getTime() + jobExecutor.getLockTimeInMillis());
+        SqlSession sqlSession = commandContext.getDbSqlSession().getSqlSession();
+
+        int[] updateCounts = new int[jobs.size()];
+        boolean batched = false;
+        for (int i = 0; i < jobs.size(); i++) {
+            AcquirableJobEntity job = jobs.get(i);
+            Map<String, Object> parameter = new HashMap<>();
+            parameter.put("id", job.getId());
+            parameter.put("revision", job.getRevision());
+            parameter.put("lockOwner", lockOwner);
+            parameter.put("lockExpirationTime", lockExpirationTime);
+            updateCounts[i] = sqlSession.update("lockAcquirableJob", parameter);
+            batched |= updateCounts[i] == BatchExecutor.BATCH_UPDATE_RETURN_VALUE;
+        }
+        if (batched) {
+            updateCounts = flushedUpdateCounts(sqlSession, jobs.size());
+        }
+
+        List<AcquirableJobEntity> locked = new ArrayList<>();
+        List<String> unverified = new ArrayList<>();
+        for (int i = 0; i < jobs.size(); i++) {
+            if (updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+                unverified.add(jobs.get(i).getId());
+            } else if (updateCounts[i] > 0) {
+                locked.add(jobs.get(i));
+            }
+        }
+
+        if (!unverified.isEmpty()) {
+            // the driver did not report row counts for the batch, read back which locks we actually own
+            Set<String> owned = new HashSet<>(commandContext.getDbEntityManager().selectList("selectJobsLockedByOwner",
+                    parameters(Map.of("lockOwner", lockOwner, "jobIds", unverified), 0, Integer.MAX_VALUE)));
+            jobs.stream().filter(job -> owned.contains(job.getId())).forEach(locked::add);
+        }
+
+        return locked;
+    }
+
+    private static int[] flushedUpdateCounts(SqlSession sqlSession, int expected) {
+        int[] counts = new int[expected];
+        int index = 0;
+        for (BatchResult result : sqlSession.flushStatements()) {
+            for (int count : result.getUpdateCounts()) {
+                counts[index++] = count;
+            }
+        }
+        return counts;
+    }
+
+    private static ListQueryParameterObject parameters(Object parameter, int firstResult, int maxResults) {
+        return new ListQueryParameterObject(parameter, firstResult, maxResults);
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.kubling.samples.operaton.jobexecutor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.impl.ProcessEngineImpl;
+import org.operaton.bpm.engine.impl.jobexecutor.JobExecutor;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Job executor that runs every acquired job batch on its own virtual thread.
+ * <p>
+ * Threads are cheap, so the actual limit is {@code maxConcurrentJobs}: the number of job batches this node
+ * executes at the same time, which also bounds the connections the executor can take from the pool. Batches
+ * above the limit are handed to the rejected jobs handler, which makes the acquisition back off.
+ * <p>
+ * Acquisition uses {@link OptimisticAcquireJobsCmd}. Batch size, wait and backoff are the regular
+ * {@link JobExecutor} settings ({@code maxJobsPerAcquisition}, {@code waitTimeInMillis},
+ * {@code backoffTimeInMillis}, {@code maxBackoff}).
+ */
+@Slf4j
+public class VirtualThreadJobExecutor extends JobExecutor {
+
+    private final Semaphore permits;
+    private final int maxConcurrentJobs;
+    private ExecutorService executorService;
+
+    public VirtualThreadJobExecutor(int maxConcurrentJobs) {
+        this.maxConcurrentJobs = maxConcurrentJobs;
+        this.permits = new Semaphore(maxConcurrentJobs);
+        this.name = "KublingVirtualThreadJobExecutor";
+        setAcquireJobsCmdFactory(numJobs -> new OptimisticAcquireJobsCmd(this, numJobs));
+    }
+
+    @Override
+    protected void startExecutingJobs() {
+        if (executorService == null || executorService.isShutdown()) {
+            executorService = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("kubling-job-", 0).factory());
+        }
+        startJobAcquisitionThread();
+        log.info("Virtual thread job executor started: maxConcurrentJobs={}, maxJobsPerAcquisition={}",
+                maxConcurrentJobs, getMaxJobsPerAcquisition());
+    }
+
+    @Override
+    protected void stopExecutingJobs() {
+        stopJobAcquisitionThread();
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(60, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for running jobs to finish");
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executorService.shutdownNow();
+        }
+    }
+
+    @Override
+    public void executeJobs(List<String> jobIds, ProcessEngineImpl processEngine) {
+        if (!permits.tryAcquire()) {
+            logRejectedExecution(processEngine, jobIds.size());
+            rejectedJobsHandler.jobsRejected(jobIds, processEngine, this);
+            return;
+        }
+
+        Runnable jobs = getExecuteJobsRunnable(jobIds, processEngine);
+        try {
+            executorService.execute(() -> {
+                try {
+                    jobs.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            logRejectedExecution(processEngine, jobIds.size());
+            rejectedJobsHandler.jobsRejected(jobIds, processEngine, this);
+        }
+    }
+
+    public int getActiveJobs() {
+        return maxConcurrentJobs - permits.availablePermits();
+    }
+
+    public int getMaxConcurrentJobs() {
+        return maxConcurrentJobs;
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.kubling.samples.operaton.metrics;
+
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.db.KublingDbSqlSessionFactory;
+import com.kubling.samples.operaton.history.HistoryPartitionManager;
+import com.kubling.samples.operaton.jobexecutor.VirtualThreadJobExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.operaton.bpm.engine.impl.metrics.Meter;
+import org.operaton.bpm.engine.impl.metrics.MetricsRegistry;
+import org.operaton.bpm.engine.management.Metrics;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes the engine counters to Micrometer.
+ * <p>
+ * The engine keeps its meters in the {@link MetricsRegistry}, one atomic counter each. With the database reporter
+ * switched off they are never written to ACT_RU_METER_LOG and never reset, so they are exported as monotonic
+ * function counters that are only read when the registry is scraped. Nothing here touches the database.
+ * <p>
+ * Values are looked up lazily, the binder can be bound before the process engine is built. For the same reason the
+ * engine meters are registered by the configured flags rather than by {@code isMetricsEnabled()}, which the engine
+ * configuration only turns on for in-memory metrics once it initializes.
+ */
+public class EngineMetricsBinder implements MeterBinder {
+
+    private static final List<String> ENGINE_METERS = List.of(
+            Metrics.ROOT_PROCESS_INSTANCE_START,
+            Metrics.ACTIVTY_INSTANCE_START,
+            Metrics.ACTIVTY_INSTANCE_END,
+            Metrics.JOB_ACQUISITION_ATTEMPT,
+            Metrics.JOB_ACQUIRED_SUCCESS,
+            Metrics.JOB_ACQUIRED_FAILURE,
+            Metrics.JOB_EXECUTION_REJECTED,
+            Metrics.JOB_SUCCESSFUL,
+            Metrics.JOB_FAILED,
+            Metrics.JOB_LOCKED_EXCLUSIVE,
+            Metrics.EXECUTED_DECISION_INSTANCES,
+            Metrics.EXECUTED_DECISION_ELEMENTS);
+
+    private final ProcessEngineConfigurationImpl configuration;
+
+    public EngineMetricsBinder(ProcessEngineConfigurationImpl configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (isEngineMetricsEnabled()) {
+            for (String name : ENGINE_METERS) {
+                FunctionCounter.builder("operaton.engine." + name.replace('-', '.'), configuration, c -> meter(c, name))
+                        .description("Engine meter " + name)
+                        .register(registry);
+            }
+        }
+
+        flushCounter(registry, "kubling.engine.flushes", "Flushes sent to the data plane",
+                KublingDbSqlSessionFactory::getFlushes);
+        flushCounter(registry, "kubling.engine.flush.operations", "Database operations flushed",
+                KublingDbSqlSessionFactory::getOperations);
+        flushCounter(registry, "kubling.engine.flush.batches", "JDBC batches sent for flushes",
+                KublingDbSqlSessionFactory::getStatementBatches);
+
+        partitionCounter(registry, "kubling.history.partitions.created", "History partitions created",
+                HistoryPartitionManager::getCreatedPartitions);
+        partitionCounter(registry, "kubling.history.partitions.dropped", "Expired history partitions dropped",
+                HistoryPartitionManager::getDroppedPartitions);
+        partitionCounter(registry, "kubling.history.partitions.failed", "History partitions that could not be created",
+                HistoryPartitionManager::getFailedPartitions);
+
+        Gauge.builder("kubling.engine.jobs.active", configuration,
+                        c -> c.getJobExecutor() instanceof VirtualThreadJobExecutor executor ? executor.getActiveJobs() : 0)
+                .description("Job batches currently executing on this node")
+                .register(registry);
+    }
+
+    private boolean isEngineMetricsEnabled() {
+        return configuration.isMetricsEnabled()
+                || configuration instanceof KublingProcessEngineConfiguration kubling && kubling.isInMemoryMetricsEnabled();
+    }
+
+    private void flushCounter(MeterRegistry registry, String name, String description,
+                              ToLongFunction<KublingDbSqlSessionFactory> value) {
+        FunctionCounter.builder(name, configuration,
+                        c -> c.getDbSqlSessionFactory() instanceof KublingDbSqlSessionFactory factory
+                                ? value.applyAsLong(factory)
+                                : 0)
+                .description(description)
+                .register(registry);
+    }
+
+    private void partitionCounter(MeterRegistry registry, String name, String description,
+                                  ToLongFunction<HistoryPartitionManager> value) {
+        FunctionCounter.builder(name, configuration,
+                        c -> c instanceof KublingProcessEngineConfiguration kubling
+                                && kubling.getHistoryPartitionManager() != null
+                                ? value.applyAsLong(kubling.getHistoryPartitionManager())
+                                : 0)
+                .description(description)
+                .register(registry);
+    }
+
+    private static double meter(ProcessEngineConfigurationImpl configuration, String name) {
+        MetricsRegistry metricsRegistry = configuration.getMetricsRegistry();
+        Meter meter = metricsRegistry == null ? null : metricsRegistry.getDbMeterByName(name);
+        return meter == null ? 0 : meter.get();
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.kubling.samples.operaton.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.impl.persistence.entity.ResourceEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Local, checksummed copy of deployment resources.
+ * <p>
+ * Deployments are immutable, so once a resource has been read from ACT_GE_BYTEARRAY it can be served from
+ * local disk on every later cold start instead of crossing Kubling again. Each entry is stored as the SHA-256
+ * checksum of the payload followed by the payload, and is discarded when the checksum does not match. The payload
+ * holds the resource bytes and the few attributes needed to rebuild the {@link ResourceEntity}, nothing is
+ * deserialized. Resources read from the snapshot are deployed as they are, so the directory must only be writable
+ * by the engine.
+ */
+@Slf4j
+public class DeploymentResourceSnapshot {
+
+    private static final int CHECKSUM_LENGTH = 32;
+
+    private final Path directory;
+
+    public DeploymentResourceSnapshot(Path directory) {
+        this.directory = directory;
+    }
+
+    public Optional<ResourceEntity> read(String deploymentId, String resourceName) {
+        Path file = file(deploymentId, resourceName);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        try {
+            byte[] content = Files.readAllBytes(file);
+            if (content.length < CHECKSUM_LENGTH) {
+                return discard(file);
+            }
+            byte[] payload = Arrays.copyOfRange(content, CHECKSUM_LENGTH, content.length);
+            if (!Arrays.equals(sha256(payload), Arrays.copyOf(content, CHECKSUM_LENGTH))) {
+                return discard(file);
+            }
+            ResourceEntity resource = decode(payload);
+            if (!deploymentId.equals(resource.getDeploymentId()) || !resourceName.equals(resource.getName())) {
+                return discard(file);
+            }
+            return Optional.of(resource);
+        } catch (IOException e) {
+            log.warn("Unable to read resource snapshot {}: {}", file, e.getMessage());
+            return discard(file);
+        }
+    }
+
+    public void write(ResourceEntity resource) {
+        if (resource == null || resource.getDeploymentId() == null) {
+            return;
+        }
+
+        Path file = file(resource.getDeploymentId(), resource.getName());
+        try {
+            byte[] payload = encode(resource);
+
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), "resource", ".tmp");
+            try (var out = Files.newOutputStream(tmp)) {
+                out.write(sha256(payload));
+                out.write(payload);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to write resource snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    public void delete(String deploymentId) {
+        Path deploymentDirectory = directory.resolve(deploymentId);
+        if (!Files.isDirectory(deploymentDirectory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(deploymentDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Unable to delete resource snapshot of deployment {}: {}", deploymentId, e.getMessage());
+        }
+    }
+
+    private Path file(String deploymentId, String resourceName) {
+        return directory.resolve(deploymentId)
+                .resolve(HexFormat.of().formatHex(sha256(resourceName.getBytes(StandardCharsets.UTF_8))) + ".res");
+    }
+
+    private static byte[] encode(ResourceEntity resource) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, resource.getId());
+            writeString(out, resource.getDeploymentId());
+            writeString(out, resource.getName());
+            writeString(out, resource.getTenantId());
+            out.writeBoolean(resource.isGenerated());
+            byte[] content = resource.getBytes() == null ? new byte[0] : resource.getBytes();
+            out.writeInt(content.length);
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ResourceEntity decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            ResourceEntity resource = new ResourceEntity();
+            resource.setId(readString(in));
+            resource.setDeploymentId(readString(in));
+            resource.setName(readString(in));
+            resource.setTenantId(readString(in));
+            resource.setGenerated(in.readBoolean());
+            resource.setBytes(in.readNBytes(in.readInt()));
+            return resource;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static Optional<ResourceEntity> discard(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Unable to delete {}: {}", file, e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.kubling.samples.operaton.startup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Groups of entity mappers in {@code mappings.xml} that a deployment can do without.
+ */
+public enum MapperGroup {
+
+    CMMN(List.of("CaseDefinition", "CaseExecution", "CaseSentryPart")),
+    DMN(List.of("DecisionDefinition", "DecisionRequirementsDefinition", "HistoricDecisionInstance",
+            "HistoricDecisionInputInstance", "HistoricDecisionOutputInstance")),
+    REPORTS(List.of("Report", "HistoricTaskInstanceReport", "DurationRollup"));
+
+    private final List<String> mappers;
+
+    MapperGroup(List<String> mappers) {
+        this.mappers = mappers;
+    }
+
+    public List<String> getMappers() {
+        return mappers;
+    }
+
+    /**
+     * Returns the MyBatis configuration without the {@code <mapper>} entries of the excluded groups.
+     */
+    public static InputStream filter(InputStream mappings, Set<MapperGroup> excluded) {
+        try (mappings) {
+            String xml = new String(mappings.readAllBytes(), StandardCharsets.UTF_8);
+            for (MapperGroup group : excluded) {
+                for (String mapper : group.mappers) {
+                    xml = Pattern.compile("\\s*<mapper resource=\"[^\"]*/" + mapper + "\\.xml\"\\s*/>")
+                            .matcher(xml)
+                            .replaceAll("");
+                }
+            }
+            return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read MyBatis configuration", e);
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.kubling.samples.operaton.startup;
+
+import org.operaton.bpm.engine.impl.persistence.entity.ResourceEntity;
+import org.operaton.bpm.engine.impl.persistence.entity.ResourceManager;
+
+/**
+ * Serves deployment resources from a {@link DeploymentResourceSnapshot} before going to ACT_GE_BYTEARRAY.
+ */
+public class SnapshotResourceManager extends ResourceManager {
+
+    private final DeploymentResourceSnapshot snapshot;
+
+    public SnapshotResourceManager(DeploymentResourceSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public ResourceEntity findResourceByDeploymentIdAndResourceName(String deploymentId, String resourceName) {
+        return snapshot.read(deploymentId, resourceName).orElseGet(() -> {
+            ResourceEntity resource = super.findResourceByDeploymentIdAndResourceName(deploymentId, resourceName);
+            snapshot.write(resource);
+            return resource;
+        });
+    }
+
+    @Override
+    public void deleteResourcesByDeploymentId(String deploymentId) {
+        super.deleteResourcesByDeploymentId(deploymentId);
+        snapshot.delete(deploymentId);
+    }
+
+}
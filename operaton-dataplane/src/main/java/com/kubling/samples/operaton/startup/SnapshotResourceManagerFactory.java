@@ -0,0 +1,25 @@
+package com.kubling.samples.operaton.startup;
+
+import org.operaton.bpm.engine.impl.interceptor.Session;
+import org.operaton.bpm.engine.impl.interceptor.SessionFactory;
+import org.operaton.bpm.engine.impl.persistence.entity.ResourceManager;
+
+public class SnapshotResourceManagerFactory implements SessionFactory {
+
+    private final DeploymentResourceSnapshot snapshot;
+
+    public SnapshotResourceManagerFactory(DeploymentResourceSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public Class<?> getSessionType() {
+        return ResourceManager.class;
+    }
+
+    @Override
+    public Session openSession() {
+        return new SnapshotResourceManager(snapshot);
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.kubling.samples.operaton.startup;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Records how long each engine bootstrap phase takes.
+ */
+@Slf4j
+public class StartupTimings {
+
+    private final Map<String, Duration> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    public void time(String phase, Runnable action) {
+        time(phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T time(String phase, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            phases.merge(phase, Duration.ofNanos(System.nanoTime() - start), Duration::plus);
+        }
+    }
+
+    public Map<String, Duration> getPhases() {
+        synchronized (phases) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+        }
+    }
+
+    public void report() {
+        synchronized (phases) {
+            log.info("Engine startup phases: {}", phases.entrySet().stream()
+                    .map(phase -> "%s=%dms".formatted(phase.getKey(), phase.getValue().toMillis()))
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+}
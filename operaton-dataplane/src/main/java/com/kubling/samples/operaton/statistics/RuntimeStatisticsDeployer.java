@@ -0,0 +1,106 @@
+package com.kubling.samples.operaton.statistics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.SqlSession;
+import org.operaton.bpm.engine.impl.context.Context;
+import org.operaton.bpm.engine.impl.db.ListQueryParameterObject;
+import org.operaton.bpm.engine.impl.interceptor.CommandContext;
+import org.operaton.bpm.engine.impl.interceptor.CommandExecutor;
+import org.operaton.bpm.engine.impl.persistence.deploy.Deployer;
+import org.operaton.bpm.engine.impl.persistence.entity.DeploymentEntity;
+import org.operaton.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates the counter rows of process definitions, all stripes of them, so that the {@link RuntimeStatisticsSession}
+ * only ever increments existing rows.
+ * <p>
+ * New definitions get zero rows in the deploying transaction. The deployer also runs whenever a node loads a
+ * definition into its deployment cache, which happens before it can start or continue any instance of it. A
+ * definition without rows at that point was deployed before the store was enabled, its rows are seeded once from
+ * ACT_RU_EXECUTION, in a transaction of its own: when nodes load the definition at the same time, the ones losing
+ * the race on the primary key only lose that transaction and find the rows of the winner.
+ * <p>
+ * Like the listeners, the seed leaves out executions waiting for an async continuation, so activities with
+ * {@code asyncBefore} are only counted once their job runs, unlike in the engine's statistics.
+ */
+@Slf4j
+public class RuntimeStatisticsDeployer implements Deployer {
+
+    @Override
+    public void deploy(DeploymentEntity deployment) {
+        List<ProcessDefinitionEntity> definitions = deployment.getDeployedArtifacts(ProcessDefinitionEntity.class);
+        if (definitions == null) {
+            return;
+        }
+        CommandContext commandContext = Context.getCommandContext();
+        for (ProcessDefinitionEntity definition : definitions) {
+            if (deployment.isNew()) {
+                insertCounters(commandContext, definition, Map.of());
+            } else if (!hasCounters(commandContext, definition)) {
+                seedCounters(definition);
+            }
+        }
+    }
+
+    private static void seedCounters(ProcessDefinitionEntity definition) {
+        CommandExecutor commandExecutor = Context.getProcessEngineConfiguration().getCommandExecutorTxRequiresNew();
+        try {
+            commandExecutor.execute(commandContext -> {
+                if (!hasCounters(commandContext, definition)) {
+                    log.info("Seeding runtime statistics counters of {}", definition.getId());
+                    insertCounters(commandContext, definition, seed(commandContext, definition));
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            if (!commandExecutor.execute(commandContext -> hasCounters(commandContext, definition))) {
+                throw e;
+            }
+            log.debug("Runtime statistics counters of {} were seeded concurrently", definition.getId());
+        }
+    }
+
+    private static boolean hasCounters(CommandContext commandContext, ProcessDefinitionEntity definition) {
+        Long count = (Long) commandContext.getDbEntityManager().selectOne("selectRuntimeStatisticsCounterCount",
+                new ListQueryParameterObject(definition.getId(), 0, 1));
+        return count != null && count > 0;
+    }
+
+    private static Map<String, Long> seed(CommandContext commandContext, ProcessDefinitionEntity definition) {
+        List<Map<String, Object>> rows = commandContext.getDbEntityManager().selectList("selectRuntimeStatisticsSeed",
+                new ListQueryParameterObject(definition.getId(), 0, Integer.MAX_VALUE));
+        Map<String, Long> instances = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            instances.put((String) row.get("ACT_ID_"), ((Number) row.get("INSTANCES_")).longValue());
+        }
+        return instances;
+    }
+
+    private static void insertCounters(CommandContext commandContext, ProcessDefinitionEntity definition,
+                                       Map<String, Long> instances) {
+        Set<String> activityIds = new LinkedHashSet<>();
+        activityIds.add(RuntimeStatisticsSession.PROCESS_COUNTER);
+        activityIds.addAll(RuntimeStatisticsParseListener.getCountedActivities(definition));
+
+        SqlSession sqlSession = commandContext.getDbSqlSession().getSqlSession();
+        for (String activityId : activityIds) {
+            for (int stripe = 0; stripe < RuntimeStatisticsSession.STRIPES; stripe++) {
+                Map<String, Object> parameter = new HashMap<>();
+                parameter.put("processDefinitionId", definition.getId());
+                parameter.put("activityId", activityId);
+                parameter.put("stripe", stripe);
+                // the seed goes to the first stripe, the others start at zero
+                parameter.put("instances", stripe == 0 ? instances.getOrDefault(activityId, 0L) : 0L);
+                sqlSession.insert("insertRuntimeStatisticsCounter", parameter);
+            }
+        }
+        sqlSession.flushStatements();
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.kubling.samples.operaton.statistics;
+
+import org.operaton.bpm.engine.delegate.DelegateExecution;
+import org.operaton.bpm.engine.delegate.ExecutionListener;
+
+/**
+ * Counts an activity, or the process itself, up on start and down on end. Registered as built-in listener, so it
+ * also runs when an instance is cancelled or modified with {@code skipCustomListeners}.
+ */
+public class RuntimeStatisticsListener implements ExecutionListener {
+
+    private final String activityId;
+    private final long delta;
+
+    private RuntimeStatisticsListener(String activityId, long delta) {
+        this.activityId = activityId;
+        this.delta = delta;
+    }
+
+    public static RuntimeStatisticsListener onStart(String activityId) {
+        return new RuntimeStatisticsListener(activityId, 1);
+    }
+
+    public static RuntimeStatisticsListener onEnd(String activityId) {
+        return new RuntimeStatisticsListener(activityId, -1);
+    }
+
+    @Override
+    public void notify(DelegateExecution execution) {
+        RuntimeStatisticsSession.current().add(execution.getProcessDefinitionId(), activityId, delta);
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.kubling.samples.operaton.statistics;
+
+import org.operaton.bpm.engine.delegate.ExecutionListener;
+import org.operaton.bpm.engine.impl.bpmn.behavior.InclusiveGatewayActivityBehavior;
+import org.operaton.bpm.engine.impl.bpmn.behavior.ParallelGatewayActivityBehavior;
+import org.operaton.bpm.engine.impl.bpmn.parser.AbstractBpmnParseListener;
+import org.operaton.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.operaton.bpm.engine.impl.pvm.process.ActivityImpl;
+import org.operaton.bpm.engine.impl.pvm.process.ScopeImpl;
+import org.operaton.bpm.engine.impl.util.xml.Element;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Attaches the {@link RuntimeStatisticsListener} to every parsed process definition and to the activities whose
+ * instances the engine statistics count.
+ * <p>
+ * Those are the leaf activities, the ones an active execution can stay in. Embedded subprocesses and
+ * multi-instance bodies are left out, their executions are inactive while the inner activities run, and so are
+ * parallel and inclusive gateways, where every arriving token starts the gateway but only the last one ends it.
+ * Executions waiting for an async continuation in front of an activity are not counted, its start listener only
+ * runs with the job. The counted activity ids are kept as property of the definition for the {@link RuntimeStatisticsDeployer}.
+ */
+public class RuntimeStatisticsParseListener extends AbstractBpmnParseListener {
+
+    public static final String COUNTED_ACTIVITIES_PROPERTY = "kublingStatisticsActivities";
+
+    @Override
+    public void parseProcess(Element processElement, ProcessDefinitionEntity processDefinition) {
+        processDefinition.addBuiltInListener(ExecutionListener.EVENTNAME_START,
+                RuntimeStatisticsListener.onStart(RuntimeStatisticsSession.PROCESS_COUNTER));
+        processDefinition.addBuiltInListener(ExecutionListener.EVENTNAME_END,
+                RuntimeStatisticsListener.onEnd(RuntimeStatisticsSession.PROCESS_COUNTER));
+
+        List<String> counted = new ArrayList<>();
+        attach(processDefinition, counted);
+        processDefinition.setProperty(COUNTED_ACTIVITIES_PROPERTY, counted);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<String> getCountedActivities(ScopeImpl processDefinition) {
+        Object counted = processDefinition.getProperty(COUNTED_ACTIVITIES_PROPERTY);
+        return counted == null ? List.of() : (List<String>) counted;
+    }
+
+    private static void attach(ScopeImpl scope, List<String> counted) {
+        for (ActivityImpl activity : scope.getActivities()) {
+            if (!activity.getActivities().isEmpty()) {
+                attach(activity, counted);
+            } else if (!(activity.getActivityBehavior() instanceof ParallelGatewayActivityBehavior)
+                    && !(activity.getActivityBehavior() instanceof InclusiveGatewayActivityBehavior)) {
+                activity.addBuiltInListener(ExecutionListener.EVENTNAME_START,
+                        RuntimeStatisticsListener.onStart(activity.getId()));
+                activity.addBuiltInListener(ExecutionListener.EVENTNAME_END,
+                        RuntimeStatisticsListener.onEnd(activity.getId()));
+                counted.add(activity.getId());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.kubling.samples.operaton.statistics;
+
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.SqlSession;
+import org.operaton.bpm.engine.ProcessEngineException;
+import org.operaton.bpm.engine.impl.context.Context;
+import org.operaton.bpm.engine.impl.interceptor.Session;
+import org.operaton.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Collects the counter changes of one command and writes them to ACT_RU_STATS_COUNTER when the command context
+ * flushes, in the same transaction as the executions they count.
+ * <p>
+ * Changes are summed per process definition and activity first, so activities that start and end within the
+ * command, like service tasks and gateways of a straight-through section, cost no write at all. Only activities
+ * where the instance stays, typically wait states, and process starts and ends reach the table, as one
+ * {@code INSTANCES_ = INSTANCES_ + delta} update per counter.
+ * <p>
+ * Every counter is split into {@value #STRIPES} rows that are summed on read. A command writes all of its counters
+ * to one stripe picked at random and in a fixed order, so that concurrent commands rarely wait for each other on
+ * the counter of a definition and never lock the same rows in opposite order.
+ */
+public class RuntimeStatisticsSession implements Session {
+
+    /** {@code ACT_ID_} of the counter holding the running process instances of a definition. */
+    public static final String PROCESS_COUNTER = "#process";
+
+    /** Rows per counter, {@code STRIPE_} 0 to {@code STRIPES - 1}. */
+    public static final int STRIPES = 8;
+
+    private static final Comparator<Counter> ORDER = Comparator.comparing(Counter::processDefinitionId)
+            .thenComparing(Counter::activityId);
+
+    private final Map<Counter, Long> deltas = new TreeMap<>(ORDER);
+    private final int stripe = ThreadLocalRandom.current().nextInt(STRIPES);
+
+    public void add(String processDefinitionId, String activityId, long delta) {
+        deltas.merge(new Counter(processDefinitionId, activityId), delta, Long::sum);
+    }
+
+    public static RuntimeStatisticsSession current() {
+        return Context.getCommandContext().getSession(RuntimeStatisticsSession.class);
+    }
+
+    @Override
+    public void flush() {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        SqlSession sqlSession = Context.getCommandContext().getDbSqlSession().getSqlSession();
+        List<Counter> written = new ArrayList<>();
+        List<Integer> updateCounts = new ArrayList<>();
+        boolean batched = false;
+        for (Map.Entry<Counter, Long> entry : deltas.entrySet()) {
+            if (entry.getValue() != 0) {
+                Map<String, Object> parameter = new HashMap<>();
+                parameter.put("processDefinitionId", entry.getKey().processDefinitionId());
+                parameter.put("activityId", entry.getKey().activityId());
+                parameter.put("stripe", stripe);
+                parameter.put("delta", entry.getValue());
+                int updateCount = sqlSession.update("updateRuntimeStatisticsCounter", parameter);
+                batched |= updateCount == BatchExecutor.BATCH_UPDATE_RETURN_VALUE;
+                written.add(entry.getKey());
+                updateCounts.add(updateCount);
+            }
+        }
+        // with JDBC batching the updates would otherwise wait for a flush that already happened
+        List<BatchResult> results = sqlSession.flushStatements();
+        if (batched) {
+            updateCounts.clear();
+            results.forEach(result -> {
+                for (int count : result.getUpdateCounts()) {
+                    updateCounts.add(count);
+                }
+            });
+        }
+        for (int i = 0; i < written.size() && i < updateCounts.size(); i++) {
+            if (updateCounts.get(i) == 0) {
+                checkCounterExists(written.get(i));
+            }
+        }
+        deltas.clear();
+    }
+
+    @Override
+    public void close() {
+        deltas.clear();
+    }
+
+    /**
+     * A counted activity without a counter row would lose the change for good, the transaction fails instead.
+     * Changes of activities that are not counted, like those of bulk deletions, are ignored.
+     */
+    private static void checkCounterExists(Counter counter) {
+        ProcessDefinitionEntity definition = Context.getProcessEngineConfiguration()
+                .getDeploymentCache()
+                .findDeployedProcessDefinitionById(counter.processDefinitionId());
+        if (PROCESS_COUNTER.equals(counter.activityId())
+                || RuntimeStatisticsParseListener.getCountedActivities(definition).contains(counter.activityId())) {
+            throw new ProcessEngineException("Runtime statistics counter of activity '" + counter.activityId()
+                    + "' of process definition '" + counter.processDefinitionId() + "' does not exist");
+        }
+    }
+
+    private record Counter(String processDefinitionId, String activityId) {
+    }
+
+}
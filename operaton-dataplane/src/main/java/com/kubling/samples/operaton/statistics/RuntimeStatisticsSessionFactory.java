@@ -0,0 +1,18 @@
+package com.kubling.samples.operaton.statistics;
+
+import org.operaton.bpm.engine.impl.interceptor.Session;
+import org.operaton.bpm.engine.impl.interceptor.SessionFactory;
+
+public class RuntimeStatisticsSessionFactory implements SessionFactory {
+
+    @Override
+    public Class<?> getSessionType() {
+        return RuntimeStatisticsSession.class;
+    }
+
+    @Override
+    public Session openSession() {
+        return new RuntimeStatisticsSession();
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.kubling.samples.operaton.stp;
+
+import org.operaton.bpm.engine.impl.context.Context;
+import org.operaton.bpm.engine.impl.history.event.HistoricVariableUpdateEventEntity;
+import org.operaton.bpm.engine.impl.history.event.HistoryEvent;
+import org.operaton.bpm.engine.impl.history.handler.HistoryEventHandler;
+import org.operaton.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filters the history of straight-through definitions, so that such instances reach the data plane with as few
+ * rows as possible: either all of it is dropped, or only the variable updates of variables outside the
+ * definition's history profile (see {@link StraightThroughParseListener}).
+ * <p>
+ * The filter of a definition is resolved from the deployment cache on its first event and kept per definition id,
+ * definitions never change their classification once parsed. Only installed when suppression or transient variables
+ * are configured.
+ */
+public class StraightThroughHistoryEventHandler implements HistoryEventHandler {
+
+    private static final DefinitionFilter UNFILTERED = new DefinitionFilter(false, null);
+
+    private final HistoryEventHandler delegate;
+    private final boolean historySuppressed;
+    private final StraightThroughRegistry registry;
+
+    private final Map<String, DefinitionFilter> filters = new ConcurrentHashMap<>();
+
+    public StraightThroughHistoryEventHandler(HistoryEventHandler delegate, boolean historySuppressed,
+                                              StraightThroughRegistry registry) {
+        this.delegate = delegate;
+        this.historySuppressed = historySuppressed;
+        this.registry = registry;
+    }
+
+    @Override
+    public void handleEvent(HistoryEvent historyEvent) {
+        DefinitionFilter filter = filter(historyEvent);
+        if (!filter.straightThrough()) {
+            delegate.handleEvent(historyEvent);
+        } else if (!historySuppressed && !isTransientVariable(historyEvent, filter)) {
+            delegate.handleEvent(historyEvent);
+        }
+    }
+
+    @Override
+    public void handleEvents(List<HistoryEvent> historyEvents) {
+        historyEvents.forEach(this::handleEvent);
+    }
+
+    private boolean isTransientVariable(HistoryEvent historyEvent, DefinitionFilter filter) {
+        if (!(historyEvent instanceof HistoricVariableUpdateEventEntity variableUpdate)
+                || filter.historyVariables() == null
+                || filter.historyVariables().contains(variableUpdate.getVariableName())) {
+            return false;
+        }
+        registry.variableHistorySkipped();
+        return true;
+    }
+
+    private DefinitionFilter filter(HistoryEvent historyEvent) {
+        String processDefinitionId = historyEvent.getProcessDefinitionId();
+        if (processDefinitionId == null) {
+            return UNFILTERED;
+        }
+        DefinitionFilter filter = filters.get(processDefinitionId);
+        if (filter == null) {
+            if (Context.getProcessEngineConfiguration() == null) {
+                return UNFILTERED;
+            }
+            ProcessDefinitionEntity processDefinition = Context.getProcessEngineConfiguration()
+                    .getDeploymentCache()
+                    .findDeployedProcessDefinitionById(processDefinitionId);
+            filter = StraightThroughParseListener.isStraightThrough(processDefinition)
+                    ? new DefinitionFilter(true, StraightThroughParseListener.getHistoryVariables(processDefinition))
+                    : UNFILTERED;
+            filters.put(processDefinitionId, filter);
+        }
+        return filter;
+    }
+
+    /**
+     * @param historyVariables the variables that keep their history, {@code null} if all do
+     */
+    private record DefinitionFilter(boolean straightThrough, Set<String> historyVariables) {
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.kubling.samples.operaton.stp;
+
+import org.operaton.bpm.engine.delegate.DelegateExecution;
+import org.operaton.bpm.engine.delegate.ExecutionListener;
+import org.operaton.bpm.engine.impl.cfg.TransactionState;
+import org.operaton.bpm.engine.impl.context.Context;
+import org.operaton.bpm.engine.impl.interceptor.CommandContext;
+import org.operaton.bpm.engine.impl.persistence.entity.ExecutionEntity;
+
+/**
+ * Tracks whether instances of straight-through definitions actually complete within the starting command.
+ * <p>
+ * Executions and variables created and removed in the same command never leave the engine's entity cache,
+ * so a completed instance only reaches the data plane through history. An instance that is still active when
+ * the transaction commits, e.g. because a delegate failed over to an error path with a wait state, is flushed
+ * to ACT_RU_* as usual and counted as a fallback.
+ */
+public class StraightThroughInstanceListener implements ExecutionListener {
+
+    private final StraightThroughRegistry registry;
+
+    public StraightThroughInstanceListener(StraightThroughRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void notify(DelegateExecution execution) {
+        CommandContext commandContext = Context.getCommandContext();
+        if (commandContext == null || !(execution instanceof ExecutionEntity processInstance)) {
+            return;
+        }
+
+        commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTING, committing -> {
+            if (processInstance.isEnded()) {
+                registry.ephemeralInstanceCompleted(processInstance.getProcessDefinitionId());
+            } else {
+                registry.persistedFallback(processInstance.getProcessDefinitionId(), processInstance.getId());
+            }
+        });
+    }
+
+}
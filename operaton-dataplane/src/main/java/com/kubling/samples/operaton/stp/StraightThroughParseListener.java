@@ -0,0 +1,133 @@
+package com.kubling.samples.operaton.stp;
+
+import com.kubling.samples.operaton.history.HistoryProfile;
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.delegate.ExecutionListener;
+import org.operaton.bpm.engine.impl.bpmn.behavior.CallableElementActivityBehavior;
+import org.operaton.bpm.engine.impl.bpmn.behavior.EventBasedGatewayActivityBehavior;
+import org.operaton.bpm.engine.impl.bpmn.behavior.ExternalTaskActivityBehavior;
+import org.operaton.bpm.engine.impl.bpmn.behavior.IntermediateCatchEventActivityBehavior;
+import org.operaton.bpm.engine.impl.bpmn.behavior.IntermediateConditionalEventBehavior;
+import org.operaton.bpm.engine.impl.bpmn.behavior.ReceiveTaskActivityBehavior;
+import org.operaton.bpm.engine.impl.bpmn.behavior.UserTaskActivityBehavior;
+import org.operaton.bpm.engine.impl.bpmn.parser.AbstractBpmnParseListener;
+import org.operaton.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.operaton.bpm.engine.impl.pvm.delegate.ActivityBehavior;
+import org.operaton.bpm.engine.impl.pvm.process.ActivityImpl;
+import org.operaton.bpm.engine.impl.pvm.process.ScopeImpl;
+import org.operaton.bpm.engine.impl.util.xml.Element;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Classifies every parsed process definition as straight-through (no activity can leave the instance waiting)
+ * or not, and attaches the {@link StraightThroughInstanceListener} to straight-through definitions.
+ * <p>
+ * The classification is stored as a property of the definition, so it travels with the deployment cache entry
+ * and is recomputed whenever the definition is parsed again.
+ * <p>
+ * Variables of straight-through definitions can be made transient for history: only the variables of the
+ * definition's {@link HistoryProfile} get ACT_HI_VARINST and ACT_HI_DETAIL rows, see
+ * {@link StraightThroughHistoryEventHandler}, none if it has no profile. Their runtime rows are created and removed
+ * within the starting command already. With transient variables enabled in the engine configuration, a process can
+ * opt out with the extension property {@code kubling.transientVariables} set to {@code false}.
+ */
+@Slf4j
+public class StraightThroughParseListener extends AbstractBpmnParseListener {
+
+    public static final String STRAIGHT_THROUGH_PROPERTY = "kublingStraightThrough";
+    public static final String HISTORY_VARIABLES_PROPERTY = "kublingHistoryVariables";
+
+    public static final String TRANSIENT_VARIABLES_EXTENSION = "kubling.transientVariables";
+
+    private static final List<Class<? extends ActivityBehavior>> WAIT_STATE_BEHAVIORS = List.of(
+            UserTaskActivityBehavior.class,
+            ReceiveTaskActivityBehavior.class,
+            IntermediateCatchEventActivityBehavior.class,
+            IntermediateConditionalEventBehavior.class,
+            EventBasedGatewayActivityBehavior.class,
+            CallableElementActivityBehavior.class,
+            ExternalTaskActivityBehavior.class
+    );
+
+    private final StraightThroughRegistry registry;
+    private final boolean transientVariables;
+    private final Map<String, HistoryProfile> historyProfiles;
+
+    public StraightThroughParseListener(StraightThroughRegistry registry, boolean transientVariables,
+                                        Map<String, HistoryProfile> historyProfiles) {
+        this.registry = registry;
+        this.transientVariables = transientVariables;
+        this.historyProfiles = Map.copyOf(historyProfiles);
+    }
+
+    @Override
+    public void parseProcess(Element processElement, ProcessDefinitionEntity processDefinition) {
+        String waitState = findWaitState(processDefinition);
+        boolean straightThrough = waitState == null;
+
+        processDefinition.setProperty(STRAIGHT_THROUGH_PROPERTY, straightThrough);
+        registry.register(processDefinition.getKey(), straightThrough);
+
+        if (straightThrough) {
+            processDefinition.addListener(ExecutionListener.EVENTNAME_START, new StraightThroughInstanceListener(registry));
+
+            // the history filter is only installed with transient variables enabled, so a process can only opt out
+            String transientExtension = extensionProperty(processElement, TRANSIENT_VARIABLES_EXTENSION);
+            if (transientVariables && (transientExtension == null || Boolean.parseBoolean(transientExtension))) {
+                HistoryProfile profile = historyProfiles.getOrDefault(processDefinition.getKey(), HistoryProfile.FULL);
+                processDefinition.setProperty(HISTORY_VARIABLES_PROPERTY, profile.variables());
+            }
+        }
+        log.debug("Process definition '{}' straight-through={}{}", processDefinition.getKey(), straightThrough,
+                straightThrough ? "" : " (waits at '%s')".formatted(waitState));
+    }
+
+    public static boolean isStraightThrough(ScopeImpl processDefinition) {
+        return Boolean.TRUE.equals(processDefinition.getProperty(STRAIGHT_THROUGH_PROPERTY));
+    }
+
+    /**
+     * Returns the variables that keep their history, or {@code null} if all do.
+     */
+    @SuppressWarnings("unchecked")
+    public static Set<String> getHistoryVariables(ScopeImpl processDefinition) {
+        return (Set<String>) processDefinition.getProperty(HISTORY_VARIABLES_PROPERTY);
+    }
+
+    private static String extensionProperty(Element processElement, String name) {
+        Element extensionElements = processElement.element("extensionElements");
+        Element properties = extensionElements == null ? null : extensionElements.element("properties");
+        if (properties == null) {
+            return null;
+        }
+        return properties.elements("property").stream()
+                .filter(property -> name.equals(property.attribute("name")))
+                .map(property -> property.attribute("value"))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Returns the id of the first activity that can make an instance wait, or {@code null} if there is none.
+     */
+    private static String findWaitState(ScopeImpl scope) {
+        for (ActivityImpl activity : scope.getActivities()) {
+            if (activity.isAsyncBefore() || activity.isAsyncAfter() || isWaitState(activity.getActivityBehavior())) {
+                return activity.getId();
+            }
+            String nested = findWaitState(activity);
+            if (nested != null) {
+                return nested;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isWaitState(ActivityBehavior behavior) {
+        return behavior != null && WAIT_STATE_BEHAVIORS.stream().anyMatch(type -> type.isInstance(behavior));
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.kubling.samples.operaton.stp;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the straight-through classification per process definition key and counts how instances ended up.
+ */
+@Slf4j
+public class StraightThroughRegistry {
+
+    private final Map<String, Boolean> straightThroughByKey = new ConcurrentHashMap<>();
+    private final AtomicLong ephemeralInstances = new AtomicLong();
+    private final AtomicLong persistedFallbacks = new AtomicLong();
+    private final AtomicLong skippedVariableHistory = new AtomicLong();
+
+    void register(String processDefinitionKey, boolean straightThrough) {
+        straightThroughByKey.put(processDefinitionKey, straightThrough);
+    }
+
+    void ephemeralInstanceCompleted(String processDefinitionId) {
+        ephemeralInstances.incrementAndGet();
+    }
+
+    void persistedFallback(String processDefinitionId, String processInstanceId) {
+        persistedFallbacks.incrementAndGet();
+        log.debug("Straight-through instance {} of {} is still active at commit, persisting runtime state",
+                processInstanceId, processDefinitionId);
+    }
+
+    void variableHistorySkipped() {
+        skippedVariableHistory.incrementAndGet();
+    }
+
+    public boolean isStraightThrough(String processDefinitionKey) {
+        return straightThroughByKey.getOrDefault(processDefinitionKey, false);
+    }
+
+    public Map<String, Boolean> getDefinitions() {
+        return Map.copyOf(straightThroughByKey);
+    }
+
+    public long getEphemeralInstances() {
+        return ephemeralInstances.get();
+    }
+
+    public long getPersistedFallbacks() {
+        return persistedFallbacks.get();
+    }
+
+    public long getSkippedVariableHistory() {
+        return skippedVariableHistory.get();
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.kubling.samples.operaton.benchmark;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.StartEmbeddedOperaton;
+import com.kubling.samples.operaton.support.DataPlaneContainersConfig;
+import com.kubling.samples.operaton.variable.CompactValueSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.operaton.bpm.engine.RepositoryService;
+import org.operaton.bpm.engine.RuntimeService;
+import org.operaton.bpm.engine.variable.Variables;
+import org.operaton.bpm.engine.variable.value.ObjectValue;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and reads a {@link BigDecimal} object variable the way {@code CreateOrderDelegate} does, once through
+ * Java serialization (variable row plus ACT_GE_BYTEARRAY row) and once through {@link CompactValueSerializer}
+ * (variable row only), against the Testcontainers data plane.
+ * <p>
+ * Run it through {@link #main(String[])} from the test classpath; add {@code -prof gc} to the runner options
+ * to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CompactValueSerializerBenchmark {
+
+    private static final BigDecimal TOTAL_AMOUNT = new BigDecimal("1234.50");
+
+    @Param({"application/x-java-serialized-object", CompactValueSerializer.FORMAT})
+    String serializationDataFormat;
+
+    private ConfigurableApplicationContext context;
+    private RuntimeService runtimeService;
+    private String processInstanceId;
+
+    @Setup
+    public void setup() {
+        System.setProperty("KUBLING_PORT", String.valueOf(DataPlaneContainersConfig.getKublingPort()));
+        System.setProperty("KUBLING_COMPACT_VALUES", "true");
+
+        context = new SpringApplicationBuilder(StartEmbeddedOperaton.class)
+                .web(WebApplicationType.NONE)
+                .run();
+        runtimeService = context.getBean(RuntimeService.class);
+
+        AbstractOperatonIntegrationTest.deployIfMissing(
+                context.getBean(RepositoryService.class), "minimal-process-with-wait", "minimal-process-with-wait");
+        processInstanceId = runtimeService.startProcessInstanceByKey("Process_with_wait").getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        runtimeService.deleteProcessInstance(processInstanceId, "benchmark finished");
+        context.close();
+        System.clearProperty("KUBLING_COMPACT_VALUES");
+    }
+
+    @Benchmark
+    public Object writeAndRead() {
+        runtimeService.setVariable(processInstanceId, "totalAmount", Variables.objectValue(TOTAL_AMOUNT)
+                .serializationDataFormat(serializationDataFormat)
+                .create());
+        ObjectValue value = runtimeService.getVariableTyped(processInstanceId, "totalAmount");
+        return value.getValue();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CompactValueSerializerBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.kubling.samples.operaton.benchmark;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.StartEmbeddedOperaton;
+import com.kubling.samples.operaton.cache.LatestDefinitionDeploymentCache;
+import com.kubling.samples.operaton.support.DataPlaneContainersConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.operaton.bpm.engine.RepositoryService;
+import org.operaton.bpm.engine.RuntimeService;
+import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.operaton.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures latest-version resolution by key, alone and as part of a full process start, with and without
+ * {@link LatestDefinitionDeploymentCache}, against the Testcontainers data plane.
+ * <p>
+ * The difference of the {@code resolveLatest} scores is the round trip saved per
+ * {@code startProcessInstanceByKey}; multiplied by the order rate it gives the time saved per second of load.
+ * Run it through {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class LatestDefinitionResolverBenchmark {
+
+    private static final String PROCESS_KEY = "Process_1kaebg3";
+
+    @Param({"false", "true"})
+    boolean resolverEnabled;
+
+    private ConfigurableApplicationContext context;
+    private ProcessEngineConfigurationImpl configuration;
+    private RuntimeService runtimeService;
+
+    @Setup
+    public void setup() {
+        System.setProperty("KUBLING_PORT", String.valueOf(DataPlaneContainersConfig.getKublingPort()));
+        System.setProperty("KUBLING_LATEST_DEFINITION_RESOLVER", String.valueOf(resolverEnabled));
+
+        context = new SpringApplicationBuilder(StartEmbeddedOperaton.class)
+                .web(WebApplicationType.NONE)
+                .run();
+        configuration = context.getBean(ProcessEngineConfigurationImpl.class);
+        runtimeService = context.getBean(RuntimeService.class);
+
+        AbstractOperatonIntegrationTest.deployIfMissing(
+                context.getBean(RepositoryService.class), "minimal-process", "minimal-process");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        System.clearProperty("KUBLING_LATEST_DEFINITION_RESOLVER");
+    }
+
+    @Benchmark
+    public ProcessDefinitionEntity resolveLatest() {
+        return configuration.getCommandExecutorTxRequired().execute(commandContext ->
+                configuration.getDeploymentCache().findDeployedLatestProcessDefinitionByKey(PROCESS_KEY));
+    }
+
+    @Benchmark
+    public String startProcessInstance() {
+        return runtimeService.startProcessInstanceByKey(PROCESS_KEY).getId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LatestDefinitionResolverBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
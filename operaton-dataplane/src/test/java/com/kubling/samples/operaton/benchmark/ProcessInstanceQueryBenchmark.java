@@ -0,0 +1,111 @@
+package com.kubling.samples.operaton.benchmark;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.StartEmbeddedOperaton;
+import com.kubling.samples.operaton.db.CrossBackendJoinAudit;
+import com.kubling.samples.operaton.support.DataPlaneContainersConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.operaton.bpm.engine.RepositoryService;
+import org.operaton.bpm.engine.RuntimeService;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the process instance query by definition key before and after the removal of its cross-backend join
+ * (see {@link CrossBackendJoinAudit}), against the Testcontainers data plane.
+ * <p>
+ * {@code join} runs the statement as it was, joining {@code ACT_RU_EXECUTION} with {@code ACT_RE_PROCDEF}, through
+ * a native query; {@code keyed} runs the query of the engine, which now looks up the definition ids first.
+ * {@code instances} running instances are started in setup, so the join has rows to fetch from the runtime
+ * backend. Run it through {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class ProcessInstanceQueryBenchmark {
+
+    private static final String PROCESS_KEY = "Process_with_wait";
+
+    private static final String JOIN_SQL = """
+            select RES.* from operaton.ACT_RU_EXECUTION RES
+            inner join operaton.ACT_RE_PROCDEF P on RES.PROC_DEF_ID_ = P.ID_
+            where RES.PARENT_ID_ is null and P.KEY_ = #{key}
+            order by RES.ID_ asc""";
+
+    @Param({"join", "keyed"})
+    String shape;
+
+    @Param({"100", "1000"})
+    int instances;
+
+    private ConfigurableApplicationContext context;
+    private RuntimeService runtimeService;
+
+    @Setup
+    public void setup() {
+        System.setProperty("KUBLING_PORT", String.valueOf(DataPlaneContainersConfig.getKublingPort()));
+
+        context = new SpringApplicationBuilder(StartEmbeddedOperaton.class)
+                .web(WebApplicationType.NONE)
+                .run();
+        runtimeService = context.getBean(RuntimeService.class);
+
+        AbstractOperatonIntegrationTest.deployIfMissing(
+                context.getBean(RepositoryService.class), "minimal-process-with-wait", "minimal-process-with-wait");
+        long running = runtimeService.createProcessInstanceQuery().processDefinitionKey(PROCESS_KEY).count();
+        for (long i = running; i < instances; i++) {
+            runtimeService.startProcessInstanceByKey(PROCESS_KEY);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProcessInstance> queryByKey() {
+        if (shape.equals("join")) {
+            return runtimeService.createNativeProcessInstanceQuery()
+                    .sql(JOIN_SQL)
+                    .parameter("key", PROCESS_KEY)
+                    .listPage(0, 50);
+        }
+        return runtimeService.createProcessInstanceQuery()
+                .processDefinitionKey(PROCESS_KEY)
+                .orderByProcessInstanceId().asc()
+                .listPage(0, 50);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProcessInstanceQueryBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
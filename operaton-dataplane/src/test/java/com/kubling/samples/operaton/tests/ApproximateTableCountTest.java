@@ -0,0 +1,56 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.db.ApproximateTableDataManager;
+import com.kubling.samples.operaton.db.GetExactTableCountCmd;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.ManagementService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApproximateTableCountTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @Autowired
+    private ManagementService managementService;
+
+    @BeforeAll
+    static void enableApproximateTableCount() {
+        System.setProperty("KUBLING_APPROXIMATE_TABLE_COUNT", "true");
+    }
+
+    @AfterAll
+    static void disableApproximateTableCount() {
+        System.clearProperty("KUBLING_APPROXIMATE_TABLE_COUNT");
+    }
+
+    @Test
+    void shouldUseApproximateTableDataManager() {
+        assertThat(configuration.getCommandExecutorTxRequired()
+                .execute(commandContext -> commandContext.getTableDataManager()))
+                .isInstanceOf(ApproximateTableDataManager.class);
+    }
+
+    @Test
+    void shouldCountMetadataTablesExactly() {
+        Map<String, Long> approximate = managementService.getTableCount();
+        Map<String, Long> exact = configuration.getCommandExecutorTxRequired().execute(new GetExactTableCountCmd());
+
+        assertThat(approximate.keySet()).containsExactlyInAnyOrderElementsOf(exact.keySet());
+        assertThat(approximate).allSatisfy((tableName, count) -> assertThat(count).isNotNegative());
+        // deployments are in the embedded store, which is always counted
+        approximate.entrySet().stream()
+                .filter(entry -> entry.getKey().toUpperCase().contains("ACT_RE_DEPLOYMENT"))
+                .forEach(entry -> assertThat(entry.getValue())
+                        .isEqualTo(repositoryService.createDeploymentQuery().count()));
+    }
+
+}
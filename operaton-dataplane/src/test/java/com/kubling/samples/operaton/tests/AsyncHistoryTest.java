@@ -0,0 +1,123 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.TaskService;
+import org.operaton.bpm.engine.history.HistoricActivityInstance;
+import org.operaton.bpm.engine.history.HistoricProcessInstance;
+import org.operaton.bpm.engine.history.HistoricTaskInstance;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.operaton.bpm.engine.task.Task;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncHistoryTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @Autowired
+    private TaskService taskService;
+
+    @BeforeAll
+    static void enableAsyncHistory() {
+        System.setProperty("KUBLING_ASYNC_HISTORY", "true");
+    }
+
+    @AfterAll
+    static void disableAsyncHistory() {
+        System.clearProperty("KUBLING_ASYNC_HISTORY");
+    }
+
+    @Test
+    void shouldEventuallyWriteHistoryInBackground() throws InterruptedException {
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+
+        HistoricProcessInstance history = null;
+        for (int i = 0; i < 50 && history == null; i++) {
+            history = historyService
+                    .createHistoricProcessInstanceQuery()
+                    .processInstanceId(instance.getId())
+                    .finished()
+                    .singleResult();
+            if (history == null) {
+                Thread.sleep(100);
+            }
+        }
+
+        assertThat(history).isNotNull();
+        assertThat(configuration.getAsyncHistoryEventHandler()).isNotNull();
+        assertThat(configuration.getAsyncHistoryEventHandler().getWrittenBatches()).isPositive();
+        assertThat(configuration.getAsyncHistoryEventHandler().getDroppedEvents()).isZero();
+    }
+
+    @Test
+    void shouldWriteStraightThroughActivitiesAsCompletedRows() throws InterruptedException {
+        long mergedBefore = configuration.getAsyncHistoryEventHandler().getMergedEvents();
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+
+        HistoricProcessInstance history = null;
+        for (int i = 0; i < 50 && history == null; i++) {
+            history = historyService
+                    .createHistoricProcessInstanceQuery()
+                    .processInstanceId(instance.getId())
+                    .finished()
+                    .singleResult();
+            if (history == null) {
+                Thread.sleep(100);
+            }
+        }
+
+        List<HistoricActivityInstance> activities = historyService.createHistoricActivityInstanceQuery()
+                .processInstanceId(instance.getId())
+                .list();
+
+        assertThat(history).isNotNull();
+        assertThat(history.getStartTime()).isNotNull();
+        assertThat(activities).isNotEmpty()
+                .allSatisfy(activity -> {
+                    assertThat(activity.getStartTime()).isNotNull();
+                    assertThat(activity.getEndTime()).isNotNull();
+                    assertThat(activity.getDurationInMillis()).isNotNull();
+                });
+        assertThat(configuration.getAsyncHistoryEventHandler().getMergedEvents())
+                .isGreaterThanOrEqualTo(mergedBefore + activities.size() + 1);
+    }
+
+    @Test
+    void shouldWriteTaskCompletionWithinTheSameBatch() throws InterruptedException {
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_with_wait");
+        Task task = taskService.createTaskQuery().processInstanceId(instance.getId()).singleResult();
+        // completed right away, so that the create and complete events end up in one batch of the writer
+        taskService.complete(task.getId());
+
+        HistoricProcessInstance history = null;
+        for (int i = 0; i < 50 && history == null; i++) {
+            history = historyService
+                    .createHistoricProcessInstanceQuery()
+                    .processInstanceId(instance.getId())
+                    .finished()
+                    .singleResult();
+            if (history == null) {
+                Thread.sleep(100);
+            }
+        }
+
+        HistoricTaskInstance historicTask = historyService.createHistoricTaskInstanceQuery()
+                .taskId(task.getId())
+                .singleResult();
+
+        assertThat(history).isNotNull();
+        assertThat(historicTask).isNotNull();
+        assertThat(historicTask.getStartTime()).isNotNull();
+        assertThat(historicTask.getEndTime()).isNotNull();
+        assertThat(historicTask.getDurationInMillis()).isNotNull();
+        assertThat(configuration.getAsyncHistoryEventHandler().getDroppedEvents()).isZero();
+    }
+}
@@ -0,0 +1,54 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.db.KublingDbSqlSessionFactory;
+import org.apache.ibatis.session.ExecutorType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchFlushTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @BeforeAll
+    static void enableBatchFlush() {
+        System.setProperty("KUBLING_BATCH_FLUSH", "true");
+    }
+
+    @AfterAll
+    static void disableBatchFlush() {
+        System.clearProperty("KUBLING_BATCH_FLUSH");
+    }
+
+    @Test
+    void shouldFlushRuntimeAndHistoryInFewerBatchesThanStatements() {
+        assertThat(configuration.getSqlSessionFactory().getConfiguration().getDefaultExecutorType())
+                .isEqualTo(ExecutorType.BATCH);
+        KublingDbSqlSessionFactory factory = (KublingDbSqlSessionFactory) configuration.getDbSqlSessionFactory();
+        long operations = factory.getOperations();
+        long batches = factory.getStatementBatches();
+
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_with_wait",
+                Map.of("customer", "ACME", "items", 3, "express", true));
+
+        assertThat(runtimeService.getVariables(instance.getId()))
+                .containsEntry("customer", "ACME")
+                .containsEntry("items", 3);
+        assertThat(historyService.createHistoricVariableInstanceQuery()
+                .processInstanceId(instance.getId())
+                .count()).isEqualTo(3);
+        assertThat(factory.getStatementBatches() - batches).isLessThan(factory.getOperations() - operations);
+        assertThat(factory.getUnverifiedOperations()).isZero();
+
+        runtimeService.deleteProcessInstance(instance.getId(), "test cleanup");
+    }
+}
@@ -0,0 +1,86 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.deletion.BulkDeletionResult;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.HistoryService;
+import org.operaton.bpm.engine.TaskService;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkDeletionTest extends AbstractOperatonIntegrationTest {
+
+    private static final String PROCESS_KEY = "Process_with_wait";
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Test
+    void shouldDeleteRunningInstancesAndTheirHistory() {
+        List<String> ids = startInstances(5);
+
+        BulkDeletionResult result = configuration.getBulkDeletion().deleteProcessInstances(ids);
+
+        assertThat(result.requested()).isEqualTo(5);
+        assertThat(result.deleted()).isEqualTo(5);
+        assertThat(result.instancesPerSecond()).isPositive();
+        assertThat(runtimeService.createProcessInstanceQuery().processInstanceIds(Set.copyOf(ids)).count()).isZero();
+        assertThat(taskService.createTaskQuery().processInstanceIdIn(ids.toArray(String[]::new)).count()).isZero();
+        assertThat(historyService.createHistoricProcessInstanceQuery()
+                .processInstanceIds(Set.copyOf(ids))
+                .count())
+                .isZero();
+    }
+
+    @Test
+    void shouldDeleteHistoryOfEndedInstancesOnly() {
+        List<String> ended = startInstances(3);
+        for (String id : ended) {
+            taskService.complete(taskService.createTaskQuery().processInstanceId(id).singleResult().getId());
+        }
+        String running = startInstances(1).get(0);
+        List<String> ids = new ArrayList<>(ended);
+        ids.add(running);
+
+        BulkDeletionResult result = configuration.getBulkDeletion().deleteHistoricProcessInstances(ids);
+
+        assertThat(result.deleted()).isEqualTo(3);
+        assertThat(historyService.createHistoricProcessInstanceQuery()
+                .processInstanceIds(Set.copyOf(ended))
+                .count())
+                .isZero();
+        assertThat(historyService.createHistoricTaskInstanceQuery()
+                .processInstanceIdIn(ended.toArray(String[]::new))
+                .count())
+                .isZero();
+        assertThat(historyService.createHistoricProcessInstanceQuery()
+                .processInstanceId(running)
+                .count())
+                .isOne();
+    }
+
+    private List<String> startInstances(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ProcessInstance instance = runtimeService.startProcessInstanceByKey(PROCESS_KEY,
+                    Map.of("bulk", i));
+            ids.add(instance.getId());
+        }
+        return ids;
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.bytearray.ByteArrayFileStore;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.ManagementService;
+import org.operaton.bpm.engine.variable.Variables;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteArrayStorageTest extends AbstractOperatonIntegrationTest {
+
+    private static final String PROCESS_KEY = "Process_with_wait";
+
+    private static Path storeDirectory;
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @Autowired
+    private ManagementService managementService;
+
+    @BeforeAll
+    static void enableByteArrayStorage() throws IOException {
+        storeDirectory = Files.createTempDirectory("kubling-bytearrays");
+        System.setProperty("KUBLING_BYTEARRAY_STORAGE", "true");
+        System.setProperty("KUBLING_BYTEARRAY_COMPRESSION_THRESHOLD", "256");
+        System.setProperty("KUBLING_BYTEARRAY_OFFLOAD_THRESHOLD", "65536");
+        System.setProperty("KUBLING_BYTEARRAY_STORE_DIR", storeDirectory.toString());
+    }
+
+    @AfterAll
+    static void disableByteArrayStorage() {
+        System.clearProperty("KUBLING_BYTEARRAY_STORAGE");
+        System.clearProperty("KUBLING_BYTEARRAY_COMPRESSION_THRESHOLD");
+        System.clearProperty("KUBLING_BYTEARRAY_OFFLOAD_THRESHOLD");
+        System.clearProperty("KUBLING_BYTEARRAY_STORE_DIR");
+    }
+
+    @Test
+    void shouldCompressLargeVariables() {
+        byte[] payload = new byte[16 * 1024];
+        Arrays.fill(payload, (byte) 'a');
+        long compressed = configuration.getByteArrayStorage().getCompressed();
+
+        String id = runtimeService.startProcessInstanceByKey(PROCESS_KEY,
+                Map.of("payload", Variables.byteArrayValue(payload))).getId();
+
+        assertThat(configuration.getByteArrayStorage().getCompressed()).isGreaterThan(compressed);
+        assertThat((byte[]) runtimeService.getVariable(id, "payload")).isEqualTo(payload);
+    }
+
+    @Test
+    void shouldOffloadPayloadsBeyondTheLimitToTheFileStore() throws IOException {
+        byte[] payload = new byte[128 * 1024];
+        new Random(42).nextBytes(payload);
+        long offloaded = configuration.getByteArrayStorage().getOffloaded();
+
+        String id = runtimeService.startProcessInstanceByKey(PROCESS_KEY,
+                Map.of("payload", Variables.byteArrayValue(payload))).getId();
+
+        assertThat(configuration.getByteArrayStorage().getOffloaded()).isGreaterThan(offloaded);
+        String digest = ByteArrayFileStore.digest(payload);
+        Path file = storeDirectory.resolve(digest.substring(0, 2)).resolve(digest);
+        assertThat(file).exists();
+        assertThat(Files.size(file)).isEqualTo(payload.length);
+        assertThat((byte[]) runtimeService.getVariable(id, "payload")).isEqualTo(payload);
+    }
+
+    @Test
+    void shouldRegisterTheSharedStore() throws IOException {
+        assertThat(managementService.getProperties().get(ByteArrayFileStore.STORE_PROPERTY))
+                .isEqualTo(Files.readString(storeDirectory.resolve(".kubling-store-id")).trim());
+    }
+
+    @Test
+    void shouldKeepSmallVariablesUnchanged() {
+        byte[] payload = {0, 'K', 'B', 'D', 1, 2, 3};
+
+        String id = runtimeService.startProcessInstanceByKey(PROCESS_KEY,
+                Map.of("payload", Variables.byteArrayValue(payload))).getId();
+
+        assertThat((byte[]) runtimeService.getVariable(id, "payload")).isEqualTo(payload);
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.variable.CompactValueSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.impl.persistence.entity.VariableInstanceEntity;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.operaton.bpm.engine.variable.Variables;
+import org.operaton.bpm.engine.variable.value.ObjectValue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactValueSerializerTest extends AbstractOperatonIntegrationTest {
+
+    @BeforeAll
+    static void enableCompactValues() {
+        System.setProperty("KUBLING_COMPACT_VALUES", "true");
+    }
+
+    @AfterAll
+    static void disableCompactValues() {
+        System.clearProperty("KUBLING_COMPACT_VALUES");
+    }
+
+    @Test
+    void shouldStoreBigDecimalInline() {
+        BigDecimal totalAmount = new BigDecimal("1234.50");
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_with_wait",
+                Variables.createVariables().putValue("totalAmount", Variables.objectValue(totalAmount)));
+
+        ObjectValue value = runtimeService.getVariableTyped(instance.getId(), "totalAmount");
+        VariableInstanceEntity row = (VariableInstanceEntity) runtimeService.createVariableInstanceQuery()
+                .processInstanceIdIn(instance.getId())
+                .variableName("totalAmount")
+                .singleResult();
+
+        assertThat(value.getValue()).isEqualTo(totalAmount);
+        assertThat(value.getSerializationDataFormat()).isEqualTo(CompactValueSerializer.FORMAT);
+        assertThat(row.getSerializerName()).isEqualTo(CompactValueSerializer.NAME);
+        assertThat(row.getByteArrayValueId()).isNull();
+        assertThat(row.getDoubleValue()).isEqualTo(1234.5);
+
+        runtimeService.deleteProcessInstance(instance.getId(), "test cleanup");
+    }
+
+    @Test
+    void shouldStoreBigDecimalBeyondDoubleRange() {
+        BigDecimal huge = new BigDecimal("1e400");
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_with_wait",
+                Variables.createVariables().putValue("huge", Variables.objectValue(huge)));
+
+        ObjectValue value = runtimeService.getVariableTyped(instance.getId(), "huge");
+        VariableInstanceEntity row = (VariableInstanceEntity) runtimeService.createVariableInstanceQuery()
+                .processInstanceIdIn(instance.getId())
+                .variableName("huge")
+                .singleResult();
+
+        assertThat(value.getValue()).isEqualTo(huge);
+        assertThat(row.getDoubleValue()).isNull();
+
+        runtimeService.deleteProcessInstance(instance.getId(), "test cleanup");
+    }
+
+    @Test
+    void shouldKeepJavaSerializationWhenRequested() {
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_with_wait",
+                Variables.createVariables()
+                        .putValue("dueDate", LocalDate.of(2025, 1, 31))
+                        .putValue("unitPrice", Variables.objectValue(new BigDecimal("9.99"))
+                                .serializationDataFormat(Variables.SerializationDataFormats.JAVA)
+                                .create()));
+
+        ObjectValue dueDate = runtimeService.getVariableTyped(instance.getId(), "dueDate");
+        ObjectValue unitPrice = runtimeService.getVariableTyped(instance.getId(), "unitPrice");
+
+        assertThat(dueDate.getValue()).isEqualTo(LocalDate.of(2025, 1, 31));
+        assertThat(dueDate.getSerializationDataFormat()).isEqualTo(CompactValueSerializer.FORMAT);
+        assertThat(unitPrice.getValue()).isEqualTo(new BigDecimal("9.99"));
+        assertThat(unitPrice.getSerializationDataFormat())
+                .isEqualTo(Variables.SerializationDataFormats.JAVA.getName());
+
+        runtimeService.deleteProcessInstance(instance.getId(), "test cleanup");
+    }
+
+    @Test
+    void shouldWriteSerializedValuesInCompactFormat() {
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_with_wait",
+                Variables.createVariables().putValue("totalAmount", Variables.serializedObjectValue("42.10")
+                        .serializationDataFormat(CompactValueSerializer.FORMAT)
+                        .objectTypeName(BigDecimal.class.getName())
+                        .create()));
+
+        ObjectValue value = runtimeService.getVariableTyped(instance.getId(), "totalAmount");
+        VariableInstanceEntity row = (VariableInstanceEntity) runtimeService.createVariableInstanceQuery()
+                .processInstanceIdIn(instance.getId())
+                .variableName("totalAmount")
+                .singleResult();
+
+        assertThat(value.getValue()).isEqualTo(new BigDecimal("42.10"));
+        assertThat(row.getSerializerName()).isEqualTo(CompactValueSerializer.NAME);
+        assertThat(row.getDoubleValue()).isEqualTo(42.1);
+
+        runtimeService.deleteProcessInstance(instance.getId(), "test cleanup");
+    }
+}
@@ -0,0 +1,102 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.db.CrossBackendJoinAudit;
+import com.kubling.samples.operaton.db.KublingBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.impl.ProcessInstanceQueryImpl;
+import org.operaton.bpm.engine.impl.util.ImmutablePair;
+import org.operaton.bpm.engine.repository.ProcessDefinition;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class CrossBackendJoinAuditTest extends AbstractOperatonIntegrationTest {
+
+    private static final String PROCESS_KEY = "Process_with_wait";
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @Test
+    void shouldKeepRuntimeQueriesOnOneBackend() {
+        List<CrossBackendJoinAudit.Finding> findings =
+                CrossBackendJoinAudit.audit(configuration.getSqlSessionFactory().getConfiguration());
+        log.info("{} statements may join across backends, {} always do:\n{}",
+                findings.size(),
+                findings.stream().filter(CrossBackendJoinAudit.Finding::isUnconditional).count(),
+                String.join("\n", findings.stream().map(Object::toString).toList()));
+
+        assertThat(findings)
+                .filteredOn(CrossBackendJoinAudit.Finding::isUnconditional)
+                .extracting(finding -> finding.statementId().substring(finding.statementId().lastIndexOf('.') + 1))
+                .doesNotContain(
+                        "selectProcessInstanceByQueryCriteria",
+                        "selectProcessInstanceCountByQueryCriteria",
+                        "selectProcessInstanceIdsByQueryCriteria",
+                        "selectExecutionsByQueryCriteria",
+                        "selectExecutionCountByQueryCriteria");
+
+        ProcessInstanceQueryImpl query = (ProcessInstanceQueryImpl) runtimeService.createProcessInstanceQuery()
+                .processDefinitionKey(PROCESS_KEY);
+        String sql = configuration.getSqlSessionFactory().getConfiguration()
+                .getMappedStatement("selectProcessInstanceByQueryCriteria")
+                .getBoundSql(query)
+                .getSql();
+        assertThat(sql).doesNotContainIgnoringCase("join operaton.ACT_RE_PROCDEF");
+        assertThat(CrossBackendJoinAudit.backendsOf(sql))
+                .containsExactlyInAnyOrder(KublingBackend.RUNTIME, KublingBackend.META);
+    }
+
+    @Test
+    void shouldFilterByDefinitionWithKeyedLookups() {
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey(PROCESS_KEY);
+        ProcessDefinition definition = repositoryService.getProcessDefinition(instance.getProcessDefinitionId());
+
+        assertThat(ids(runtimeService.createProcessInstanceQuery()
+                .processDefinitionKey(PROCESS_KEY).list())).contains(instance.getId());
+        assertThat(ids(runtimeService.createProcessInstanceQuery()
+                .processDefinitionKeyIn(PROCESS_KEY, "Process_1kaebg3").list())).contains(instance.getId());
+        assertThat(ids(runtimeService.createProcessInstanceQuery()
+                .processDefinitionKeyNotIn(PROCESS_KEY).list())).doesNotContain(instance.getId());
+        assertThat(ids(runtimeService.createProcessInstanceQuery()
+                .processDefinitionId(definition.getId()).list())).contains(instance.getId());
+        assertThat(ids(runtimeService.createProcessInstanceQuery()
+                .deploymentId(definition.getDeploymentId()).list())).contains(instance.getId());
+        assertThat(ids(runtimeService.createProcessInstanceQuery()
+                .processDefinitionWithoutTenantId().list())).contains(instance.getId());
+        assertThat(runtimeService.createProcessInstanceQuery()
+                .or()
+                .processDefinitionKey("unknown")
+                .processInstanceId(instance.getId())
+                .endOr()
+                .count()).isEqualTo(1);
+
+        assertThat(runtimeService.createExecutionQuery()
+                .processDefinitionKey(PROCESS_KEY)
+                .processInstanceId(instance.getId())
+                .count()).isPositive();
+        assertThat(runtimeService.createExecutionQuery()
+                .processDefinitionId(definition.getId())
+                .processInstanceId(instance.getId())
+                .count()).isPositive();
+
+        ProcessInstanceQueryImpl query = (ProcessInstanceQueryImpl) runtimeService.createProcessInstanceQuery()
+                .processInstanceId(instance.getId());
+        List<ImmutablePair<String, String>> mappings = configuration.getCommandExecutorTxRequired()
+                .execute(commandContext -> commandContext.getDbSqlSession()
+                        .selectList("selectProcessInstanceDeploymentIdMappingsByQueryCriteria", query));
+        assertThat(mappings).containsExactly(new ImmutablePair<>(definition.getDeploymentId(), instance.getId()));
+    }
+
+    private static List<String> ids(List<ProcessInstance> instances) {
+        return instances.stream().map(ProcessInstance::getId).toList();
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.cache.DeploymentCacheSynchronizer;
+import com.kubling.samples.operaton.cache.DeploymentEntityCache;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.ManagementService;
+import org.operaton.bpm.engine.repository.ProcessDefinition;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeploymentEntityCacheTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @Autowired
+    private ManagementService managementService;
+
+    @BeforeAll
+    static void enableDeploymentCache() {
+        System.setProperty("KUBLING_DEPLOYMENT_CACHE", "true");
+    }
+
+    @AfterAll
+    static void disableDeploymentCache() {
+        System.clearProperty("KUBLING_DEPLOYMENT_CACHE");
+    }
+
+    @Test
+    void shouldServeRepeatedResourceReadsFromCache() throws IOException {
+        DeploymentEntityCache cache = configuration.getDeploymentEntityCache();
+        ProcessDefinition definition = latestMinimalProcess();
+
+        readResource(definition);
+        long hits = cache.getHits();
+        readResource(definition);
+
+        assertThat(cache.getHits()).isGreaterThan(hits);
+        assertThat(cache.getSizeBytes()).isPositive();
+    }
+
+    @Test
+    void shouldInvalidateAndPublishVersionOnDeployment() throws IOException {
+        DeploymentEntityCache cache = configuration.getDeploymentEntityCache();
+        readResource(latestMinimalProcess());
+        long invalidations = cache.getInvalidations();
+
+        repositoryService.createDeployment()
+                .name("minimal-process")
+                .addClasspathResource("processes/minimal-process.bpmn")
+                .deploy();
+
+        assertThat(cache.getInvalidations()).isGreaterThan(invalidations);
+        assertThat(managementService.getProperties()).containsKey(DeploymentCacheSynchronizer.VERSION_PROPERTY);
+    }
+
+    private ProcessDefinition latestMinimalProcess() {
+        return repositoryService.createProcessDefinitionQuery()
+                .processDefinitionKey("Process_1kaebg3")
+                .latestVersion()
+                .singleResult();
+    }
+
+    private void readResource(ProcessDefinition definition) throws IOException {
+        try (InputStream resource = repositoryService.getResourceAsStream(
+                definition.getDeploymentId(), definition.getResourceName())) {
+            assertThat(resource.readAllBytes()).isNotEmpty();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EngineMetricsTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeAll
+    static void enableEngineMetrics() {
+        System.setProperty("KUBLING_ENGINE_METRICS", "true");
+    }
+
+    @AfterAll
+    static void disableEngineMetrics() {
+        System.clearProperty("KUBLING_ENGINE_METRICS");
+    }
+
+    @Test
+    void shouldExportEngineMetersWithoutWritingMeterLog() throws SQLException {
+        double startsBefore = counter("operaton.engine.root.process.instance.start");
+        double activitiesBefore = counter("operaton.engine.activity.instance.start");
+        long meterLogBefore = meterLogRows();
+
+        for (int i = 0; i < 5; i++) {
+            runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+        }
+
+        assertThat(counter("operaton.engine.root.process.instance.start")).isEqualTo(startsBefore + 5);
+        assertThat(counter("operaton.engine.activity.instance.start")).isGreaterThan(activitiesBefore);
+        assertThat(meterLogRows()).isEqualTo(meterLogBefore);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).functionCounter().count();
+    }
+
+    private long meterLogRows() throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement st = conn.createStatement()) {
+            ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM operaton.ACT_RU_METER_LOG");
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+}
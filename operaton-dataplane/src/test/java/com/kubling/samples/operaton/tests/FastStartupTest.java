@@ -0,0 +1,69 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.startup.MapperGroup;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FastStartupTest extends AbstractOperatonIntegrationTest {
+
+    private static Path snapshotDirectory;
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @BeforeAll
+    static void enableFastStartup() throws IOException {
+        snapshotDirectory = Files.createTempDirectory("resource-snapshot");
+        System.setProperty("KUBLING_FAST_STARTUP", "true");
+        System.setProperty("KUBLING_RESOURCE_SNAPSHOT_DIR", snapshotDirectory.toString());
+    }
+
+    @AfterAll
+    static void disableFastStartup() {
+        System.clearProperty("KUBLING_FAST_STARTUP");
+        System.clearProperty("KUBLING_RESOURCE_SNAPSHOT_DIR");
+    }
+
+    @Test
+    void shouldReportStartupPhasesWithoutCmmnAndDmn() {
+        assertThat(configuration.getStartupTimings().getPhases())
+                .containsKeys("init", "sqlSessionFactory", "deployers", "buildProcessEngine");
+        assertThat(configuration.isCmmnEnabled()).isFalse();
+        assertThat(configuration.isDmnEnabled()).isFalse();
+        assertThat(configuration.getSqlSessionFactory().getConfiguration()
+                .hasStatement("selectCaseDefinition")).isFalse();
+    }
+
+    @Test
+    void shouldKeepReportsUnlessExcluded() {
+        assertThat(configuration.getExcludedMapperGroups()).containsExactlyInAnyOrder(MapperGroup.CMMN, MapperGroup.DMN);
+        assertThat(historyService.createHistoricTaskInstanceReport().countByTaskName()).isNotNull();
+    }
+
+    @Test
+    void shouldServeDeploymentResourcesFromSnapshot() throws IOException {
+        configuration.getDeploymentCache().discardProcessDefinitionCache();
+        ProcessInstance first = runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+
+        try (Stream<Path> files = Files.walk(snapshotDirectory)) {
+            assertThat(files.filter(file -> file.toString().endsWith(".res"))).isNotEmpty();
+        }
+
+        configuration.getDeploymentCache().discardProcessDefinitionCache();
+        ProcessInstance second = runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+
+        assertThat(second.getProcessDefinitionId()).isEqualTo(first.getProcessDefinitionId());
+    }
+}
@@ -0,0 +1,117 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.history.HistoricQueryStreams;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.HistoryService;
+import org.operaton.bpm.engine.history.HistoricProcessInstance;
+import org.operaton.bpm.engine.history.HistoricProcessInstanceQuery;
+import org.operaton.bpm.engine.history.HistoricVariableInstance;
+import org.operaton.bpm.engine.history.HistoricVariableInstanceQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoricQueryStreamsTest extends AbstractOperatonIntegrationTest {
+
+    private static final String PROCESS_KEY = "Process_with_wait";
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Test
+    void shouldStreamAllVariablesOfTheQuery() {
+        List<String> ids = startInstances(4);
+        HistoricVariableInstanceQuery query = historyService.createHistoricVariableInstanceQuery()
+                .processInstanceIdIn(ids.toArray(String[]::new));
+
+        List<Object> values = new ArrayList<>();
+        long streamed = configuration.getHistoricQueryStreams()
+                .streamVariableInstances(query, variable -> values.add(variable.getValue()));
+
+        assertThat(streamed).isEqualTo(query.count()).isEqualTo(8);
+        assertThat(values).contains(0, 1, 2, 3, "streamed");
+    }
+
+    @Test
+    void shouldPageProcessInstancesByKeyset() {
+        List<String> ids = startInstances(5);
+        HistoricProcessInstanceQuery query = historyService.createHistoricProcessInstanceQuery()
+                .processInstanceIds(Set.copyOf(ids));
+
+        Set<String> seen = new HashSet<>();
+        int pages = 0;
+        HistoricQueryStreams.Keyset after = null;
+        do {
+            HistoricQueryStreams.KeysetPage<HistoricProcessInstance> page =
+                    configuration.getHistoricQueryStreams().pageProcessInstances(query, after, 2);
+            assertThat(page.items()).hasSizeLessThanOrEqualTo(2);
+            page.items().forEach(instance -> assertThat(seen.add(instance.getId())).isTrue());
+            after = page.next();
+            pages++;
+        } while (after != null);
+
+        assertThat(seen).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(pages).isEqualTo(3);
+        assertThat(query.list()).hasSize(5);
+    }
+
+    @Test
+    void shouldPageVariablesByKeyset() {
+        List<String> ids = startInstances(3);
+        HistoricVariableInstanceQuery query = historyService.createHistoricVariableInstanceQuery()
+                .processInstanceIdIn(ids.toArray(String[]::new));
+
+        List<HistoricVariableInstance> all = new ArrayList<>();
+        HistoricQueryStreams.KeysetPage<HistoricVariableInstance> page =
+                configuration.getHistoricQueryStreams().pageVariableInstances(query, null, 4);
+        all.addAll(page.items());
+        while (page.hasNext()) {
+            page = configuration.getHistoricQueryStreams().pageVariableInstances(query, page.next(), 4);
+            all.addAll(page.items());
+        }
+
+        assertThat(all).hasSize(6);
+        assertThat(all).extracting(HistoricVariableInstance::getId).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    void shouldApplyVariableConditions() {
+        List<String> ids = new ArrayList<>(startInstances(3));
+        String filtered = runtimeService.startProcessInstanceByKey(PROCESS_KEY,
+                Map.of("index", 3, "label", "filtered")).getId();
+        ids.add(filtered);
+        HistoricProcessInstanceQuery query = historyService.createHistoricProcessInstanceQuery()
+                .processInstanceIds(Set.copyOf(ids))
+                .variableValueEquals("label", "filtered");
+
+        List<String> streamed = new ArrayList<>();
+        configuration.getHistoricQueryStreams().streamProcessInstances(query, instance -> streamed.add(instance.getId()));
+        HistoricQueryStreams.KeysetPage<HistoricProcessInstance> page =
+                configuration.getHistoricQueryStreams().pageProcessInstances(query, null, 10);
+
+        assertThat(streamed).containsExactly(filtered);
+        assertThat(page.items()).extracting(HistoricProcessInstance::getId).containsExactly(filtered);
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    private List<String> startInstances(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(runtimeService.startProcessInstanceByKey(PROCESS_KEY,
+                    Map.of("index", i, "label", "streamed")).getId());
+        }
+        return ids;
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.history.HistoryPartitionManager;
+import com.kubling.samples.operaton.history.PartitionedHistoryCleanupJobHandler;
+import com.kubling.samples.operaton.support.DataPlaneContainersConfig;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.impl.jobexecutor.historycleanup.HistoryCleanupJobHandler;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryPartitioningTest extends AbstractOperatonIntegrationTest {
+
+    // the Postgres container is shared with the other tests, act_hi_actinst is put back as it was afterward
+    private static final String UNPARTITIONED = "act_hi_actinst_unpartitioned";
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @BeforeAll
+    static void partitionActivityHistory() throws Exception {
+        try (InputStream script = HistoryPartitioningTest.class.getResourceAsStream("/history-postgres-partitioning.sql");
+             Connection conn = postgresConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE " + UNPARTITIONED + " (LIKE act_hi_actinst INCLUDING ALL)");
+            st.execute(new String(script.readAllBytes(), StandardCharsets.UTF_8));
+            st.execute("SELECT kubling_partition_history_table('act_hi_actinst')");
+        }
+
+        System.setProperty("KUBLING_HISTORY_PARTITIONING", "true");
+        System.setProperty("KUBLING_HISTORY_MAINTENANCE_URL", DataPlaneContainersConfig.getPostgresJdbcUrl());
+        System.setProperty("KUBLING_HISTORY_MAINTENANCE_USERNAME", "postgres");
+        System.setProperty("KUBLING_HISTORY_MAINTENANCE_PASSWORD", "test");
+    }
+
+    @AfterAll
+    static void disablePartitioning() throws SQLException {
+        System.clearProperty("KUBLING_HISTORY_PARTITIONING");
+        System.clearProperty("KUBLING_HISTORY_MAINTENANCE_URL");
+        System.clearProperty("KUBLING_HISTORY_MAINTENANCE_USERNAME");
+        System.clearProperty("KUBLING_HISTORY_MAINTENANCE_PASSWORD");
+
+        try (Connection conn = postgresConnection(); Statement st = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            st.execute("INSERT INTO " + UNPARTITIONED + " SELECT * FROM act_hi_actinst ON CONFLICT DO NOTHING");
+            st.execute("DROP TABLE act_hi_actinst");
+            st.execute("ALTER TABLE " + UNPARTITIONED + " RENAME TO act_hi_actinst");
+            conn.commit();
+        }
+    }
+
+    @Test
+    void shouldReplaceHistoryCleanupJobHandler() {
+        assertThat(configuration.getHistoryRemovalTimeStrategy()).isEqualTo("start");
+        assertThat(configuration.getJobHandlers().get(HistoryCleanupJobHandler.TYPE))
+                .isInstanceOf(PartitionedHistoryCleanupJobHandler.class);
+    }
+
+    @Test
+    void shouldStoreHistoryInRemovalTimePartitions() throws SQLException {
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+
+        List<String> partitions = new ArrayList<>();
+        try (Connection conn = postgresConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT tableoid::regclass::text, removal_time_ FROM act_hi_actinst WHERE proc_inst_id_ = ?")) {
+            ps.setString(1, instance.getId());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    assertThat(rs.getTimestamp(2)).isNotNull();
+                    partitions.add(rs.getString(1));
+                }
+            }
+        }
+
+        assertThat(partitions).isNotEmpty().allMatch(name -> name.matches("act_hi_actinst_p\\d{6}"));
+    }
+
+    @Test
+    void shouldDropExpiredPartitionsAndKeepCurrentOnes() throws SQLException {
+        try (Connection conn = postgresConnection(); Statement st = conn.createStatement()) {
+            st.execute("""
+                    CREATE TABLE IF NOT EXISTS act_hi_actinst_p200001 PARTITION OF act_hi_actinst
+                    FOR VALUES FROM ('2000-01-01 00:00:00') TO ('2000-02-01 00:00:00')
+                    """);
+            st.execute("""
+                    INSERT INTO act_hi_actinst (id_, proc_def_id_, proc_inst_id_, execution_id_, act_id_, act_type_,
+                                                start_time_, act_inst_state_, sequence_counter_, removal_time_)
+                    VALUES ('expired-partition-row', 'expired', 'expired', 'expired', 'expired', 'noneEvent',
+                            '2000-01-01 00:00:00', 0, 1, '2000-01-15 00:00:00')
+                    """);
+        }
+
+        HistoryPartitionManager partitionManager = configuration.getHistoryPartitionManager();
+        long droppedBefore = partitionManager.getDroppedPartitions();
+        partitionManager.maintain(new Date());
+
+        List<HistoryPartitionManager.Partition> partitions = partitionManager.findPartitions("act_hi_actinst");
+        assertThat(partitions).extracting(HistoryPartitionManager.Partition::name)
+                .doesNotContain("act_hi_actinst_p200001")
+                .contains("act_hi_actinst_default");
+        assertThat(partitions).anyMatch(partition -> !partition.isDefault()
+                && partition.to().isAfter(LocalDateTime.now().plusDays(365)));
+        assertThat(partitionManager.getDroppedPartitions()).isGreaterThan(droppedBefore);
+    }
+
+    @Test
+    void shouldCreateLaterPartitionsWhenOneMonthFails() throws SQLException {
+        HistoryPartitionManager partitionManager = configuration.getHistoryPartitionManager();
+        List<HistoryPartitionManager.Partition> lastMonths = partitionManager.findPartitions("act_hi_actinst").stream()
+                .filter(partition -> !partition.isDefault())
+                .sorted(Comparator.comparing(HistoryPartitionManager.Partition::from).reversed())
+                .limit(2)
+                .toList();
+        HistoryPartitionManager.Partition blocked = lastMonths.get(1);
+        HistoryPartitionManager.Partition last = lastMonths.get(0);
+
+        try (Connection conn = postgresConnection(); Statement st = conn.createStatement()) {
+            // the precreated months are still empty, a row in the default partition blocks the first one
+            st.execute("DROP TABLE " + last.name());
+            st.execute("DROP TABLE " + blocked.name());
+            st.execute("""
+                    INSERT INTO act_hi_actinst (id_, proc_def_id_, proc_inst_id_, execution_id_, act_id_, act_type_,
+                                                start_time_, act_inst_state_, sequence_counter_, removal_time_)
+                    VALUES ('blocking-row', 'blocking', 'blocking', 'blocking', 'blocking', 'noneEvent',
+                            '%s', 0, 1, '%s')
+                    """.formatted(blocked.from(), blocked.from().plusDays(1)));
+        }
+
+        long failedBefore = partitionManager.getFailedPartitions();
+        try {
+            partitionManager.maintain(new Date());
+
+            assertThat(partitionManager.getFailedPartitions()).isGreaterThan(failedBefore);
+            assertThat(partitionManager.findPartitions("act_hi_actinst"))
+                    .extracting(HistoryPartitionManager.Partition::name)
+                    .contains(last.name())
+                    .doesNotContain(blocked.name());
+        } finally {
+            try (Connection conn = postgresConnection(); Statement st = conn.createStatement()) {
+                st.execute("DELETE FROM act_hi_actinst WHERE id_ = 'blocking-row'");
+            }
+            partitionManager.maintain(new Date());
+        }
+        assertThat(partitionManager.findPartitions("act_hi_actinst"))
+                .extracting(HistoryPartitionManager.Partition::name)
+                .contains(blocked.name());
+    }
+
+    private static Connection postgresConnection() throws SQLException {
+        return DriverManager.getConnection(DataPlaneContainersConfig.getPostgresJdbcUrl(), "postgres", "test");
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.history.ProfiledHistoryLevel;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.impl.history.HistoryLevel;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryProfileTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @BeforeAll
+    static void enableHistoryProfiles() {
+        System.setProperty("KUBLING_HISTORY_PROFILES", "Process_1kaebg3=audit-minimal:orderId");
+    }
+
+    @AfterAll
+    static void disableHistoryProfiles() {
+        System.clearProperty("KUBLING_HISTORY_PROFILES");
+    }
+
+    @Test
+    void shouldOnlyWriteProcessInstanceAndSelectedVariables() {
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_1kaebg3",
+                Map.of("orderId", 42, "customer", "ACME"));
+
+        assertThat(historyService.createHistoricProcessInstanceQuery()
+                .processInstanceId(instance.getId())
+                .count()).isEqualTo(1);
+        assertThat(historyService.createHistoricVariableInstanceQuery()
+                .processInstanceId(instance.getId())
+                .list())
+                .extracting("name")
+                .containsExactly("orderId");
+        assertThat(historyService.createHistoricActivityInstanceQuery()
+                .processInstanceId(instance.getId())
+                .count()).isZero();
+
+        ProfiledHistoryLevel historyLevel = (ProfiledHistoryLevel) configuration.getHistoryLevel();
+        assertThat(historyLevel.getInstances("Process_1kaebg3")).isPositive();
+        assertThat(historyLevel.getWrittenRows("Process_1kaebg3")).isPositive();
+        assertThat(historyLevel.getSuppressedRows("Process_1kaebg3")).isPositive();
+        assertThat(historyLevel.report()).containsKey("Process_1kaebg3");
+    }
+
+    @Test
+    void shouldKeepFullHistoryForOtherDefinitions() {
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_with_wait",
+                Map.of("customer", "ACME"));
+
+        assertThat(historyService.createHistoricVariableInstanceQuery()
+                .processInstanceId(instance.getId())
+                .count()).isEqualTo(1);
+        assertThat(historyService.createHistoricActivityInstanceQuery()
+                .processInstanceId(instance.getId())
+                .count()).isPositive();
+
+        runtimeService.deleteProcessInstance(instance.getId(), "test cleanup");
+    }
+
+    @Test
+    void shouldKeepTheConfiguredHistoryLevel() {
+        HistoryLevel historyLevel = configuration.getHistoryLevel();
+        HistoryLevel configuredLevel = configuration.getHistoryLevels().stream()
+                .filter(level -> level.getId() == historyLevel.getId())
+                .findFirst()
+                .orElseThrow();
+
+        assertThat(historyLevel).isInstanceOf(ProfiledHistoryLevel.class);
+        assertThat(historyLevel.getName()).isEqualTo(configuredLevel.getName());
+        assertThat(configuration.getConfiguredHistoryLevel()).isSameAs(configuredLevel);
+        assertThat(historyLevel).isNotEqualTo(configuredLevel);
+        assertThat(configuredLevel).isNotEqualTo(historyLevel);
+    }
+}
@@ -0,0 +1,64 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.history.HistoryReadRouter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.history.HistoricActivityInstance;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryReadRoutingTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @BeforeAll
+    static void enableHistoryReadPool() {
+        System.setProperty("KUBLING_HISTORY_READ_POOL", "true");
+    }
+
+    @AfterAll
+    static void disableHistoryReadPool() {
+        System.clearProperty("KUBLING_HISTORY_READ_POOL");
+    }
+
+    @Test
+    void shouldRouteHistoryQueriesToReadPool() {
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+        HistoryReadRouter router = configuration.getHistoryReadRouter();
+        long routedBefore = router.getRoutedCommands();
+
+        List<HistoricActivityInstance> activities = historyService.createHistoricActivityInstanceQuery()
+                .processInstanceId(instance.getId())
+                .list();
+        long finished = historyService.createHistoricProcessInstanceQuery()
+                .processInstanceId(instance.getId())
+                .finished()
+                .count();
+
+        assertThat(activities).isNotEmpty();
+        assertThat(finished).isEqualTo(1);
+        assertThat(router.getRoutedCommands()).isEqualTo(routedBefore + 2);
+        assertThat(router.getReadConnections()).isPositive();
+    }
+
+    @Test
+    void shouldKeepRuntimeCommandsOnPrimaryPool() {
+        HistoryReadRouter router = configuration.getHistoryReadRouter();
+        long routedBefore = router.getRoutedCommands();
+
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_with_wait");
+        long active = runtimeService.createProcessInstanceQuery().processInstanceId(instance.getId()).count();
+
+        assertThat(active).isEqualTo(1);
+        assertThat(router.getRoutedCommands()).isEqualTo(routedBefore);
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.history.DurationRollup;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.HistoryService;
+import org.operaton.bpm.engine.TaskService;
+import org.operaton.bpm.engine.history.HistoricTaskInstanceReportResult;
+import org.operaton.bpm.engine.impl.HistoricProcessInstanceReportImpl;
+import org.operaton.bpm.engine.query.PeriodUnit;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Instant;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryRollupsTest extends AbstractOperatonIntegrationTest {
+
+    private static final String PROCESS_KEY = "Process_with_wait";
+    private static final String TASK_NAME = "Wait for approval";
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @BeforeAll
+    static void enableHistoryRollups() {
+        System.setProperty("KUBLING_HISTORY_ROLLUPS", "true");
+    }
+
+    @AfterAll
+    static void disableHistoryRollups() {
+        System.clearProperty("KUBLING_HISTORY_ROLLUPS");
+    }
+
+    @Test
+    void shouldReadReportsFromRollups() {
+        assertThat(configuration.getDbSqlSessionFactory().mapStatement("selectHistoricProcessInstanceDurationReport"))
+                .isEqualTo("selectHistoricProcessInstanceDurationReportFromRollups");
+
+        HistoricProcessInstanceReportImpl report =
+                (HistoricProcessInstanceReportImpl) historyService.createHistoricProcessInstanceReport()
+                        .startedAfter(Date.from(Instant.parse("2024-01-01T00:00:00Z")));
+        report.getTenantCheck().setTenantCheckEnabled(false);
+
+        report.duration(PeriodUnit.MONTH);
+        assertThat(boundSql(report)).contains("ACT_HI_DURATION_ROLLUP").doesNotContain("ACT_HI_PROCINST");
+
+        // minutes are finer than the buckets
+        report.duration(PeriodUnit.MINUTE);
+        assertThat(boundSql(report)).contains("ACT_HI_PROCINST").doesNotContain("ACT_HI_DURATION_ROLLUP");
+    }
+
+    @Test
+    void shouldFallBackToScansForBoundsWithinAnHour() {
+        Date hour = DurationRollup.bucketOf(new Date());
+        assertThat(DurationRollup.isAligned(hour)).isTrue();
+        assertThat(DurationRollup.isAligned(null)).isTrue();
+        assertThat(DurationRollup.isAligned(new Date(hour.getTime() + 1))).isFalse();
+
+        HistoricProcessInstanceReportImpl report =
+                (HistoricProcessInstanceReportImpl) historyService.createHistoricProcessInstanceReport()
+                        .startedBefore(new Date(hour.getTime() + 1));
+        report.getTenantCheck().setTenantCheckEnabled(false);
+        report.duration(PeriodUnit.MONTH);
+        assertThat(boundSql(report)).contains("ACT_HI_PROCINST").doesNotContain("ACT_HI_DURATION_ROLLUP");
+    }
+
+    @Test
+    void shouldCountFinishedTasksAfterCommit() {
+        long countBefore = taskCount();
+        long finishedBefore = historyService.createHistoricTaskInstanceQuery()
+                .processDefinitionKey(PROCESS_KEY)
+                .finished()
+                .count();
+
+        for (int i = 0; i < 3; i++) {
+            ProcessInstance instance = runtimeService.startProcessInstanceByKey(PROCESS_KEY);
+            taskService.complete(taskService.createTaskQuery()
+                    .processInstanceId(instance.getId())
+                    .singleResult()
+                    .getId());
+        }
+
+        assertThat(taskCount()).isEqualTo(countBefore + 3);
+        assertThat(historyService.createHistoricTaskInstanceQuery()
+                .processDefinitionKey(PROCESS_KEY)
+                .finished()
+                .count())
+                .isEqualTo(finishedBefore + 3);
+        assertThat(historyService.createHistoricProcessInstanceReport()
+                .processDefinitionKeyIn(PROCESS_KEY)
+                .duration(PeriodUnit.MONTH))
+                .isNotEmpty();
+    }
+
+    private long taskCount() {
+        return historyService.createHistoricTaskInstanceReport().countByTaskName().stream()
+                .filter(result -> TASK_NAME.equals(result.getTaskName()))
+                .filter(result -> PROCESS_KEY.equals(result.getProcessDefinitionKey()))
+                .mapToLong(HistoricTaskInstanceReportResult::getCount)
+                .sum();
+    }
+
+    private String boundSql(HistoricProcessInstanceReportImpl report) {
+        return configuration.getSqlSessionFactory().getConfiguration()
+                .getMappedStatement("selectHistoricProcessInstanceDurationReportFromRollups")
+                .getBoundSql(report)
+                .getSql();
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.history.HistorySpool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.operaton.bpm.engine.impl.history.event.HistoricActivityInstanceEventEntity;
+import org.operaton.bpm.engine.impl.history.event.HistoryEvent;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistorySpoolTest {
+
+    private static final int SPOOL_SIZE = 8 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReuseAcknowledgedSpaceWhileEventsArePending() throws Exception {
+        Path path = directory.resolve("history.spool");
+        List<Long> positions = new ArrayList<>();
+        try (HistorySpool spool = new HistorySpool(path, SPOOL_SIZE, false)) {
+            // the writer stays one event behind, the spool is never fully drained
+            for (int i = 0; i < 200; i++) {
+                long position = spool.append(event("event-" + i));
+                assertThat(position).isPositive();
+                positions.add(position);
+                if (i > 0) {
+                    spool.acknowledge(positions.get(i - 1));
+                }
+            }
+            assertThat(positions).isSorted();
+        }
+
+        try (HistorySpool spool = new HistorySpool(path, SPOOL_SIZE, false)) {
+            assertThat(spool.recover())
+                    .extracting(spooledEvent -> spooledEvent.event().getId())
+                    .containsExactly("event-199");
+        }
+    }
+
+    @Test
+    void shouldRecoverEventsThatWrappedAround() throws Exception {
+        Path path = directory.resolve("history.spool");
+        try (HistorySpool spool = new HistorySpool(path, SPOOL_SIZE, false)) {
+            long position = 0;
+            int appended = 0;
+            while (position >= 0) {
+                position = spool.append(event("first-" + appended++));
+            }
+            spool.acknowledge(spool.recover().get(appended - 3).spoolPosition());
+            assertThat(spool.append(event("wrapped"))).isPositive();
+        }
+
+        try (HistorySpool spool = new HistorySpool(path, SPOOL_SIZE, false)) {
+            List<String> recovered = spool.recover().stream()
+                    .map(spooledEvent -> spooledEvent.event().getId())
+                    .toList();
+            assertThat(recovered).hasSize(2).endsWith("wrapped");
+        }
+    }
+
+    private static HistoryEvent event(String id) {
+        HistoricActivityInstanceEventEntity event = new HistoricActivityInstanceEventEntity();
+        event.setId(id);
+        event.setActivityId("activity");
+        return event;
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.id.TimeOrderedIdGenerator;
+import com.kubling.samples.operaton.support.DataPlaneContainersConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.impl.cfg.IdGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Inserts the same amount of ACT_HI_PROCINST rows through the composite data plane with random and with
+ * time-ordered identifiers, and compares insert throughput and primary key growth on the Postgres backend.
+ * The rows are deleted again afterward.
+ */
+@Slf4j
+class IdGeneratorInsertThroughputTest extends AbstractOperatonIntegrationTest {
+
+    private static final int ROWS = 5000;
+    private static final int COMMIT_EVERY = 100;
+    private static final String MARKER = "id-generator-benchmark";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void timeOrderedIdsShouldNotGrowPrimaryKeyMoreThanRandomIds() throws Exception {
+        Result random = insertRows(() -> UUID.randomUUID().toString());
+        Result timeOrdered = insertRows(new TimeOrderedIdGenerator(1));
+
+        log.info("Random UUID:  {} rows/s, pkey growth {} bytes", random.rowsPerSecond(), random.indexGrowth());
+        log.info("Time ordered: {} rows/s, pkey growth {} bytes", timeOrdered.rowsPerSecond(), timeOrdered.indexGrowth());
+
+        assertThat(timeOrdered.indexGrowth()).isLessThanOrEqualTo(random.indexGrowth());
+    }
+
+    @AfterEach
+    void deleteRows() throws SQLException {
+        try (Connection conn = postgresConnection(); Statement st = conn.createStatement()) {
+            st.executeUpdate("DELETE FROM act_hi_procinst WHERE proc_def_id_ = '%s'".formatted(MARKER));
+        }
+    }
+
+    private Result insertRows(IdGenerator generator) throws SQLException {
+        resetPrimaryKey();
+        long sizeBefore = primaryKeySize();
+
+        Set<String> ids = new HashSet<>();
+        long start = System.nanoTime();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement("""
+                     INSERT INTO operaton.ACT_HI_PROCINST (ID_, PROC_INST_ID_, PROC_DEF_ID_, START_TIME_)
+                     VALUES (?, ?, ?, ?)
+                     """)) {
+            conn.setAutoCommit(false);
+            for (int i = 0; i < ROWS; i++) {
+                String id = generator.getNextId();
+                ids.add(id);
+                ps.setString(1, id);
+                ps.setString(2, id);
+                ps.setString(3, MARKER);
+                ps.setTimestamp(4, Timestamp.from(Instant.now()));
+                ps.executeUpdate();
+                if ((i + 1) % COMMIT_EVERY == 0) {
+                    conn.commit();
+                }
+            }
+            conn.commit();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        assertThat(ids).hasSize(ROWS);
+        return new Result(ROWS * 1_000_000_000L / elapsedNanos, primaryKeySize() - sizeBefore);
+    }
+
+    private void resetPrimaryKey() throws SQLException {
+        deleteRows();
+        try (Connection conn = postgresConnection(); Statement st = conn.createStatement()) {
+            st.execute("REINDEX INDEX act_hi_procinst_pkey");
+        }
+    }
+
+    private long primaryKeySize() throws SQLException {
+        try (Connection conn = postgresConnection(); Statement st = conn.createStatement()) {
+            ResultSet rs = st.executeQuery("SELECT pg_relation_size('act_hi_procinst_pkey')");
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static Connection postgresConnection() throws SQLException {
+        return DriverManager.getConnection(DataPlaneContainersConfig.getPostgresJdbcUrl(), "postgres", "test");
+    }
+
+    private record Result(long rowsPerSecond, long indexGrowth) {
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.history.HistoricActivityInstance;
+import org.operaton.bpm.engine.impl.HistoricActivityInstanceQueryImpl;
+import org.operaton.bpm.engine.impl.db.ListQueryParameterObject;
+import org.operaton.bpm.engine.impl.interceptor.Command;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KublingDialectTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @BeforeAll
+    static void enableDialect() {
+        System.setProperty("KUBLING_SQL_DIALECT", "true");
+    }
+
+    @AfterAll
+    static void disableDialect() {
+        System.clearProperty("KUBLING_SQL_DIALECT");
+    }
+
+    @Test
+    void shouldPageWithTeiidLimit() {
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+
+        HistoricActivityInstanceQueryImpl query = (HistoricActivityInstanceQueryImpl) historyService
+                .createHistoricActivityInstanceQuery()
+                .processInstanceId(instance.getId())
+                .orderByHistoricActivityInstanceStartTime().asc()
+                .orderByActivityId().asc();
+        query.setFirstResult(1);
+        query.setMaxResults(1);
+
+        assertThat(boundSql("selectHistoricActivityInstanceByQueryCriteria", query)).endsWith("LIMIT ?, ?");
+
+        List<HistoricActivityInstance> all = historyService.createHistoricActivityInstanceQuery()
+                .processInstanceId(instance.getId())
+                .orderByHistoricActivityInstanceStartTime().asc()
+                .orderByActivityId().asc()
+                .list();
+        List<HistoricActivityInstance> page = historyService.createHistoricActivityInstanceQuery()
+                .processInstanceId(instance.getId())
+                .orderByHistoricActivityInstanceStartTime().asc()
+                .orderByActivityId().asc()
+                .listPage(1, 1);
+
+        assertThat(all).hasSizeGreaterThan(1);
+        assertThat(page).extracting(HistoricActivityInstance::getId).containsExactly(all.get(1).getId());
+    }
+
+    @Test
+    void shouldLimitDeletesInSubquery() {
+        String statement = configuration.getDbSqlSessionFactory()
+                .mapStatement("deleteHistoricActivityInstancesByRemovalTime");
+        assertThat(statement).isEqualTo("deleteHistoricActivityInstancesByRemovalTime_postgres_or_db2");
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("removalTime", new Date());
+        parameters.put("minuteFrom", 0);
+        parameters.put("minuteTo", 59);
+        ListQueryParameterObject parameterObject = new ListQueryParameterObject(parameters, 0, 100);
+
+        String sql = boundSql(statement, parameterObject);
+        assertThat(sql).startsWith("delete from operaton.ACT_HI_ACTINST where ID_ IN (SELECT ID_ FROM operaton.ACT_HI_ACTINST");
+        assertThat(sql).endsWith("LIMIT ?)");
+    }
+
+    @Test
+    void shouldLimitRemovalTimeUpdatesInSubquery() {
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+        String statement = configuration.getDbSqlSessionFactory()
+                .mapStatement("updateHistoricActivityInstancesByRootProcessInstanceId");
+        assertThat(statement).isEqualTo("updateHistoricActivityInstancesByRootProcessInstanceId_postgres");
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("rootProcessInstanceId", instance.getId());
+        parameters.put("removalTime", new Date());
+        parameters.put("maxResults", 1);
+
+        assertThat(boundSql(statement, parameters))
+                .contains("WHERE ID_ IN (SELECT ID_ FROM operaton.ACT_HI_ACTINST")
+                .endsWith("LIMIT ?)");
+
+        Command<Integer> update = commandContext ->
+                commandContext.getDbSqlSession().getSqlSession().update(statement, parameters);
+        assertThat(configuration.getCommandExecutorTxRequired().execute(update)).isEqualTo(1);
+        assertThat(configuration.getCommandExecutorTxRequired().execute(update)).isEqualTo(1);
+    }
+
+    private String boundSql(String statement, Object parameter) {
+        return configuration.getSqlSessionFactory().getConfiguration()
+                .getMappedStatement(statement)
+                .getBoundSql(parameter)
+                .getSql()
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.cache.LatestDefinitionDeploymentCache;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.repository.ProcessDefinition;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatestDefinitionResolverTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @BeforeAll
+    static void enableResolver() {
+        System.setProperty("KUBLING_LATEST_DEFINITION_RESOLVER", "true");
+    }
+
+    @AfterAll
+    static void disableResolver() {
+        System.clearProperty("KUBLING_LATEST_DEFINITION_RESOLVER");
+    }
+
+    @Test
+    void shouldResolveLatestDefinitionFromMemory() {
+        LatestDefinitionDeploymentCache cache = (LatestDefinitionDeploymentCache) configuration.getDeploymentCache();
+
+        runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+        long hits = cache.getLatestDefinitionHits();
+        runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+
+        assertThat(cache.getLatestDefinitionHits()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void shouldStartNewVersionAfterDeployment() {
+        runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+
+        repositoryService.createDeployment()
+                .name("minimal-process")
+                .addClasspathResource("processes/minimal-process.bpmn")
+                .deploy();
+        ProcessDefinition latest = repositoryService.createProcessDefinitionQuery()
+                .processDefinitionKey("Process_1kaebg3")
+                .latestVersion()
+                .singleResult();
+
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+
+        assertThat(instance.getProcessDefinitionId()).isEqualTo(latest.getId());
+    }
+}
@@ -1,18 +1,25 @@
 package com.kubling.samples.operaton.tests;
 
 import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.operaton.bpm.engine.history.HistoricProcessInstance;
+import org.operaton.bpm.engine.runtime.Execution;
 import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @Slf4j
 public class OperatonQueryTest extends AbstractOperatonIntegrationTest {
 
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
     @Test
     void shouldListMultipleHistoricProcesses() {
         for (int i = 0; i < 3; i++) {
@@ -34,4 +41,33 @@ public class OperatonQueryTest extends AbstractOperatonIntegrationTest {
             log.debug(h.getState());
         }
     }
+
+    @Test
+    void shouldOrderByProcessDefinitionKeyWithoutAuthorization() {
+        assertThat(configuration.isAuthorizationEnabled()).isFalse();
+        ProcessInstance first = runtimeService.startProcessInstanceByKey("Process_with_wait");
+        ProcessInstance second = runtimeService.startProcessInstanceByKey("Process_with_wait");
+
+        List<ProcessInstance> instances = runtimeService.createProcessInstanceQuery()
+                .processInstanceIds(Set.of(first.getId(), second.getId()))
+                .orderByProcessDefinitionKey().asc()
+                .orderByProcessInstanceId().asc()
+                .list();
+        List<Execution> executions = runtimeService.createExecutionQuery()
+                .processDefinitionKey("Process_with_wait")
+                .orderByProcessDefinitionKey().desc()
+                .list();
+
+        assertThat(instances).extracting(ProcessInstance::getId)
+                .containsExactlyInAnyOrder(first.getId(), second.getId());
+        assertThat(executions).isNotEmpty();
+        assertThat(runtimeService.createProcessInstanceQuery()
+                .processDefinitionKey("Process_with_wait")
+                .orderByProcessDefinitionId().asc()
+                .count())
+                .isGreaterThanOrEqualTo(2);
+
+        runtimeService.deleteProcessInstance(first.getId(), "test cleanup");
+        runtimeService.deleteProcessInstance(second.getId(), "test cleanup");
+    }
 }
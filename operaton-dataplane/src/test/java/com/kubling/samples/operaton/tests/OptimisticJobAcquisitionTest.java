@@ -0,0 +1,79 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.jobexecutor.OptimisticAcquireJobsCmd;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.operaton.bpm.engine.impl.jobexecutor.AcquiredJobs;
+import org.operaton.bpm.engine.impl.persistence.entity.MessageEntity;
+import org.operaton.bpm.engine.impl.util.ClockUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OptimisticJobAcquisitionTest extends AbstractOperatonIntegrationTest {
+
+    private static final int JOBS_TO_ACQUIRE = 3;
+
+    @Autowired
+    private ProcessEngineConfigurationImpl configuration;
+
+    private final List<String> processInstanceIds = new ArrayList<>();
+
+    @AfterEach
+    void deleteProcessInstances() {
+        processInstanceIds.forEach(id -> runtimeService.deleteProcessInstance(id, "test cleanup"));
+        processInstanceIds.clear();
+    }
+
+    @Test
+    void shouldNotStarveOnExclusiveJobsOfALockedProcessInstance() {
+        String lockedInstance = startProcessInstance();
+        String otherInstance = startProcessInstance();
+        Date now = ClockUtil.getCurrentTime();
+
+        // one exclusive job of the first instance is being executed by another node
+        insertJob(lockedInstance, new Date(now.getTime() - 60_000), "other-node");
+        for (int i = 0; i < JOBS_TO_ACQUIRE * 2; i++) {
+            insertJob(lockedInstance, new Date(now.getTime() - 50_000 + i), null);
+        }
+        String otherJob = insertJob(otherInstance, new Date(now.getTime() - 1_000), null);
+
+        AcquiredJobs acquired = configuration.getCommandExecutorTxRequired().execute(
+                new OptimisticAcquireJobsCmd(configuration.getJobExecutor(), JOBS_TO_ACQUIRE));
+
+        assertThat(acquired.getJobIdBatches().stream().flatMap(Collection::stream).toList())
+                .containsExactly(otherJob);
+    }
+
+    private String startProcessInstance() {
+        String id = runtimeService.startProcessInstanceByKey("Process_with_wait").getId();
+        processInstanceIds.add(id);
+        return id;
+    }
+
+    private String insertJob(String processInstanceId, Date duedate, String lockOwner) {
+        return configuration.getCommandExecutorTxRequired().execute(commandContext -> {
+            MessageEntity job = new MessageEntity();
+            job.setExclusive(true);
+            job.setProcessInstanceId(processInstanceId);
+            job.setExecutionId(processInstanceId);
+            job.setJobHandlerType("async-continuation");
+            job.setRetries(3);
+            job.setDuedate(duedate);
+            if (lockOwner != null) {
+                job.setLockOwner(lockOwner);
+                job.setLockExpirationTime(new Date(ClockUtil.getCurrentTime().getTime() + 300_000));
+            }
+            job.insert();
+            return job.getId();
+        });
+    }
+
+}
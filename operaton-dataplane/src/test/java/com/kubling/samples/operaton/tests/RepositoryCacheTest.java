@@ -0,0 +1,118 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.cache.DataPlaneCacheInvalidator;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.support.DataPlaneContainersConfig;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.operaton.bpm.engine.repository.Deployment;
+import org.operaton.bpm.engine.repository.ProcessDefinition;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RepositoryCacheTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @BeforeAll
+    static void enableRepositoryCache() {
+        System.setProperty("KUBLING_REPOSITORY_CACHE", "true");
+        System.setProperty("KUBLING_HTTP_PORT", String.valueOf(DataPlaneContainersConfig.getKublingHttpPort()));
+    }
+
+    @AfterAll
+    static void disableRepositoryCache() {
+        System.clearProperty("KUBLING_REPOSITORY_CACHE");
+        System.clearProperty("KUBLING_HTTP_PORT");
+    }
+
+    @Test
+    void shouldHintRepositoryReads() throws IOException {
+        ProcessDefinition definition = repositoryService.createProcessDefinitionQuery()
+                .processDefinitionKey("Process_1kaebg3")
+                .latestVersion()
+                .singleResult();
+        assertThat(configuration.getSqlSessionFactory().getConfiguration()
+                .getMappedStatement(ProcessDefinitionEntity.class.getName() + ".selectProcessDefinition")
+                .getBoundSql(definition.getId())
+                .getSql())
+                .startsWith("/*+ cache(ttl:" + configuration.getRepositoryCacheTtlMillis() + ") */ select");
+
+        // read twice, the second read may be served by the data plane cache
+        for (int i = 0; i < 2; i++) {
+            assertThat(repositoryService.getProcessDefinition(definition.getId()).getKey()).isEqualTo("Process_1kaebg3");
+            try (InputStream resource = repositoryService.getResourceAsStream(
+                    definition.getDeploymentId(), definition.getResourceName())) {
+                assertThat(resource.readAllBytes()).isNotEmpty();
+            }
+        }
+    }
+
+    @Test
+    void shouldInvalidateDataPlaneCacheOnDeployAndUndeploy() throws InterruptedException {
+        DataPlaneCacheInvalidator invalidator = configuration.getDataPlaneCacheInvalidator();
+        assertThat(invalidator).isNotNull();
+        long before = invalidator.getInvalidations();
+
+        Deployment deployment = repositoryService.createDeployment()
+                .name("repository-cache")
+                .addClasspathResource("processes/minimal-process.bpmn")
+                .enableDuplicateFiltering(false)
+                .deploy();
+
+        awaitInvalidations(invalidator, before + 1);
+        assertThat(repositoryService.createProcessDefinitionQuery()
+                .deploymentId(deployment.getId())
+                .count()).isEqualTo(1);
+
+        repositoryService.deleteDeployment(deployment.getId(), true);
+
+        awaitInvalidations(invalidator, before + 2);
+        assertThat(repositoryService.createProcessDefinitionQuery()
+                .deploymentId(deployment.getId())
+                .count()).isZero();
+        assertThat(invalidator.getFailures()).isZero();
+    }
+
+    @Test
+    void shouldInvalidateDataPlaneCacheOnSuspension() throws InterruptedException {
+        DataPlaneCacheInvalidator invalidator = configuration.getDataPlaneCacheInvalidator();
+        ProcessDefinition definition = repositoryService.createProcessDefinitionQuery()
+                .processDefinitionKey("Process_1kaebg3")
+                .latestVersion()
+                .singleResult();
+        assertThat(repositoryService.getProcessDefinition(definition.getId()).isSuspended()).isFalse();
+        long before = invalidator.getInvalidations();
+
+        repositoryService.suspendProcessDefinitionById(definition.getId());
+        try {
+            awaitInvalidations(invalidator, before + 1);
+            assertThat(repositoryService.getProcessDefinition(definition.getId()).isSuspended()).isTrue();
+        } finally {
+            repositoryService.activateProcessDefinitionById(definition.getId());
+        }
+
+        awaitInvalidations(invalidator, before + 2);
+        assertThat(repositoryService.getProcessDefinition(definition.getId()).isSuspended()).isFalse();
+    }
+
+    private static void awaitInvalidations(DataPlaneCacheInvalidator invalidator, long expected)
+            throws InterruptedException {
+        // the invalidation is sent after commit, without blocking the deploying thread
+        long deadline = System.currentTimeMillis() + 5000;
+        while (invalidator.getInvalidations() + invalidator.getFailures() < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(invalidator.getInvalidations()).isEqualTo(expected);
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.ManagementService;
+import org.operaton.bpm.engine.TaskService;
+import org.operaton.bpm.engine.impl.ActivityStatisticsQueryImpl;
+import org.operaton.bpm.engine.management.ActivityStatistics;
+import org.operaton.bpm.engine.management.ProcessDefinitionStatistics;
+import org.operaton.bpm.engine.repository.ProcessDefinition;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuntimeStatisticsTest extends AbstractOperatonIntegrationTest {
+
+    private static final String PROCESS_KEY = "Process_with_wait";
+    private static final String WAIT_ACTIVITY = "UserTask_1";
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @Autowired
+    private ManagementService managementService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @BeforeAll
+    static void enableRuntimeStatistics() {
+        System.setProperty("KUBLING_RUNTIME_STATISTICS", "true");
+    }
+
+    @AfterAll
+    static void disableRuntimeStatistics() {
+        System.clearProperty("KUBLING_RUNTIME_STATISTICS");
+    }
+
+    @Test
+    void shouldReadStatisticsFromCounters() {
+        assertThat(configuration.getDbSqlSessionFactory().mapStatement("selectActivityStatistics"))
+                .isEqualTo("selectActivityStatisticsFromCounters");
+
+        ProcessDefinition definition = repositoryService.createProcessDefinitionQuery()
+                .processDefinitionKey(PROCESS_KEY)
+                .latestVersion()
+                .singleResult();
+        ActivityStatisticsQueryImpl query =
+                (ActivityStatisticsQueryImpl) managementService.createActivityStatisticsQuery(definition.getId());
+        // as configured for a command without authenticated user
+        query.getTenantCheck().setTenantCheckEnabled(false);
+        assertThat(configuration.getSqlSessionFactory().getConfiguration()
+                .getMappedStatement("selectActivityStatisticsFromCounters")
+                .getBoundSql(query)
+                .getSql())
+                .contains("ACT_RU_STATS_COUNTER")
+                .doesNotContain("ACT_RU_EXECUTION");
+    }
+
+    @Test
+    void shouldCountInstancesInTheSameTransaction() {
+        ProcessDefinition definition = repositoryService.createProcessDefinitionQuery()
+                .processDefinitionKey(PROCESS_KEY)
+                .latestVersion()
+                .singleResult();
+        long instancesBefore = definitionInstances(definition.getId());
+        long waitingBefore = activityInstances(definition.getId(), WAIT_ACTIVITY);
+
+        List<ProcessInstance> instances = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            instances.add(runtimeService.startProcessInstanceByKey(PROCESS_KEY));
+        }
+
+        assertThat(definitionInstances(definition.getId())).isEqualTo(instancesBefore + 3);
+        assertThat(activityInstances(definition.getId(), WAIT_ACTIVITY)).isEqualTo(waitingBefore + 3);
+        // activities passed within the starting command never show up
+        assertThat(managementService.createActivityStatisticsQuery(definition.getId()).list())
+                .extracting(ActivityStatistics::getId)
+                .containsOnly(WAIT_ACTIVITY);
+
+        String taskId = taskService.createTaskQuery()
+                .processInstanceId(instances.get(0).getId())
+                .singleResult()
+                .getId();
+        taskService.complete(taskId);
+        runtimeService.deleteProcessInstance(instances.get(1).getId(), "statistics test", true);
+
+        assertThat(definitionInstances(definition.getId())).isEqualTo(instancesBefore + 1);
+        assertThat(activityInstances(definition.getId(), WAIT_ACTIVITY)).isEqualTo(waitingBefore + 1);
+        assertThat(activityInstances(definition.getId(), WAIT_ACTIVITY))
+                .isEqualTo(taskService.createTaskQuery()
+                        .processDefinitionId(definition.getId())
+                        .taskDefinitionKey(WAIT_ACTIVITY)
+                        .count());
+    }
+
+    private long definitionInstances(String processDefinitionId) {
+        return managementService.createProcessDefinitionStatisticsQuery().list().stream()
+                .filter(statistics -> statistics.getId().equals(processDefinitionId))
+                .mapToLong(ProcessDefinitionStatistics::getInstances)
+                .sum();
+    }
+
+    private long activityInstances(String processDefinitionId, String activityId) {
+        return managementService.createActivityStatisticsQuery(processDefinitionId).list().stream()
+                .filter(statistics -> statistics.getId().equals(activityId))
+                .mapToLong(ActivityStatistics::getInstances)
+                .sum();
+    }
+
+}
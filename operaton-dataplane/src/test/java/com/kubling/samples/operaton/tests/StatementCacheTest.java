@@ -0,0 +1,54 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.db.StatementCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class StatementCacheTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @BeforeAll
+    static void enableStatementCache() {
+        System.setProperty("KUBLING_STATEMENT_CACHE", "true");
+    }
+
+    @AfterAll
+    static void disableStatementCache() {
+        System.clearProperty("KUBLING_STATEMENT_CACHE");
+    }
+
+    @Test
+    void shouldReuseStatementsAcrossCommands() {
+        assertThat(configuration.getSqlSessionFactory().getConfiguration().getDefaultExecutorType())
+                .isEqualTo(ExecutorType.REUSE);
+        assertThat(configuration.isJdbcBatchProcessing()).isFalse();
+
+        StatementCacheMetrics metrics = configuration.getStatementCacheMetrics();
+        assertThat(metrics).isNotNull();
+        long hitsBefore = metrics.getHits();
+
+        for (int i = 0; i < 20; i++) {
+            runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+        }
+
+        assertThat(metrics.getHits()).isGreaterThan(hitsBefore);
+        assertThat(metrics.getHitRate()).isPositive();
+        assertThat(metrics.topStatements(10)).isNotEmpty()
+                .allSatisfy(statement -> assertThat(statement.executions()).isPositive());
+
+        metrics.topStatements(10).forEach(statement ->
+                log.info("{} executions, hit rate {}: {}", statement.executions(), statement.hitRate(), statement.sql()));
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.stp.StraightThroughRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StraightThroughTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @BeforeAll
+    static void enableStraightThrough() {
+        System.setProperty("KUBLING_STRAIGHT_THROUGH", "true");
+    }
+
+    @AfterAll
+    static void resetStraightThrough() {
+        System.clearProperty("KUBLING_STRAIGHT_THROUGH");
+    }
+
+    @Test
+    void shouldClassifyDefinitionsAtDeployment() {
+        StraightThroughRegistry registry = configuration.getStraightThroughRegistry();
+
+        assertThat(registry.isStraightThrough("Process_1kaebg3")).isTrue();
+        assertThat(registry.isStraightThrough("Process_with_wait")).isFalse();
+    }
+
+    @Test
+    void shouldCompleteStraightThroughInstanceWithoutRuntimeRows() {
+        StraightThroughRegistry registry = configuration.getStraightThroughRegistry();
+        long ephemeralBefore = registry.getEphemeralInstances();
+
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_1kaebg3");
+
+        assertThat(instance.isEnded()).isTrue();
+        assertThat(runtimeService.createExecutionQuery().processInstanceId(instance.getId()).count()).isZero();
+        assertThat(historyService.createHistoricProcessInstanceQuery()
+                .processInstanceId(instance.getId())
+                .finished()
+                .count()).isEqualTo(1);
+        assertThat(registry.getEphemeralInstances()).isEqualTo(ephemeralBefore + 1);
+    }
+
+    @Test
+    void shouldPersistInstancesThatWait() {
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_with_wait");
+
+        assertThat(instance.isEnded()).isFalse();
+        assertThat(runtimeService.createExecutionQuery().processInstanceId(instance.getId()).count()).isPositive();
+
+        runtimeService.deleteProcessInstance(instance.getId(), "test cleanup");
+    }
+}
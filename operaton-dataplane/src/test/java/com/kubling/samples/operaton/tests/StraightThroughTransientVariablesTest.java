@@ -0,0 +1,76 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.config.KublingProcessEngineConfiguration;
+import com.kubling.samples.operaton.stp.StraightThroughRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.history.HistoricVariableInstance;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StraightThroughTransientVariablesTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private KublingProcessEngineConfiguration configuration;
+
+    @BeforeAll
+    static void enableTransientVariables() {
+        System.setProperty("KUBLING_STRAIGHT_THROUGH", "true");
+        System.setProperty("KUBLING_STRAIGHT_THROUGH_TRANSIENT_VARIABLES", "true");
+        System.setProperty("KUBLING_HISTORY_PROFILES", "Process_1kaebg3=full:orderId");
+    }
+
+    @AfterAll
+    static void resetTransientVariables() {
+        System.clearProperty("KUBLING_STRAIGHT_THROUGH");
+        System.clearProperty("KUBLING_STRAIGHT_THROUGH_TRANSIENT_VARIABLES");
+        System.clearProperty("KUBLING_HISTORY_PROFILES");
+    }
+
+    @Test
+    void shouldKeepHistoryOfAllowListedVariablesOnly() {
+        StraightThroughRegistry registry = configuration.getStraightThroughRegistry();
+        long skippedBefore = registry.getSkippedVariableHistory();
+
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_1kaebg3", Map.of(
+                "orderId", "order-1",
+                "totalAmount", new BigDecimal("42.50"),
+                "orderCurrency", "EUR"));
+
+        assertThat(instance.isEnded()).isTrue();
+        assertThat(runtimeService.createVariableInstanceQuery().processInstanceIdIn(instance.getId()).count()).isZero();
+        assertThat(historyService.createHistoricVariableInstanceQuery()
+                .processInstanceId(instance.getId())
+                .list())
+                .extracting(HistoricVariableInstance::getName)
+                .containsExactly("orderId");
+        assertThat(historyService.createHistoricDetailQuery()
+                .processInstanceId(instance.getId())
+                .variableUpdates()
+                .count())
+                .isEqualTo(1);
+        assertThat(registry.getSkippedVariableHistory()).isGreaterThanOrEqualTo(skippedBefore + 2);
+    }
+
+    @Test
+    void shouldKeepFullVariableHistoryOfDefinitionsThatWait() {
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_with_wait", Map.of(
+                "orderId", "order-2",
+                "orderCurrency", "EUR"));
+
+        assertThat(historyService.createHistoricVariableInstanceQuery()
+                .processInstanceId(instance.getId())
+                .count())
+                .isEqualTo(2);
+
+        runtimeService.deleteProcessInstance(instance.getId(), "test cleanup");
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.id.TimeOrderedIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void shouldGenerateUniqueAndOrderedIdsAcrossThreads() throws Exception {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1, 16);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        AtomicBoolean ordered = new AtomicBoolean(true);
+
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = Thread.ofVirtual().start(() -> {
+                String previous = "";
+                for (int j = 0; j < 10_000; j++) {
+                    String id = generator.getNextId();
+                    if (id.compareTo(previous) <= 0) {
+                        ordered.set(false);
+                    }
+                    ids.add(id);
+                    previous = id;
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(ordered).isTrue();
+        assertThat(ids).hasSize(threads.length * 10_000);
+    }
+
+    @Test
+    void shouldPrefixIdsWithTheNodeId() {
+        assertThat(new TimeOrderedIdGenerator(0xABCDEF).getNextId()).startsWith("000000abcdef-").hasSize(29);
+        assertThat(new TimeOrderedIdGenerator(TimeOrderedIdGenerator.randomNodeId()).getNextId()).hasSize(29);
+        assertThatThrownBy(() -> new TimeOrderedIdGenerator(1L << 48)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
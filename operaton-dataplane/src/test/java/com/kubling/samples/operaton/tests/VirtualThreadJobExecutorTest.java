@@ -0,0 +1,56 @@
+package com.kubling.samples.operaton.tests;
+
+import com.kubling.samples.operaton.AbstractOperatonIntegrationTest;
+import com.kubling.samples.operaton.jobexecutor.VirtualThreadJobExecutor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.ManagementService;
+import org.operaton.bpm.engine.history.HistoricProcessInstance;
+import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadJobExecutorTest extends AbstractOperatonIntegrationTest {
+
+    @Autowired
+    private ProcessEngineConfigurationImpl configuration;
+
+    @Autowired
+    private ManagementService managementService;
+
+    @BeforeAll
+    static void enableJobExecutor() {
+        System.setProperty("KUBLING_JOB_EXECUTOR", "true");
+    }
+
+    @AfterAll
+    static void disableJobExecutor() {
+        System.clearProperty("KUBLING_JOB_EXECUTOR");
+    }
+
+    @Test
+    void shouldExecuteAsyncContinuation() throws InterruptedException {
+        deployIfMissing(repositoryService, "Process_async", "minimal-process-async");
+        assertThat(configuration.getJobExecutor()).isInstanceOf(VirtualThreadJobExecutor.class);
+
+        ProcessInstance instance = runtimeService.startProcessInstanceByKey("Process_async");
+
+        HistoricProcessInstance history = null;
+        for (int i = 0; i < 100 && history == null; i++) {
+            history = historyService
+                    .createHistoricProcessInstanceQuery()
+                    .processInstanceId(instance.getId())
+                    .finished()
+                    .singleResult();
+            if (history == null) {
+                Thread.sleep(100);
+            }
+        }
+
+        assertThat(history).isNotNull();
+        assertThat(managementService.createJobQuery().processInstanceId(instance.getId()).count()).isZero();
+    }
+}
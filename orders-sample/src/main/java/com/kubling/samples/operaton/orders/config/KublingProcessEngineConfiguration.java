@@ -1,14 +1,23 @@
 package com.kubling.samples.operaton.orders.config;
 
+import com.kubling.samples.operaton.variable.CompactValueSerializer;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.operaton.bpm.engine.impl.util.ReflectUtil;
 import org.operaton.bpm.engine.spring.SpringProcessEngineConfiguration;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 
 @Slf4j
+@Getter
+@Setter
 public class KublingProcessEngineConfiguration extends SpringProcessEngineConfiguration {
 
+    // Inline serialization of small immutable object values
+    private boolean compactValueSerializationEnabled = false;
+
     @Override
     public void initDatabaseType() {
         databaseType = "h2";
@@ -24,4 +33,19 @@ public class KublingProcessEngineConfiguration extends SpringProcessEngineConfig
         return ReflectUtil.getResourceAsStream("com/kubling/operaton/bpm/engine/impl/mapping/mappings.xml");
     }
 
+    @Override
+    protected void init() {
+        if (customPreVariableSerializers == null) {
+            customPreVariableSerializers = new ArrayList<>();
+        }
+        // always registered, so that values written while compact serialization was enabled stay readable
+        customPreVariableSerializers.add(new CompactValueSerializer());
+        if (compactValueSerializationEnabled) {
+            // object values without an explicit format match the Java serializer too, the default format decides
+            setDefaultSerializationFormat(CompactValueSerializer.FORMAT);
+        }
+
+        super.init();
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.kubling.samples.operaton.orders.config;
 
+import com.kubling.samples.operaton.id.TimeOrderedIdGenerator;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import com.zaxxer.hikari.util.IsolationLevel;
@@ -21,7 +22,6 @@ import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.support.DefaultTransactionStatus;
 
 import javax.sql.DataSource;
-import java.util.UUID;
 
 @Configuration
 @Slf4j
@@ -92,11 +92,20 @@ public class OperatonConfig {
         config.setDatabaseTablePrefix("operaton.");
         config.setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_FALSE);
         config.setHistoryTimeToLive("P365D");
-        config.setIdGenerator(() -> UUID.randomUUID().toString());
+        // nodes sharing a data plane need distinct ids, without one a random id is drawn per start
+        config.setIdGenerator(new TimeOrderedIdGenerator(
+                Long.parseLong((String) System.getProperties().getOrDefault("KUBLING_ENGINE_NODE_ID",
+                        String.valueOf(TimeOrderedIdGenerator.randomNodeId()))),
+                Integer.parseInt((String) System.getProperties().getOrDefault("KUBLING_ID_BLOCK_SIZE",
+                        String.valueOf(TimeOrderedIdGenerator.DEFAULT_BLOCK_SIZE)))));
         config.setMetricsEnabled(false);
         config.setJobExecutorActivate(false);
         config.setBeans(new SpringBeanFactoryProxyMap(applicationContext));
 
+        // Kubling data plane settings
+        config.setCompactValueSerializationEnabled(Boolean.parseBoolean(
+                (String) System.getProperties().getOrDefault("KUBLING_COMPACT_VALUES", "false")));
+
         return config;
     }
 
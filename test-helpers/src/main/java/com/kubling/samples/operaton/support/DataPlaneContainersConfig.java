@@ -56,7 +56,8 @@ public final class DataPlaneContainersConfig extends AbstractContainersConfig {
                             "APP_CONFIG", CONTAINER_APP_CONFIG,
                             "DESCRIPTOR_BUNDLE", CONTAINER_BUNDLE,
                             "MYSQL_ADDRESS", "mysql",
-                            "POSTGRES_ADDRESS", "postgres"
+                            "POSTGRES_ADDRESS", "postgres",
+                            "REPOSITORY_CACHE", "true"
                     ))
                     .withLogConsumer(new Slf4jLogConsumer(log).withPrefix("DATA-PLANE"))
                     .withCopyFileToContainer(
@@ -115,6 +116,11 @@ public final class DataPlaneContainersConfig extends AbstractContainersConfig {
         return kubling.getMappedPort(KublingContainer.DEFAULT_NATIVE_PORT);
     }
 
+    public static int getKublingHttpPort() {
+        initialize();
+        return kubling.getMappedPort(KUBLING_HTTP_PORT);
+    }
+
     public static String getMySQLJdbcUrl() {
         initialize();
         return mysql.getJdbcUrl();
@@ -0,0 +1,209 @@
+package com.kubling.samples.operaton.variable;
+
+import org.operaton.bpm.engine.impl.variable.serializer.AbstractTypedValueSerializer;
+import org.operaton.bpm.engine.impl.variable.serializer.ValueFields;
+import org.operaton.bpm.engine.variable.impl.value.ObjectValueImpl;
+import org.operaton.bpm.engine.variable.impl.value.UntypedValueImpl;
+import org.operaton.bpm.engine.variable.type.ValueType;
+import org.operaton.bpm.engine.variable.value.ObjectValue;
+import org.operaton.bpm.engine.variable.value.TypedValue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Stores small immutable value types inline in ACT_RU_VARIABLE instead of Java-serializing them into
+ * ACT_GE_BYTEARRAY.
+ * <p>
+ * Values are still object values, so {@code Variables.objectValue(amount)} and plain {@code setVariable} calls
+ * keep working and return the same Java type. The exact value goes to TEXT_ and a type tag to TEXT2_. Numbers
+ * also fill DOUBLE_ (and LONG_ when they are integral and fit), dates and instants fill LONG_, so that rows can
+ * be ordered by value directly in the backend.
+ * <p>
+ * Engines register it whether or not it is their default serialization format, so that rows written with it stay
+ * readable once it is no longer the default.
+ */
+public class CompactValueSerializer extends AbstractTypedValueSerializer<ObjectValue> {
+
+    public static final String NAME = "kubling-compact";
+    public static final String FORMAT = "application/x-kubling-compact";
+
+    public CompactValueSerializer() {
+        super(ValueType.OBJECT);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getSerializationDataformat() {
+        return FORMAT;
+    }
+
+    @Override
+    public void writeValue(ObjectValue value, ValueFields valueFields) {
+        // serialized values, e.g. set through the REST API, are parsed to fill the typed columns
+        Object object = value.isDeserialized()
+                ? value.getValue()
+                : Codec.byTypeName(value.getObjectTypeName()).parse(value.getValueSerialized());
+        Codec codec = Codec.of(object);
+        valueFields.setTextValue(codec.text(object));
+        valueFields.setTextValue2(codec.tag);
+        valueFields.setLongValue(codec.longValue(object));
+        valueFields.setDoubleValue(codec.doubleValue(object));
+    }
+
+    @Override
+    public ObjectValue readValue(ValueFields valueFields, boolean deserializeValue, boolean asTransientValue) {
+        Codec codec = Codec.byTag(valueFields.getTextValue2());
+        String text = valueFields.getTextValue();
+        ObjectValueImpl value = new ObjectValueImpl(
+                deserializeValue ? codec.parse(text) : null,
+                text,
+                FORMAT,
+                codec.type.getName(),
+                deserializeValue);
+        value.setTransient(asTransientValue);
+        return value;
+    }
+
+    @Override
+    public ObjectValue convertToTypedValue(UntypedValueImpl untypedValue) {
+        ObjectValueImpl value = new ObjectValueImpl(untypedValue.getValue(), null, FORMAT,
+                untypedValue.getValue().getClass().getName(), true);
+        value.setTransient(untypedValue.isTransient());
+        return value;
+    }
+
+    @Override
+    protected boolean canWriteValue(TypedValue value) {
+        if (value instanceof ObjectValue objectValue) {
+            String format = objectValue.getSerializationDataFormat();
+            if (!objectValue.isDeserialized()) {
+                return FORMAT.equals(format)
+                        && objectValue.getValueSerialized() != null
+                        && Codec.byTypeName(objectValue.getObjectTypeName()) != null;
+            }
+            return (format == null || FORMAT.equals(format)) && Codec.of(objectValue.getValue()) != null;
+        }
+        return value instanceof UntypedValueImpl && Codec.of(value.getValue()) != null;
+    }
+
+    private enum Codec {
+
+        BIG_DECIMAL("bd", BigDecimal.class, BigDecimal::new) {
+            @Override
+            Long longValue(Object value) {
+                BigDecimal decimal = (BigDecimal) value;
+                try {
+                    return decimal.stripTrailingZeros().scale() <= 0 ? decimal.longValueExact() : null;
+                } catch (ArithmeticException e) {
+                    return null;
+                }
+            }
+
+            @Override
+            Double doubleValue(Object value) {
+                return finite(((BigDecimal) value).doubleValue());
+            }
+        },
+        BIG_INTEGER("bi", BigInteger.class, BigInteger::new) {
+            @Override
+            Long longValue(Object value) {
+                BigInteger integer = (BigInteger) value;
+                return integer.bitLength() < Long.SIZE ? integer.longValue() : null;
+            }
+
+            @Override
+            Double doubleValue(Object value) {
+                return finite(((BigInteger) value).doubleValue());
+            }
+        },
+        UUID_VALUE("uuid", UUID.class, UUID::fromString),
+        LOCAL_DATE("ld", LocalDate.class, LocalDate::parse) {
+            @Override
+            Long longValue(Object value) {
+                return ((LocalDate) value).toEpochDay();
+            }
+        },
+        INSTANT("ts", Instant.class, Instant::parse) {
+            @Override
+            Long longValue(Object value) {
+                Instant instant = (Instant) value;
+                try {
+                    return instant.toEpochMilli();
+                } catch (ArithmeticException e) {
+                    return null;
+                }
+            }
+        };
+
+        private final String tag;
+        private final Class<?> type;
+        private final Function<String, Object> parser;
+
+        Codec(String tag, Class<?> type, Function<String, Object> parser) {
+            this.tag = tag;
+            this.type = type;
+            this.parser = parser;
+        }
+
+        static Codec of(Object value) {
+            if (value == null) {
+                return null;
+            }
+            for (Codec codec : values()) {
+                // exact match only, subclasses of BigDecimal/BigInteger would lose their type
+                if (codec.type == value.getClass()) {
+                    return codec;
+                }
+            }
+            return null;
+        }
+
+        static Codec byTypeName(String typeName) {
+            for (Codec codec : values()) {
+                if (codec.type.getName().equals(typeName)) {
+                    return codec;
+                }
+            }
+            return null;
+        }
+
+        static Codec byTag(String tag) {
+            return Arrays.stream(values())
+                    .filter(codec -> codec.tag.equals(tag))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown compact value type '%s'".formatted(tag)));
+        }
+
+        String text(Object value) {
+            return value.toString();
+        }
+
+        Object parse(String text) {
+            return parser.apply(text);
+        }
+
+        Long longValue(Object value) {
+            return null;
+        }
+
+        Double doubleValue(Object value) {
+            return null;
+        }
+
+        // DOUBLE_ columns reject infinity, values beyond the range of double are only kept in TEXT_
+        private static Double finite(double value) {
+            return Double.isFinite(value) ? value : null;
+        }
+    }
+
+}
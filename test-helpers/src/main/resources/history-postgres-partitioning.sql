@@ -0,0 +1,83 @@
+-- Opt-in conversion of the ACT_HI_* tables to monthly range partitions on REMOVAL_TIME_.
+--
+-- Run against the history database after history-postgres.sql, then enable KUBLING_HISTORY_PARTITIONING so that
+-- the engine stamps the removal time at insert and the history cleanup drops expired partitions:
+--
+--   SELECT kubling_partition_history_tables();
+--
+-- Unique constraints on a partitioned table must contain the partition key, and REMOVAL_TIME_ is nullable, so the
+-- primary keys and unique constraints become plain indexes. Rows without removal time go to <table>_default and
+-- are left to the regular cleanup.
+
+CREATE OR REPLACE FUNCTION kubling_partition_history_table(tbl text) RETURNS void AS $$
+DECLARE
+    legacy      text;
+    defs        text[];
+    def         text;
+    con         record;
+    idx         record;
+    month_start timestamp;
+    last_month  timestamp;
+BEGIN
+    tbl := lower(tbl);
+    legacy := tbl || '_legacy';
+
+    IF EXISTS (SELECT 1
+               FROM pg_partitioned_table p
+               JOIN pg_class c ON c.oid = p.partrelid
+               WHERE c.relnamespace = 'public'::regnamespace AND c.relname = tbl) THEN
+        RETURN;
+    END IF;
+
+    EXECUTE format('ALTER TABLE public.%I RENAME TO %I', tbl, legacy);
+
+    SELECT array_agg(regexp_replace(replace(indexdef, 'CREATE UNIQUE INDEX', 'CREATE INDEX'),
+                                    ' ON (public\.)?' || legacy || ' ', ' ON public.' || tbl || ' '))
+    INTO defs
+    FROM pg_indexes
+    WHERE schemaname = 'public' AND tablename = legacy;
+
+    FOR con IN SELECT conname FROM pg_constraint
+               WHERE conrelid = ('public.' || legacy)::regclass AND contype IN ('p', 'u') LOOP
+        EXECUTE format('ALTER TABLE public.%I DROP CONSTRAINT %I', legacy, con.conname);
+    END LOOP;
+    FOR idx IN SELECT indexname FROM pg_indexes WHERE schemaname = 'public' AND tablename = legacy LOOP
+        EXECUTE format('DROP INDEX public.%I', idx.indexname);
+    END LOOP;
+
+    EXECUTE format('CREATE TABLE public.%I (LIKE public.%I INCLUDING DEFAULTS) PARTITION BY RANGE (removal_time_)',
+                   tbl, legacy);
+    EXECUTE format('CREATE TABLE public.%I PARTITION OF public.%I DEFAULT', tbl || '_default', tbl);
+
+    EXECUTE format('SELECT date_trunc(''month'', min(removal_time_)), date_trunc(''month'', max(removal_time_)) FROM public.%I',
+                   legacy)
+    INTO month_start, last_month;
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE public.%I PARTITION OF public.%I FOR VALUES FROM (%L) TO (%L)',
+                       tbl || to_char(month_start, '"_p"YYYYMM'), tbl, month_start, month_start + interval '1 month');
+        month_start := month_start + interval '1 month';
+    END LOOP;
+
+    IF defs IS NOT NULL THEN
+        FOREACH def IN ARRAY defs LOOP
+            EXECUTE def;
+        END LOOP;
+    END IF;
+
+    EXECUTE format('INSERT INTO public.%I SELECT * FROM public.%I', tbl, legacy);
+    EXECUTE format('DROP TABLE public.%I', legacy);
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION kubling_partition_history_tables() RETURNS void AS $$
+DECLARE
+    tbl text;
+BEGIN
+    FOREACH tbl IN ARRAY ARRAY[
+        'act_hi_procinst', 'act_hi_actinst', 'act_hi_taskinst', 'act_hi_varinst', 'act_hi_detail',
+        'act_hi_identitylink', 'act_hi_comment', 'act_hi_attachment', 'act_hi_op_log', 'act_hi_incident',
+        'act_hi_job_log', 'act_hi_ext_task_log', 'act_hi_decinst', 'act_hi_dec_in', 'act_hi_dec_out'] LOOP
+        PERFORM kubling_partition_history_table(tbl);
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
@@ -454,6 +454,32 @@ create table ACT_HI_EXT_TASK_LOG (
     primary key (ID_)
 );
 
+-- create duration rollup table (Kubling engine configuration, not part of the engine schema) --
+-- one row per kind, process definition, task name and hour, KIND_ is 'process' or 'task' --
+-- process rows are bucketed by start time, task rows by end time, as the duration reports group them --
+-- H0_ to H6_ count durations below 1s, 10s, 1m, 10m, 1h, 1d and from 1d on --
+
+create table ACT_HI_DURATION_ROLLUP (
+    KIND_ varchar(16) not null,
+    PROC_DEF_ID_ varchar(64) not null,
+    TASK_NAME_ varchar(255) not null,
+    BUCKET_ timestamp not null,
+    PROC_DEF_KEY_ varchar(255),
+    TENANT_ID_ varchar(64),
+    COUNT_ bigint not null default 0,
+    SUM_ bigint not null default 0,
+    MIN_ bigint,
+    MAX_ bigint,
+    H0_ bigint not null default 0,
+    H1_ bigint not null default 0,
+    H2_ bigint not null default 0,
+    H3_ bigint not null default 0,
+    H4_ bigint not null default 0,
+    H5_ bigint not null default 0,
+    H6_ bigint not null default 0,
+    primary key (KIND_, PROC_DEF_ID_, TASK_NAME_, BUCKET_)
+);
+
 create index ACT_IDX_HI_PRO_INST_END on ACT_HI_PROCINST(END_TIME_);
 create index ACT_IDX_HI_PRO_I_BUSKEY on ACT_HI_PROCINST(BUSINESS_KEY_);
 create index ACT_IDX_HI_PRO_INST_TENANT_ID on ACT_HI_PROCINST(TENANT_ID_);
@@ -484,6 +510,8 @@ create index ACT_IDX_HI_TASK_INST_RM_TIME on ACT_HI_TASKINST(REMOVAL_TIME_);
 create index ACT_IDX_HI_TASK_INST_START on ACT_HI_TASKINST(START_TIME_);
 create index ACT_IDX_HI_TASK_INST_END on ACT_HI_TASKINST(END_TIME_);
 
+create index ACT_IDX_HI_DUR_ROLLUP_BUCKET on ACT_HI_DURATION_ROLLUP(KIND_, BUCKET_);
+
 create index ACT_IDX_HI_DETAIL_ROOT_PI on ACT_HI_DETAIL(ROOT_PROC_INST_ID_);
 create index ACT_IDX_HI_DETAIL_PROC_INST on ACT_HI_DETAIL(PROC_INST_ID_);
 create index ACT_IDX_HI_DETAIL_ACT_INST on ACT_HI_DETAIL(ACT_INST_ID_);
@@ -290,6 +290,18 @@ create table ACT_RU_CASE_SENTRY_PART (
     primary key (ID_)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE utf8_bin;
 
+-- create runtime statistics counter table (Kubling engine configuration, not part of the engine schema) --
+-- one row per process definition, activity and stripe, ACT_ID_ '#process' holds the process instance count --
+-- the counts are the sums over all stripes --
+
+create table ACT_RU_STATS_COUNTER (
+    PROC_DEF_ID_ varchar(64) NOT NULL,
+    ACT_ID_ varchar(255) NOT NULL,
+    STRIPE_ integer NOT NULL DEFAULT 0,
+    INSTANCES_ bigint NOT NULL DEFAULT 0,
+    primary key (PROC_DEF_ID_, ACT_ID_, STRIPE_)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE utf8_bin;
+
 create index ACT_IDX_EXEC_ROOT_PI on ACT_RU_EXECUTION(ROOT_PROC_INST_ID_);
 create index ACT_IDX_EXEC_BUSKEY on ACT_RU_EXECUTION(BUSINESS_KEY_);
 create index ACT_IDX_EXEC_TENANT_ID on ACT_RU_EXECUTION(TENANT_ID_);